@@ -0,0 +1,204 @@
+package co.migueljimenez.bib.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Deterministic synthetic bibliographies. The same number of entries
+ * always yields the same file, so results are comparable between commits.
+ * Files are generated once under {@code target/corpora}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Corpus {
+
+    /**
+     * The seed of every generated corpus.
+     */
+    private static final long SEED = 20170803L;
+
+    /**
+     * The directory containing the generated files.
+     */
+    private static final File DIRECTORY = new File(
+        System.getProperty("bib.corpora.dir", "target/corpora")
+    );
+
+    /**
+     * Words used in titles, abstracts and keywords.
+     */
+    private static final String[] WORDS = (
+        "self-adaptive systems cloud computing runtime models software "
+        + "architecture feedback loop monitoring analysis planning execution "
+        + "knowledge uncertainty requirements control theory performance "
+        + "energy reliability autonomic managing elasticity microservices "
+        + "deployment optimization learning evaluation case study approach "
+        + "framework towards engineering distributed quality service"
+    ).split(" ");
+
+    /**
+     * Predefined venues, referenced through @string macros.
+     */
+    private static final String[][] MACROS = {
+        {"tse", "IEEE Transactions on Software Engineering"},
+        {"taas", "ACM Transactions on Autonomous and Adaptive Systems"},
+        {"seams", "Software Engineering for Adaptive and Self-Managing Systems"}
+    };
+
+    private Corpus() {
+    }
+
+    /**
+     * The bibtex file with the given number of entries, generating it if
+     * needed.
+     * @param entries The number of entries
+     * @return the bibtex file
+     * @throws IOException
+     */
+    public static synchronized File bibFile(final int entries)
+        throws IOException {
+        final File file = new File(
+            Corpus.DIRECTORY,
+            String.format("corpus-%d.bib", entries)
+        );
+        if (!file.exists()) {
+            Corpus.DIRECTORY.mkdirs();
+            final File temporary = new File(
+                Corpus.DIRECTORY,
+                String.format("corpus-%d.bib.tmp", entries)
+            );
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(
+                        Files.newOutputStream(temporary.toPath()),
+                        Charset.forName("UTF-8")
+                    ),
+                    1 << 16
+                )) {
+                Corpus.write(entries, writer);
+            }
+            Files.move(
+                temporary.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        }
+        return file;
+    }
+
+    /**
+     * A deterministic sample of keys. Roughly one in ten keys does not
+     * exist in the corpus, as happens with real citation lists.
+     * @param count The number of keys
+     * @param entries The number of entries in the corpus
+     * @return the keys
+     */
+    public static List<String> keys(final int count, final int entries) {
+        final Random random = new Random(Corpus.SEED + count);
+        final List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = random.nextInt(entries + entries / 10);
+            keys.add(Corpus.key(index));
+        }
+        return keys;
+    }
+
+    public static String key(final int index) {
+        return String.format("author%d:%d", index % 997, index);
+    }
+
+    private static void write(final int entries, final Writer writer)
+        throws IOException {
+        final Random random = new Random(Corpus.SEED);
+        for (String[] macro : Corpus.MACROS)
+            writer.write(
+                String.format("@string{%s = \"%s\"}\n\n", macro[0], macro[1])
+            );
+        for (int i = 0; i < entries; i++) {
+            final boolean article = random.nextBoolean();
+            writer.write(article ? "@article{" : "@inproceedings{");
+            writer.write(Corpus.key(i));
+            writer.write(",\n");
+            Corpus.field(writer, "author", Corpus.authors(random));
+            Corpus.field(writer, "title", Corpus.words(random, 6 + random.nextInt(8)));
+            final int venue = random.nextInt(Corpus.MACROS.length + 40);
+            final String venueField = article ? "journal" : "booktitle";
+            if (venue < Corpus.MACROS.length)
+                writer.write(
+                    String.format("\t%s = %s,\n", venueField, Corpus.MACROS[venue][0])
+                );
+            else
+                Corpus.field(writer, venueField, String.format("Venue %d", venue));
+            Corpus.field(writer, "year", String.valueOf(1990 + random.nextInt(28)));
+            Corpus.field(
+                writer,
+                "pages",
+                String.format("%d--%d", i % 300 + 1, i % 300 + 12)
+            );
+            Corpus.field(writer, "doi", String.format("10.%d/bench.%d", 1000 + i % 500, i));
+            Corpus.field(writer, "keywords", Corpus.words(random, 4).replace(' ', ','));
+            Corpus.field(writer, "abstract", Corpus.words(random, 80 + random.nextInt(80)));
+            writer.write("}\n\n");
+        }
+    }
+
+    private static void field(final Writer writer, final String key,
+        final String value) throws IOException {
+        writer.write(String.format("\t%s = {%s},\n", key, value));
+    }
+
+    private static String authors(final Random random) {
+        final StringBuilder builder = new StringBuilder();
+        final int authors = 1 + random.nextInt(5);
+        for (int i = 0; i < authors; i++) {
+            if (i > 0)
+                builder.append(" and ");
+            final int author = random.nextInt(5000);
+            builder.append(String.format("Lastname%d, Firstname%d", author, author % 97));
+        }
+        return builder.toString();
+    }
+
+    private static String words(final Random random, final int count) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0)
+                builder.append(' ');
+            builder.append(Corpus.WORDS[random.nextInt(Corpus.WORDS.length)]);
+        }
+        return builder.toString();
+    }
+
+}
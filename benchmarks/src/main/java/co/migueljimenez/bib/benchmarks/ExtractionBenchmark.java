@@ -0,0 +1,157 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.HostRules;
+import co.migueljimenez.bib.OnlineTasks;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Selector dispatch and Jsoup extraction of the abstract and PDF link on
+ * saved publisher pages ({@code fixtures/<host>.html}). No browser or
+ * network is involved. The {@code select*} and {@code parseAndSelect*}
+ * benchmarks pass the selector strings to Jsoup, which parses them on every
+ * call; the {@code *Compiled} ones use the precompiled host rules.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({
+        "dl.acm.org",
+        "ieeexplore.ieee.org",
+        "link.springer.com",
+        "www.sciencedirect.com",
+        "onlinelibrary.wiley.com"
+    })
+    public String host;
+
+    private OnlineTasks tasks;
+
+    private File bibFile;
+
+    private String url;
+
+    private String html;
+
+    private Document document;
+
+    private HostRules rules;
+
+    @Setup
+    public void setup() throws Exception {
+        this.bibFile = File.createTempFile("bib-extraction", ".bib");
+        Files.write(
+            this.bibFile.toPath(),
+            Collections.singletonList("@misc{empty, title = {Empty}}")
+        );
+        this.tasks = new OnlineTasks(this.bibFile);
+        this.url = String.format("https://%s/doi/10.1000/bench", this.host);
+        this.html = ExtractionBenchmark.fixture(this.host);
+        this.document = Jsoup.parse(this.html, this.url);
+        this.rules = HostRules.load();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.tasks.shutdown();
+        this.bibFile.delete();
+    }
+
+    @Benchmark
+    public String dispatch() throws Exception {
+        return this.tasks.textSelector(this.url)
+            + this.tasks.linkSelector(this.url);
+    }
+
+    @Benchmark
+    public String selectParsed() throws Exception {
+        return this.document.select(this.tasks.textSelector(this.url)).text()
+            + this.document.select(this.tasks.linkSelector(this.url)).attr("href");
+    }
+
+    @Benchmark
+    public String parseAndSelect() throws Exception {
+        final Document page = Jsoup.parse(this.html, this.url);
+        return page.select(this.tasks.textSelector(this.url)).text()
+            + page.select(this.tasks.linkSelector(this.url)).attr("href");
+    }
+
+    @Benchmark
+    public String selectCompiled() {
+        final HostRules.Rule rule = this.rules.rule(HostRules.host(this.url));
+        return rule.text(this.document) + rule.link(this.document);
+    }
+
+    @Benchmark
+    public String parseAndSelectCompiled() {
+        final Document page = Jsoup.parse(this.html, this.url);
+        final HostRules.Rule rule = this.rules.rule(HostRules.host(this.url));
+        return rule.text(page) + rule.link(page);
+    }
+
+    static String fixture(final String host) throws IOException {
+        try (InputStream input = ExtractionBenchmark.class.getResourceAsStream(
+                String.format("/fixtures/%s.html", host)
+            )) {
+            if (input == null)
+                throw new IOException(String.format("No fixture for %s", host));
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                output.write(buffer, 0, read);
+            return new String(output.toByteArray(), Charset.forName("UTF-8"));
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package co.migueljimenez.bib.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A local stand-in for publisher sites. Requests are told apart by their
+ * Host header (e.g., 127.0.0.1, 127.0.0.2, which all reach the loopback
+ * interface on Linux), and each host serves at most {@code limit} requests
+ * per second; any request beyond that gets a 429 response with a
+ * Retry-After header, like a publisher throttling a scraper. A host that
+ * keeps being hammered (more than {@code limit} throttled requests in a
+ * second) bans the client for {@code ban} milliseconds, answering 429 to
+ * everything, like a publisher switching to a CAPTCHA. Every response takes
+ * {@code latency} milliseconds.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class FakePublisher implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final int limit;
+
+    private final long latency;
+
+    private final long ban;
+
+    /**
+     * The current one-second window, the requests and throttled requests in
+     * it, and the end of the current ban, by host.
+     */
+    private final Map<String, long[]> windows;
+
+    private final AtomicLong served;
+
+    private final AtomicLong throttled;
+
+    public FakePublisher(final int limit, final long latency, final long ban)
+        throws IOException {
+        this.limit = limit;
+        this.latency = latency;
+        this.ban = ban;
+        this.windows = new ConcurrentHashMap<>();
+        this.served = new AtomicLong();
+        this.throttled = new AtomicLong();
+        this.server = HttpServer.create(new InetSocketAddress(0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+    }
+
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    public long served() {
+        return this.served.get();
+    }
+
+    public long throttled() {
+        return this.throttled.get();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            Thread.sleep(this.latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final String host = exchange.getRequestHeaders().getFirst("Host");
+        final long now = System.currentTimeMillis();
+        final long[] window = this.windows.computeIfAbsent(host, key -> new long[4]);
+        final boolean allowed;
+        synchronized (window) {
+            if (window[0] != now / 1000) {
+                window[0] = now / 1000;
+                window[1] = 0;
+                window[2] = 0;
+            }
+            final boolean banned = now < window[3];
+            allowed = !banned && ++window[1] <= this.limit;
+            if (!allowed && !banned && ++window[2] > this.limit)
+                window[3] = now + this.ban;
+        }
+        if (!allowed) {
+            this.throttled.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+        this.served.incrementAndGet();
+        final byte[] body = String.format(
+            "<html><body><div class=\"abstract\">Abstract of %s%s</div></body></html>",
+            host,
+            exchange.getRequestURI()
+        ).getBytes(Charset.forName("UTF-8"));
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.DatabaseCache;
+import co.migueljimenez.bib.OfflineTasks;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Filtering a 100k-entry bibliography by key, either on a parsed database
+ * or streaming the file.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int keys;
+
+    @Param({"100000"})
+    public int entries;
+
+    private File bibFile;
+
+    private BibTeXDatabase database;
+
+    private List<String> selected;
+
+    private OfflineTasks tasks;
+
+    @Setup
+    public void setup() throws Exception {
+        this.bibFile = Corpus.bibFile(this.entries);
+        this.tasks = new OfflineTasks(DatabaseCache.disabled());
+        this.database = this.tasks.database(this.bibFile);
+        this.selected = Corpus.keys(this.keys, this.entries);
+    }
+
+    @Benchmark
+    public BibTeXDatabase database() {
+        return this.tasks.filteredEntries(this.selected, this.database);
+    }
+
+    @Benchmark
+    public BibTeXDatabase streamed() {
+        return this.tasks.filteredEntries(
+            this.selected,
+            Stream.of(this.bibFile),
+            1
+        );
+    }
+
+}
@@ -0,0 +1,107 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.BibTeXReader;
+import co.migueljimenez.bib.EntryStore;
+import java.io.File;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXObject;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Measures the memory retained by a corpus loaded as a
+ * {@link BibTeXDatabase} and as an {@link EntryStore}. This is not a JMH
+ * benchmark, since JMH measures time; run it on its own:
+ * <pre>
+ * java -cp target/benchmarks.jar co.migueljimenez.bib.benchmarks.Footprint 1000000
+ * </pre>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Footprint {
+
+    private Footprint() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int entries = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final File bibFile = Corpus.bibFile(entries);
+        long before = Footprint.heap();
+        BibTeXDatabase database = new BibTeXDatabase();
+        try (Stream<BibTeXObject> objects = BibTeXReader.objects(bibFile)) {
+            objects.forEachOrdered(database::addObject);
+        }
+        final long databaseHeap = Footprint.heap() - before;
+        final int size = database.getEntries().size();
+        database = null;
+        before = Footprint.heap();
+        final long directBefore = Footprint.direct();
+        final EntryStore store = EntryStore.load(bibFile);
+        final long storeHeap = Footprint.heap() - before;
+        final long storeDirect = Footprint.direct() - directBefore;
+        System.out.printf(
+            "%d entries%n"
+                + "BibTeXDatabase: %,d bytes of heap%n"
+                + "EntryStore:     %,d bytes of heap, %,d bytes off-heap "
+                + "(%,d bytes of text)%n"
+                + "Heap reduction: %.1f%%%n",
+            size,
+            databaseHeap,
+            storeHeap,
+            storeDirect,
+            store.textBytes(),
+            100.0 * (databaseHeap - storeHeap) / databaseHeap
+        );
+    }
+
+    /**
+     * The heap in use after a full collection.
+     */
+    private static long heap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * The memory used by direct buffers.
+     */
+    private static long direct() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)
+            .stream()
+            .filter(pool -> pool.getName().equals("direct"))
+            .mapToLong(BufferPoolMXBean::getMemoryUsed)
+            .sum();
+    }
+
+}
@@ -0,0 +1,132 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.DatabaseCache;
+import co.migueljimenez.bib.OfflineTasks;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.Key;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Printing a field of every entry, writing a database to disk, and
+ * formatting it in memory. Standard output is discarded while measuring.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FormatBenchmark {
+
+    @Param({"1000", "100000"})
+    public int entries;
+
+    private OfflineTasks tasks;
+
+    private BibTeXDatabase database;
+
+    private File output;
+
+    private PrintStream out;
+
+    @Setup
+    public void setup() throws Exception {
+        this.tasks = new OfflineTasks(DatabaseCache.disabled());
+        this.database = this.tasks.database(Corpus.bibFile(this.entries));
+        this.output = File.createTempFile("bib-format", ".bib");
+        this.output.deleteOnExit();
+        this.out = System.out;
+        System.setOut(
+            new PrintStream(
+                new OutputStream() {
+                    @Override
+                    public void write(final int b) {
+                    }
+                    @Override
+                    public void write(final byte[] b, final int off,
+                        final int len) {
+                    }
+                }
+            )
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void print() {
+        this.tasks.print(this.database, new Key("title"));
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        this.tasks.write(this.database, this.output);
+    }
+
+    @Benchmark
+    public void format() throws IOException {
+        new BibTeXFormatter().format(
+            this.database,
+            new Writer() {
+                @Override
+                public void write(final char[] buffer, final int offset,
+                    final int length) {
+                }
+                @Override
+                public void flush() {
+                }
+                @Override
+                public void close() {
+                }
+            }
+        );
+    }
+
+}
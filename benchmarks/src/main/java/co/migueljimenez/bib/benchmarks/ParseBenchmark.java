@@ -0,0 +1,102 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.BibTeXReader;
+import co.migueljimenez.bib.DatabaseCache;
+import co.migueljimenez.bib.OfflineTasks;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Loading a bibtex file: a full jbibtex parse, the streaming reader, and a
+ * load from a warm {@link DatabaseCache}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "100000"})
+    public int entries;
+
+    private File bibFile;
+
+    private OfflineTasks uncached;
+
+    private OfflineTasks cached;
+
+    @Setup
+    public void setup() throws Exception {
+        this.bibFile = Corpus.bibFile(this.entries);
+        this.uncached = new OfflineTasks(DatabaseCache.disabled());
+        this.cached = new OfflineTasks(
+            new DatabaseCache(
+                Files.createTempDirectory("bib-cache").toFile()
+            )
+        );
+        this.cached.database(this.bibFile);
+    }
+
+    @Benchmark
+    public BibTeXDatabase parse() throws Exception {
+        return this.uncached.database(this.bibFile);
+    }
+
+    @Benchmark
+    public BibTeXDatabase cachedLoad() throws Exception {
+        return this.cached.database(this.bibFile);
+    }
+
+    @Benchmark
+    public void stream(final Blackhole blackhole) throws IOException {
+        try (Stream<BibTeXEntry> entries = BibTeXReader.entries(this.bibFile)) {
+            entries.forEach(blackhole::consume);
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package co.migueljimenez.bib.benchmarks;
+
+import co.migueljimenez.bib.HostScheduler;
+import co.migueljimenez.bib.PageFetcher;
+import co.migueljimenez.bib.Pipeline;
+import co.migueljimenez.bib.ScrapeMetrics;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Fetches a batch of pages from four throttling hosts served by
+ * {@link FakePublisher}, until every page has been fetched. Failed pages are
+ * retried a second after the end of the batch, as a second run would. {@code naive}
+ * requests the pages in host order with no rate limit, as forEachEntry used
+ * to; {@code adaptive} fetches them in a {@link Pipeline} stage dispatched
+ * by the {@link HostScheduler}, as OnlineTasks does. The number of
+ * 429 responses each mode provoked is printed after each iteration.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SchedulerBenchmark {
+
+    @Param({"naive", "adaptive"})
+    public String mode;
+
+    @Param({"24"})
+    public int pagesPerHost;
+
+    private FakePublisher publisher;
+
+    private List<String> urls;
+
+    @Setup
+    public void setup() throws IOException {
+        this.publisher = new FakePublisher(8, 20, 5000);
+        this.urls = new ArrayList<>();
+        for (int host = 1; host <= 4; host++)
+            for (int page = 0; page < this.pagesPerHost; page++)
+                this.urls.add(
+                    String.format(
+                        "http://127.0.0.%d:%d/doi/10.1000/%d",
+                        host,
+                        this.publisher.port(),
+                        page
+                    )
+                );
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf(
+            "%n%d pages served, %d requests throttled%n",
+            this.publisher.served(),
+            this.publisher.throttled()
+        );
+        this.publisher.close();
+    }
+
+    @Benchmark
+    public int fetchAll() throws Exception {
+        final HostScheduler scheduler = this.mode.equals("adaptive")
+            ? new HostScheduler(2, 0.5, 10, 0.5, 10_000L)
+            : new Unlimited();
+        final PageFetcher fetcher =
+            new PageFetcher(8, 8, 10, new ScrapeMetrics(), scheduler);
+        final AtomicInteger rounds = new AtomicInteger();
+        List<String> pending = this.urls;
+        while (!pending.isEmpty()) {
+            if (rounds.incrementAndGet() > 1)
+                Thread.sleep(1000);
+            final List<String> failed = new ArrayList<>();
+            if (this.mode.equals("adaptive"))
+                Pipeline.from(pending, 64)
+                    .then(
+                        "fetch",
+                        8,
+                        true,
+                        scheduler.<String>dispatcher(SchedulerBenchmark::host, url -> 0),
+                        url -> {
+                            SchedulerBenchmark.fetch(fetcher, url, failed);
+                            return url;
+                        }
+                    )
+                    .drain(64, urls -> { });
+            else
+                SchedulerBenchmark.naive(pending, fetcher, failed);
+            pending = failed;
+        }
+        fetcher.shutdown();
+        return rounds.get();
+    }
+
+    private static void naive(final Collection<String> urls,
+        final PageFetcher fetcher, final List<String> failed)
+        throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (String url : urls)
+            executor.execute(() -> SchedulerBenchmark.fetch(fetcher, url, failed));
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    private static void fetch(final PageFetcher fetcher, final String url,
+        final List<String> failed) {
+        try {
+            fetcher.fetch(url);
+        } catch (IOException e) {
+            synchronized (failed) {
+                failed.add(url);
+            }
+        }
+    }
+
+    private static String host(final String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Lets every request through, and ignores throttling.
+     */
+    private static final class Unlimited extends HostScheduler {
+
+        @Override
+        public void acquire(final String host) {
+        }
+
+        @Override
+        public void throttled(final String host, final long pause) {
+        }
+
+    }
+
+}
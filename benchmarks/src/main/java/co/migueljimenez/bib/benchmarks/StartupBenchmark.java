@@ -0,0 +1,132 @@
+package co.migueljimenez.bib.benchmarks;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Wall-clock time of a short command line run, {@code bib parse} on a small
+ * corpus, in a fresh JVM: the offline jar, the offline jar with its AppCDS
+ * archive, and the jar of the online module with Selenium on the classpath.
+ * The jars are read from {@code ../core/target} and
+ * {@code ../online/target}, or {@code -Dbib.core.dir} and
+ * {@code -Dbib.online.dir}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    @Param({"core", "appcds", "online"})
+    public String jar;
+
+    @Param({"100"})
+    public int entries;
+
+    private List<String> command;
+
+    @Setup
+    public void setup() throws Exception {
+        final File core = new File(
+            System.getProperty("bib.core.dir", "../core/target")
+        );
+        final File online = new File(
+            System.getProperty("bib.online.dir", "../online/target")
+        );
+        this.command = new ArrayList<>();
+        this.command.add(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        );
+        final File jarFile;
+        switch (this.jar) {
+            case "core":
+                jarFile = new File(core, "bib.jar");
+                break;
+            case "appcds":
+                jarFile = new File(core, "bib.jar");
+                this.command.add(
+                    "-XX:SharedArchiveFile="
+                        + StartupBenchmark.exists(new File(core, "bib.jsa"))
+                );
+                break;
+            default:
+                jarFile = new File(online, "bib-online.jar");
+                break;
+        }
+        this.command.add("-jar");
+        this.command.add(StartupBenchmark.exists(jarFile));
+        this.command.add("parse");
+        this.command.add(Corpus.bibFile(this.entries).getAbsolutePath());
+    }
+
+    @Benchmark
+    public int parse() throws Exception {
+        final Process process = new ProcessBuilder(this.command)
+            .redirectErrorStream(true)
+            .start();
+        try (InputStream output = process.getInputStream()) {
+            final byte[] buffer = new byte[8192];
+            while (output.read(buffer) >= 0) {
+                // Discard the report
+            }
+        }
+        final int status = process.waitFor();
+        if (status != 0)
+            throw new IllegalStateException(
+                String.format("%s exited with %d", this.command, status)
+            );
+        return status;
+    }
+
+    private static String exists(final File file) {
+        if (!file.exists())
+            throw new IllegalStateException(
+                String.format("%s not found, run mvn install first", file)
+            );
+        return file.getAbsolutePath();
+    }
+
+}
@@ -0,0 +1,102 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Filters, normalizes or deduplicates bibliographies too large for one JVM,
+ * in worker JVMs (see {@link ShardedBatch}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class BatchCommand implements Command {
+
+    @Override
+    public String name() {
+        return "batch";
+    }
+
+    @Override
+    public String usage() {
+        return "<filter|normalize|deduplicate> <output> <input>... "
+            + "[--keys <file>] [--split key|range] [--shards n] [--workers n] "
+            + "[--retries n]";
+    }
+
+    @Override
+    public String description() {
+        return "Run a job over large files in sharded worker JVMs";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        final String keys = Bib.option(args, "--keys");
+        final String split = Bib.option(args, "--split");
+        final int shards = Bib.option(
+            args,
+            "--shards",
+            Runtime.getRuntime().availableProcessors()
+        );
+        final int workers = Bib.option(
+            args,
+            "--workers",
+            Runtime.getRuntime().availableProcessors()
+        );
+        final int retries = Bib.option(args, "--retries", 2);
+        Bib.expect(args, 3, Integer.MAX_VALUE);
+        new ShardedBatch(shards, workers, retries).run(
+            BatchCommand.value(ShardedBatch.Task.class, args.get(0)),
+            split == null
+                ? ShardedBatch.Split.KEY
+                : BatchCommand.value(ShardedBatch.Split.class, split),
+            args.subList(2, args.size()).stream()
+                .map(File::new)
+                .collect(Collectors.toList()),
+            keys == null ? null : new File(keys),
+            new File(args.get(1))
+        );
+        return 0;
+    }
+
+    private static <E extends Enum<E>> E value(final Class<E> type,
+        final String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Unknown %s: %s",
+                    type.getSimpleName().toLowerCase(Locale.ROOT),
+                    name
+                )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+package co.migueljimenez.bib;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * The bib command line: {@code bib <command> [args...]}, where the commands
+ * are the {@link Command} services on the classpath. {@code bib @file} runs
+ * the commands listed in the file, one per line, in the same JVM.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Bib {
+
+    /**
+     * Exit status for wrong arguments.
+     */
+    private static final int USAGE = 2;
+
+    /**
+     * The available commands, by name.
+     */
+    private final Map<String, Command> commands;
+
+    /**
+     * Default constructor.
+     */
+    public Bib() {
+        this.commands = new TreeMap<>();
+        for (Command command : ServiceLoader.load(Command.class))
+            this.commands.put(command.name(), command);
+    }
+
+    /**
+     * Runs a command.
+     * @param args The command name followed by its arguments
+     * @return the exit status
+     * @throws Exception If the command fails
+     */
+    public int run(final List<String> args) throws Exception {
+        if (args.isEmpty()) {
+            this.usage(System.err);
+            return Bib.USAGE;
+        }
+        final String name = args.get(0);
+        if (name.startsWith("@"))
+            return this.script(name.substring(1));
+        if (name.equals("help") || name.equals("-h") || name.equals("--help")) {
+            this.usage(System.out);
+            return 0;
+        }
+        final Command command = this.commands.get(name);
+        if (command == null) {
+            System.err.printf("Unknown command '%s'%n", name);
+            this.usage(System.err);
+            return Bib.USAGE;
+        }
+        try {
+            return command.run(new ArrayList<>(args.subList(1, args.size())));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.printf(
+                "Usage: bib %s %s%n",
+                command.name(),
+                command.usage()
+            );
+            return Bib.USAGE;
+        }
+    }
+
+    /**
+     * Runs the commands of a file, one per line, stopping at the first one
+     * that fails. Blank lines and lines starting with '#' are skipped, and
+     * arguments are separated by whitespace.
+     * @param file The file
+     * @return the exit status of the last command
+     * @throws Exception If a command fails
+     */
+    private int script(final String file) throws Exception {
+        for (String line : Files.readAllLines(
+                Paths.get(file),
+                StandardCharsets.UTF_8
+            )) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                continue;
+            final int status = this.run(
+                new ArrayList<>(Arrays.asList(trimmed.split("\\s+")))
+            );
+            if (status != 0)
+                return status;
+        }
+        return 0;
+    }
+
+    /**
+     * Prints the available commands.
+     * @param out The stream to print to
+     */
+    private void usage(final PrintStream out) {
+        out.println("Usage: bib <command> [args...]");
+        out.println("       bib @<file>");
+        out.println();
+        for (Command command : this.commands.values())
+            out.printf(
+                "  %-12s %s%n      bib %s %s%n",
+                command.name(),
+                command.description(),
+                command.name(),
+                command.usage()
+            );
+    }
+
+    /**
+     * Removes an option and its value from the arguments.
+     * @param args The arguments
+     * @param name The option name, e.g. "--workers"
+     * @return the value of the option, or null if it is not given
+     * @throws IllegalArgumentException If the option has no value
+     */
+    public static String option(final List<String> args, final String name) {
+        final int index = args.indexOf(name);
+        if (index < 0)
+            return null;
+        if (index + 1 >= args.size())
+            throw new IllegalArgumentException(
+                String.format("Missing value for %s", name)
+            );
+        args.remove(index);
+        return args.remove(index);
+    }
+
+    /**
+     * Removes a numeric option and its value from the arguments.
+     * @param args The arguments
+     * @param name The option name
+     * @param defaultValue The value if the option is not given
+     * @return the value of the option
+     * @throws IllegalArgumentException If the value is not a number
+     */
+    public static int option(final List<String> args, final String name,
+        final int defaultValue) {
+        final String value = Bib.option(args, name);
+        if (value == null)
+            return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("Expected a number for %s: %s", name, value)
+            );
+        }
+    }
+
+    /**
+     * Removes a flag from the arguments.
+     * @param args The arguments
+     * @param name The flag name, e.g. "--download"
+     * @return whether the flag was given
+     */
+    public static boolean flag(final List<String> args, final String name) {
+        return args.remove(name);
+    }
+
+    /**
+     * Checks the number of positional arguments, once the options have been
+     * removed.
+     * @param args The arguments
+     * @param min The minimum number of arguments
+     * @param max The maximum number of arguments
+     * @throws IllegalArgumentException If there are too few or too many
+     */
+    public static void expect(final List<String> args, final int min,
+        final int max) {
+        for (String arg : args)
+            if (arg.startsWith("--"))
+                throw new IllegalArgumentException(
+                    String.format("Unknown option %s", arg)
+                );
+        if (args.size() < min || args.size() > max)
+            throw new IllegalArgumentException(
+                String.format("Wrong number of arguments: %d", args.size())
+            );
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int status = new Bib().run(Arrays.asList(args));
+        if (status != 0)
+            System.exit(status);
+    }
+
+}
@@ -0,0 +1,601 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXString;
+import org.jbibtex.Key;
+import org.jbibtex.ObjectResolutionException;
+import org.jbibtex.ParseException;
+import org.jbibtex.TokenMgrException;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Keeps the bibliographies of a directory parsed in memory, and answers
+ * requests about them on standard input and, optionally, on a local socket.
+ * When a file changes, only that file is parsed again, and only the keys it
+ * defined or defines are merged again. The first file (in name order)
+ * defining a key wins. A file that fails to parse, e.g.,
+ * while it is being edited, keeps its previous contents.
+ * <p>
+ * Requests are single lines, and each response ends with a line containing
+ * a single dot:
+ * <ul>
+ * <li>{@code stats}: the number of files and entries</li>
+ * <li>{@code keys}: the key of every entry</li>
+ * <li>{@code print <field>}: the key and value of the field, for every entry
+ * that has it</li>
+ * <li>{@code filter <key>...}: the given entries, in BibTeX format</li>
+ * <li>{@code export <file>}: writes every entry to the file, which must be
+ * in the output directory; relative paths are resolved against it</li>
+ * <li>{@code reload}: parses every file again</li>
+ * <li>{@code quit}: closes the connection, or stops the daemon on standard
+ * input</li>
+ * </ul>
+ * Any local process can send requests, so exports never write outside of
+ * the output directory: {@code bib.daemon.output}, or else the
+ * {@code exports} subdirectory of the watched directory, which is not
+ * watched. Files exported to the watched directory itself are not parsed,
+ * so the daemon never merges its own outputs back in.
+ * <p>
+ * Responses are prepared while holding the read lock, and written once it
+ * is released, so a slow client never holds up the updates of the watcher.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class BibDaemon implements Closeable {
+
+    /**
+     * Ends every response.
+     */
+    private static final String END = ".";
+
+    /**
+     * The watched directory.
+     */
+    private final File directory;
+
+    /**
+     * The directory that exports are written to.
+     */
+    private final File output;
+
+    /**
+     * The names of the files exported to the watched directory, which are
+     * never parsed.
+     */
+    private final Set<String> exported;
+
+    /**
+     * Parses the files, through the cache of parsed databases.
+     */
+    private final OfflineTasks offline;
+
+    /**
+     * The parsed files, by name.
+     */
+    private final Map<String, BibTeXDatabase> files;
+
+    /**
+     * The entry that wins each key, across files.
+     */
+    private final Map<Key, BibTeXEntry> entries;
+
+    /**
+     * The string definition that wins each key, across files.
+     */
+    private final Map<Key, BibTeXString> strings;
+
+    /**
+     * Guards the files and the merged maps.
+     */
+    private final ReadWriteLock lock;
+
+    /**
+     * Runs the watcher and the socket connections.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The directory watcher.
+     */
+    private final WatchService watcher;
+
+    /**
+     * The socket accepting requests, if any.
+     */
+    private ServerSocket server;
+
+    /**
+     * Default constructor. Exports are written to the
+     * {@code bib.daemon.output} directory, or else to the {@code exports}
+     * subdirectory of the watched directory.
+     * @param directory The directory containing the bibtex files
+     * @param offline Parses the files
+     * @throws IOException
+     */
+    public BibDaemon(final File directory, final OfflineTasks offline)
+        throws IOException {
+        this(
+            directory,
+            new File(
+                System.getProperty(
+                    "bib.daemon.output",
+                    new File(directory, "exports").getPath()
+                )
+            ),
+            offline
+        );
+    }
+
+    /**
+     * Secondary constructor.
+     * @param directory The directory containing the bibtex files
+     * @param output The directory that exports are written to
+     * @param offline Parses the files
+     * @throws IOException
+     */
+    public BibDaemon(final File directory, final File output,
+        final OfflineTasks offline) throws IOException {
+        this.directory = directory;
+        this.output = output;
+        this.exported = ConcurrentHashMap.newKeySet();
+        this.offline = offline;
+        this.files = new TreeMap<>();
+        this.entries = new HashMap<>();
+        this.strings = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "bib-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watcher = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Parses every file and starts watching the directory.
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        this.reload();
+        this.directory.toPath().register(
+            this.watcher,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE
+        );
+        this.executor.execute(this::watch);
+    }
+
+    /**
+     * Accepts requests on a local socket.
+     * @param port The port, or 0 for any free port
+     * @return the port
+     * @throws IOException
+     */
+    public int listen(final int port) throws IOException {
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.executor.execute(() -> {
+            while (!this.server.isClosed()) {
+                try {
+                    final Socket socket = this.server.accept();
+                    this.executor.execute(() -> {
+                        try (Socket client = socket) {
+                            this.serve(client.getInputStream(), client.getOutputStream());
+                        } catch (IOException e) {
+                            System.err.printf("Connection closed (%s)\n", e.getMessage());
+                        }
+                    });
+                } catch (IOException e) {
+                    // The server socket was closed
+                }
+            }
+        });
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * Answers the requests read from the input until it ends or a
+     * {@code quit} request arrives.
+     * @param input The requests
+     * @param output The responses
+     * @throws IOException
+     */
+    public void serve(final InputStream input, final OutputStream output)
+        throws IOException {
+        final BufferedReader reader = new BufferedReader(
+            new InputStreamReader(input, Charset.forName("UTF-8"))
+        );
+        final Writer writer = new BufferedWriter(
+            new OutputStreamWriter(output, Charset.forName("UTF-8"))
+        );
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String[] request = line.trim().split("\\s+");
+            if (request[0].equals("quit"))
+                break;
+            try {
+                writer.write(this.answer(request));
+            } catch (IOException | RuntimeException e) {
+                writer.write(String.format("ERROR %s\n", e.getMessage()));
+            }
+            writer.write(BibDaemon.END);
+            writer.write('\n');
+            writer.flush();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Parses every file of the directory again. Reloads and the updates of
+     * the watcher run one at a time, so a file changed during a reload is
+     * never merged from two versions at once.
+     * @throws IOException
+     */
+    public synchronized void reload() throws IOException {
+        final Set<String> names = new HashSet<>();
+        final File[] bibFiles = this.directory.listFiles(
+            (dir, name) -> this.isWatched(name)
+        );
+        if (bibFiles == null)
+            throw new IOException(
+                String.format("%s is not a directory", this.directory)
+            );
+        for (File file : bibFiles) {
+            names.add(file.getName());
+            this.update(file.getName());
+        }
+        final List<String> removed = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (String name : this.files.keySet())
+                if (!names.contains(name))
+                    removed.add(name);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        for (String name : removed)
+            this.update(name);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watcher.close();
+        if (this.server != null)
+            this.server.close();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Prepares the response to a request. Only the in-memory maps are read
+     * while holding the lock; files are written afterwards.
+     * @param request The request and its arguments
+     * @return the response, without the final dot
+     * @throws IOException
+     */
+    private String answer(final String[] request) throws IOException {
+        final StringBuilder response = new StringBuilder();
+        switch (request[0]) {
+            case "stats": {
+                this.read(() -> response.append(
+                    String.format(
+                        "files %d entries %d\n",
+                        this.files.size(),
+                        this.entries.size()
+                    )
+                ));
+            } break;
+            case "keys": {
+                this.read(() -> {
+                    for (BibTeXEntry entry : this.merged())
+                        response.append(entry.getKey()).append('\n');
+                });
+            } break;
+            case "print": {
+                BibDaemon.arguments(request, 1);
+                final Key field = new Key(request[1]);
+                this.read(() -> {
+                    for (BibTeXEntry entry : this.merged()) {
+                        final Value value = entry.getField(field);
+                        if (value != null)
+                            response.append(
+                                String.format(
+                                    "%s\t%s\n",
+                                    entry.getKey(),
+                                    value.toUserString().replace('\n', ' ')
+                                )
+                            );
+                    }
+                });
+            } break;
+            case "filter": {
+                BibDaemon.arguments(request, 1);
+                final List<BibTeXObject> selected = new ArrayList<>();
+                this.read(() -> {
+                    for (String key : Arrays.asList(request).subList(1, request.length)) {
+                        final BibTeXEntry entry = this.entries.get(new Key(key));
+                        if (entry != null)
+                            selected.add(entry);
+                    }
+                });
+                for (BibTeXObject object : selected)
+                    response.append(BibDaemon.format(object));
+            } break;
+            case "export": {
+                BibDaemon.arguments(request, 1);
+                final List<BibTeXObject> objects = new ArrayList<>();
+                final List<BibTeXEntry> merged = new ArrayList<>();
+                this.read(() -> {
+                    objects.addAll(this.strings.values());
+                    merged.addAll(this.merged());
+                });
+                objects.addAll(merged);
+                final File output = this.export(request[1]);
+                output.getParentFile().mkdirs();
+                try (Writer file = new BufferedWriter(
+                        new OutputStreamWriter(
+                            new FileOutputStream(output),
+                            Charset.forName("UTF-8")
+                        )
+                    )) {
+                    for (BibTeXObject object : objects)
+                        file.write(BibDaemon.format(object));
+                }
+                response.append(
+                    String.format(
+                        "OK %d entries written to %s\n",
+                        merged.size(),
+                        output.getAbsolutePath()
+                    )
+                );
+            } break;
+            case "reload": {
+                this.reload();
+                response.append("OK\n");
+            } break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Unknown request %s", request[0])
+                );
+        }
+        return response.toString();
+    }
+
+    /**
+     * The winning entries, in file order and then in the order of each file.
+     * Must be called holding the read lock.
+     */
+    private List<BibTeXEntry> merged() {
+        final List<BibTeXEntry> merged = new ArrayList<>(this.entries.size());
+        for (BibTeXDatabase database : this.files.values())
+            for (BibTeXEntry entry : database.getEntries().values())
+                if (this.entries.get(entry.getKey()) == entry)
+                    merged.add(entry);
+        return merged;
+    }
+
+    /**
+     * Waits for changes to the directory, and parses the changed files once
+     * no more changes arrive for {@code bib.daemon.debounce.ms} milliseconds
+     * (100 by default), so a save made of several writes is parsed once.
+     */
+    private void watch() {
+        final long debounce = Long.getLong("bib.daemon.debounce.ms", 100L);
+        try {
+            while (true) {
+                final Set<String> changed = new HashSet<>();
+                WatchKey key = this.watcher.take();
+                while (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changed.addAll(Arrays.asList(this.directory.list()));
+                            continue;
+                        }
+                        changed.add(((Path) event.context()).getFileName().toString());
+                    }
+                    key.reset();
+                    key = this.watcher.poll(debounce, TimeUnit.MILLISECONDS);
+                }
+                for (String name : changed)
+                    if (this.isWatched(name))
+                        this.update(name);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The daemon was closed
+        }
+    }
+
+    /**
+     * Parses the file again (or forgets it, if it no longer exists), and
+     * merges again the keys it defined and defines.
+     * @param name The name of the file
+     */
+    private synchronized void update(final String name) {
+        final File file = new File(this.directory, name);
+        BibTeXDatabase database = null;
+        if (file.exists()) {
+            try {
+                database = this.offline.database(file);
+            } catch (ObjectResolutionException | TokenMgrException
+                | ParseException | IOException e) {
+                System.err.printf(
+                    "%s couldn't be parsed, keeping its previous version (%s)\n",
+                    name,
+                    e.getMessage()
+                );
+                return;
+            }
+        }
+        final long start = System.nanoTime();
+        this.lock.writeLock().lock();
+        try {
+            final BibTeXDatabase previous = database == null
+                ? this.files.remove(name)
+                : this.files.put(name, database);
+            final Set<Key> entryKeys = new HashSet<>();
+            final Set<Key> stringKeys = new HashSet<>();
+            for (BibTeXDatabase version : Arrays.asList(previous, database)) {
+                if (version == null)
+                    continue;
+                entryKeys.addAll(version.getEntries().keySet());
+                stringKeys.addAll(version.getStrings().keySet());
+            }
+            for (Key key : entryKeys)
+                this.merge(key, this.entries, BibTeXDatabase::getEntries);
+            for (Key key : stringKeys)
+                this.merge(key, this.strings, BibTeXDatabase::getStrings);
+            System.err.printf(
+                "%s %s (%d keys) in %.1f ms\n",
+                database == null ? "Removed" : "Loaded",
+                name,
+                entryKeys.size(),
+                (System.nanoTime() - start) / 1e6
+            );
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private <T> void merge(final Key key, final Map<Key, T> merged,
+        final Function<BibTeXDatabase, Map<Key, T>> objects) {
+        for (BibTeXDatabase database : this.files.values()) {
+            final T object = objects.apply(database).get(key);
+            if (object != null) {
+                merged.put(key, object);
+                return;
+            }
+        }
+        merged.remove(key);
+    }
+
+    private void read(final Action action) {
+        this.lock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolves the file of an export request against the output directory.
+     * A file exported to the watched directory is remembered, so that the
+     * watcher ignores it.
+     * @param name The requested file
+     * @return the file
+     * @throws IOException If the file can't be resolved
+     * @throws IllegalArgumentException If the file is not in the output
+     *  directory, or is one of the watched bibliographies
+     */
+    private File export(final String name) throws IOException {
+        final File root = this.output.getCanonicalFile();
+        final File file = new File(root, name).getCanonicalFile();
+        if (file.equals(root) || !file.toPath().startsWith(root.toPath()))
+            throw new IllegalArgumentException(
+                String.format("Exports must be written to %s", root)
+            );
+        if (file.getParentFile().equals(this.directory.getCanonicalFile())) {
+            if (file.exists() && this.isWatched(file.getName()))
+                throw new IllegalArgumentException(
+                    String.format("%s is a watched bibliography", file.getName())
+                );
+            this.exported.add(file.getName());
+        }
+        return file;
+    }
+
+    private static String format(final BibTeXObject object) throws IOException {
+        final BibTeXDatabase single = new BibTeXDatabase();
+        single.addObject(object);
+        final StringWriter writer = new StringWriter();
+        new BibTeXFormatter().format(single, writer);
+        return writer.append("\n\n").toString();
+    }
+
+    private static void arguments(final String[] request, final int count) {
+        if (request.length <= count)
+            throw new IllegalArgumentException(
+                String.format("%s expects %d argument(s)", request[0], count)
+            );
+    }
+
+    /**
+     * Whether the file is a bibliography that the daemon did not export.
+     */
+    private boolean isWatched(final String name) {
+        return (name.endsWith(".bib") || name.endsWith(".bib.gz"))
+            && !this.exported.contains(name);
+    }
+
+    /**
+     * Work done while holding the read lock.
+     */
+    private interface Action {
+        void run();
+    }
+
+}
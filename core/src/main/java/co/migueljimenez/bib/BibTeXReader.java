@@ -0,0 +1,422 @@
+package co.migueljimenez.bib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXParser;
+import org.jbibtex.BibTeXString;
+import org.jbibtex.Key;
+import org.jbibtex.ObjectResolutionException;
+import org.jbibtex.ParseException;
+import org.jbibtex.TokenMgrException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Reads a bibtex file one object at a time. The input is split into
+ * top-level {@code @type{...}} blocks, and each block is handed to a single
+ * {@link BibTeXParser}, so only the current object is held in memory.
+ * {@code @string} macros are registered on the parser as they are read, and
+ * therefore resolve in every subsequent block. Files ending in {@code .gz}
+ * are decompressed on the fly.
+ * <p>
+ * Objects come out as in a database parsed from the whole file: when an
+ * entry or macro key appears again (keys are case insensitive), the first
+ * definition wins and the later ones are skipped. Only the keys seen so far
+ * are kept for that. Cross references are not resolved, since the entry
+ * they point to is usually further down the file; the {@code crossref}
+ * field is kept as is.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class BibTeXReader implements Iterator<BibTeXObject>, Closeable {
+
+    /**
+     * The size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The input stream.
+     */
+    private final InputStream input;
+
+    /**
+     * The parser, shared among blocks to keep the macros.
+     */
+    private final BibTeXParser parser;
+
+    /**
+     * The read buffer.
+     */
+    private final byte[] buffer;
+
+    /**
+     * Number of valid bytes in the buffer.
+     */
+    private int limit;
+
+    /**
+     * Position of the next byte to read in the buffer.
+     */
+    private int position;
+
+    /**
+     * Objects parsed but not yet returned.
+     */
+    private final Deque<BibTeXObject> pending;
+
+    /**
+     * The byte spans of the pending objects.
+     */
+    private final Deque<long[]> spans;
+
+    /**
+     * Number of bytes read from the input.
+     */
+    private long offset;
+
+    /**
+     * Offset of the '@' of the block being scanned.
+     */
+    private long blockStart;
+
+    /**
+     * The byte span of the last object returned.
+     */
+    private long[] span;
+
+    /**
+     * The last block skipped by {@link #nextKey()}.
+     */
+    private byte[] block;
+
+    /**
+     * The keys of the entries returned so far.
+     */
+    private final Set<Key> entryKeys;
+
+    /**
+     * The keys of the macros returned so far.
+     */
+    private final Set<Key> macroKeys;
+
+    /**
+     * Default constructor.
+     * @param input The input stream, in UTF-8
+     * @throws ParseException
+     * @throws TokenMgrException
+     */
+    public BibTeXReader(final InputStream input)
+        throws TokenMgrException, ParseException {
+        this.input = input;
+        this.parser = new BlockParser();
+        this.buffer = new byte[BibTeXReader.BUFFER_SIZE];
+        this.pending = new ArrayDeque<>();
+        this.spans = new ArrayDeque<>();
+        this.entryKeys = new HashSet<>();
+        this.macroKeys = new HashSet<>();
+    }
+
+    /**
+     * Opens a bibtex file, decompressing it if its name ends with .gz.
+     * @param bibFile The bibtex file
+     * @return the corresponding input stream
+     * @throws IOException
+     */
+    public static InputStream open(final File bibFile) throws IOException {
+        final InputStream stream = new FileInputStream(bibFile);
+        if (bibFile.getName().endsWith(".gz"))
+            return new GZIPInputStream(stream, BibTeXReader.BUFFER_SIZE);
+        return stream;
+    }
+
+    /**
+     * Streams the objects of a bibtex file. The file is closed when the
+     * stream is.
+     * @param bibFile The bibtex file
+     * @return a lazy stream of objects
+     * @throws IOException
+     */
+    public static Stream<BibTeXObject> objects(final File bibFile)
+        throws IOException {
+        final BibTeXReader reader;
+        try {
+            reader = new BibTeXReader(BibTeXReader.open(bibFile));
+        } catch (TokenMgrException | ParseException e) {
+            throw new IOException(e);
+        }
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                reader,
+                Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        ).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Streams the entries of a bibtex file. The file is closed when the
+     * stream is.
+     * @param bibFile The bibtex file
+     * @return a lazy stream of entries
+     * @throws IOException
+     */
+    public static Stream<BibTeXEntry> entries(final File bibFile)
+        throws IOException {
+        return BibTeXReader.objects(bibFile)
+            .filter(object -> object instanceof BibTeXEntry)
+            .map(object -> (BibTeXEntry) object);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (this.pending.isEmpty()) {
+                final byte[] block = this.nextBlock();
+                if (block == null)
+                    return false;
+                this.parse(block);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ObjectResolutionException | TokenMgrException
+                | ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public BibTeXObject next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+        this.span = this.spans.poll();
+        return this.pending.poll();
+    }
+
+    /**
+     * Skips to the next block without parsing it, which is much faster than
+     * {@link #next()} when only the location of the entries is needed. Its
+     * span is then given by {@link #getStart()} and {@link #getEnd()}. Not
+     * to be mixed with {@link #next()}.
+     * @return the key of the entry, an empty string if the block is a
+     *  macro, preamble or comment, or null at the end of the input
+     * @throws IOException
+     */
+    public String nextKey() throws IOException {
+        final byte[] block = this.nextBlock();
+        this.block = block;
+        if (block == null)
+            return null;
+        this.span = new long[] {this.blockStart, this.offset};
+        int position = 1;
+        while (position < block.length
+            && Character.isLetterOrDigit(block[position]))
+            position++;
+        final String type = new String(block, 1, position - 1, Charset.forName("UTF-8"));
+        if (type.equalsIgnoreCase("string") || type.equalsIgnoreCase("preamble")
+            || type.equalsIgnoreCase("comment"))
+            return "";
+        while (position < block.length && block[position] != '{'
+            && block[position] != '(')
+            position++;
+        final int start = position + 1;
+        while (position < block.length && block[position] != ',')
+            position++;
+        return new String(block, start, Math.max(0, position - start), Charset.forName("UTF-8"))
+            .trim();
+    }
+
+    /**
+     * The bytes of the last block skipped by {@link #nextKey()}, from its '@'
+     * to its closing delimiter.
+     */
+    public byte[] getBlock() {
+        return this.block;
+    }
+
+    /**
+     * The offset of the first byte of the block that contained the last
+     * object returned by {@link #next()}, i.e., of its '@'. Offsets are
+     * relative to the decompressed input.
+     */
+    public long getStart() {
+        return this.span[0];
+    }
+
+    /**
+     * The offset after the last byte of the block that contained the last
+     * object returned by {@link #next()}, i.e., after its closing delimiter.
+     */
+    public long getEnd() {
+        return this.span[1];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+
+    private void parse(final byte[] block)
+        throws ObjectResolutionException, TokenMgrException, ParseException {
+        final BibTeXDatabase database = this.parser.parse(
+            new StringReader(new String(block, Charset.forName("UTF-8")))
+        );
+        for (BibTeXObject object : database.getObjects()) {
+            if (object instanceof BibTeXString) {
+                final BibTeXString string = (BibTeXString) object;
+                if (!this.macroKeys.add(string.getKey()))
+                    continue;
+                this.parser.addMacro(string);
+            } else if (object instanceof BibTeXEntry
+                && !this.entryKeys.add(((BibTeXEntry) object).getKey())) {
+                continue;
+            }
+            this.pending.add(object);
+            this.spans.add(new long[] {this.blockStart, this.offset});
+        }
+    }
+
+    /**
+     * Reads the next top-level block, from its '@' up to the delimiter that
+     * closes it. Scanning bytes is safe because UTF-8 never encodes non-ASCII
+     * characters with bytes in the ASCII range.
+     * @return the block, or null at the end of the input
+     * @throws IOException
+     */
+    private byte[] nextBlock() throws IOException {
+        byte[] block;
+        do {
+            block = this.scanBlock();
+        } while (block != null && block.length == 0);
+        return block;
+    }
+
+    /**
+     * Scans a block starting at the next '@'. Text outside blocks is a
+     * comment in bibtex, so an '@' that is not followed by an identifier
+     * and an opening delimiter is skipped.
+     * @return the block, an empty array if the '@' was not a block, or null
+     *  at the end of the input
+     * @throws IOException
+     */
+    private byte[] scanBlock() throws IOException {
+        int current;
+        do {
+            current = this.read();
+            if (current == -1)
+                return null;
+        } while (current != '@');
+        this.blockStart = this.offset - 1;
+        byte[] block = new byte[256];
+        int length = 0;
+        int braces = 0;
+        int parentheses = 0;
+        boolean open = false;
+        while (current != -1) {
+            if (length == block.length)
+                block = Arrays.copyOf(block, length * 2);
+            block[length++] = (byte) current;
+            if (!open && length > 1 && current != '{' && current != '('
+                && !Character.isLetterOrDigit(current)
+                && !Character.isWhitespace(current))
+                return new byte[0];
+            if (current == '{') {
+                braces++;
+                open = true;
+            } else if (current == '}') {
+                braces--;
+            } else if (current == '(' && braces == 0) {
+                parentheses++;
+                open = true;
+            } else if (current == ')' && braces == 0) {
+                parentheses--;
+            }
+            if (open && braces <= 0 && parentheses <= 0)
+                break;
+            current = this.read();
+        }
+        return Arrays.copyOf(block, length);
+    }
+
+    private int read() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.input.read(this.buffer);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        this.offset++;
+        return this.buffer[this.position++] & 0xff;
+    }
+
+    /**
+     * A parser that leaves cross references unresolved, since each block is
+     * parsed on its own.
+     */
+    private static final class BlockParser extends BibTeXParser {
+
+        BlockParser() throws TokenMgrException, ParseException {
+            super();
+        }
+
+        @Override
+        public void checkCrossReferenceResolution(final Key key,
+            final BibTeXEntry entry) {
+            // The entry is in another block
+        }
+
+    }
+
+}
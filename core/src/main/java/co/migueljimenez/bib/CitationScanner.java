@@ -0,0 +1,411 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Finds the keys cited in a LaTeX project. The keys are taken from the
+ * {@code \citation{...}} lines that LaTeX writes to the {@code .aux} files
+ * or, if the project has not been compiled (there are no such lines), from
+ * the citation commands of the {@code .tex} files (natbib's and biblatex's
+ * included), skipping comments. {@code \nocite{*}} is ignored.
+ * <p>
+ * Directories are walked and files are scanned in parallel. Files are
+ * scanned as bytes, without decoding them, and large files are
+ * memory-mapped instead of read.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class CitationScanner {
+
+    /**
+     * Files at least this large are memory-mapped.
+     */
+    private static final long MAP_THRESHOLD = 1 << 16;
+
+    /**
+     * The command written to .aux files.
+     */
+    private static final byte[] CITATION = CitationScanner.ascii("\\citation{");
+
+    /**
+     * The prefix of the citation commands in .tex files.
+     */
+    private static final byte[] CITE = CitationScanner.ascii("cite");
+
+    /**
+     * natbib's command to choose the citation style, whose argument is not a
+     * key.
+     */
+    private static final byte[] CITE_STYLE = CitationScanner.ascii("citestyle");
+
+    /**
+     * The number of threads walking and scanning a project.
+     */
+    private final int workers;
+
+    /**
+     * Default constructor.
+     * @param workers The number of threads
+     */
+    public CitationScanner(final int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Finds the keys cited in the project, on a pool of threads that lasts
+     * for this scan only.
+     * @param project The root directory of the project
+     * @return the cited keys
+     * @throws IOException
+     */
+    public Set<String> scan(final Path project) throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(this.workers);
+        try {
+            final Sources sources = pool.invoke(new Walk(project));
+            final Set<String> keys = ConcurrentHashMap.newKeySet();
+            pool.invoke(new Scan(sources.aux, keys));
+            if (keys.isEmpty())
+                pool.invoke(new Scan(sources.tex, keys));
+            return new HashSet<>(keys);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Finds the keys cited in a file.
+     * @param file The .aux or .tex file
+     * @return the cited keys
+     * @throws IOException
+     */
+    public static Set<String> scanFile(final Path file) throws IOException {
+        final Set<String> keys = new HashSet<>();
+        CitationScanner.scanFile(file, keys);
+        return keys;
+    }
+
+    private static void scanFile(final Path file, final Set<String> keys)
+        throws IOException {
+        final ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            content = channel.size() >= CitationScanner.MAP_THRESHOLD
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                : ByteBuffer.wrap(Files.readAllBytes(file));
+        }
+        if (file.getFileName().toString().endsWith(".aux"))
+            CitationScanner.scanAux(content, keys);
+        else
+            CitationScanner.scanTex(content, keys);
+    }
+
+    /**
+     * Collects the keys of every {@code \citation{...}} at the beginning of
+     * a line.
+     */
+    private static void scanAux(final ByteBuffer content, final Set<String> keys) {
+        final int limit = content.limit();
+        int position = 0;
+        while (position < limit) {
+            if (CitationScanner.matches(content, position, CitationScanner.CITATION))
+                position = CitationScanner.keys(
+                    content,
+                    position + CitationScanner.CITATION.length,
+                    keys
+                );
+            while (position < limit && content.get(position) != '\n')
+                position++;
+            position++;
+        }
+    }
+
+    /**
+     * Collects the keys of every citation command outside comments, e.g.,
+     * {@code \citep*[...][...]{...}}.
+     */
+    private static void scanTex(final ByteBuffer content, final Set<String> keys) {
+        final int limit = content.limit();
+        int position = 0;
+        while (position < limit) {
+            final byte b = content.get(position);
+            if (b == '%') {
+                while (position < limit && content.get(position) != '\n')
+                    position++;
+                continue;
+            }
+            if (b != '\\') {
+                position++;
+                while (position < limit && content.get(position) != '\\'
+                    && content.get(position) != '%')
+                    position++;
+                continue;
+            }
+            // A command: skip its name, or the escaped character
+            int name = position + 1;
+            if (name < limit && !CitationScanner.letter(content.get(name))) {
+                position = name + 1;
+                continue;
+            }
+            final int start = name;
+            while (name < limit && CitationScanner.letter(content.get(name)))
+                name++;
+            position = name;
+            if (!CitationScanner.citation(content, start, name))
+                continue;
+            // Optional star, and up to two optional arguments
+            position = CitationScanner.spaces(content, position);
+            if (position < limit && content.get(position) == '*')
+                position = CitationScanner.spaces(content, position + 1);
+            for (int i = 0; i < 2 && position < limit && content.get(position) == '['; i++) {
+                while (position < limit && content.get(position) != ']')
+                    position++;
+                position = CitationScanner.spaces(content, position + 1);
+            }
+            if (position < limit && content.get(position) == '{')
+                position = CitationScanner.keys(content, position + 1, keys);
+        }
+    }
+
+    /**
+     * Whether the command cites: its name starts with cite (natbib's
+     * {@code \citep}, {@code \citeauthor}, etc.) or ends with cite or cites
+     * ({@code \nocite}, biblatex's {@code \parencite}, {@code \textcites},
+     * etc.), except for {@code \citestyle}.
+     */
+    private static boolean citation(final ByteBuffer content, final int start,
+        final int end) {
+        final int length = end - start;
+        final int cite = CitationScanner.CITE.length;
+        if (length == CitationScanner.CITE_STYLE.length
+            && CitationScanner.matches(content, start, CitationScanner.CITE_STYLE))
+            return false;
+        return CitationScanner.matches(content, start, CitationScanner.CITE)
+            || length > cite
+                && CitationScanner.matches(content, end - cite, CitationScanner.CITE)
+            || length > cite + 1 && content.get(end - 1) == 's'
+                && CitationScanner.matches(content, end - cite - 1, CitationScanner.CITE);
+    }
+
+    /**
+     * Collects the comma-separated keys up to the closing brace.
+     * @return the position after the closing brace
+     */
+    private static int keys(final ByteBuffer content, final int from,
+        final Set<String> keys) {
+        final int limit = content.limit();
+        int start = from;
+        int position = from;
+        while (position < limit) {
+            final byte b = content.get(position);
+            if (b == ',' || b == '}') {
+                CitationScanner.key(content, start, position, keys);
+                start = position + 1;
+                if (b == '}')
+                    return position + 1;
+            } else if (b == '\n' && position + 1 < limit
+                && content.get(position + 1) == '\n') {
+                // A paragraph break: the braces are unbalanced
+                return position;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static void key(final ByteBuffer content, final int from,
+        final int to, final Set<String> keys) {
+        int start = from;
+        int end = to;
+        while (start < end && CitationScanner.space(content.get(start)))
+            start++;
+        while (end > start && CitationScanner.space(content.get(end - 1)))
+            end--;
+        if (start == end || end - start == 1 && content.get(start) == '*')
+            return;
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = content.get(start + i);
+        keys.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private static boolean matches(final ByteBuffer content, final int position,
+        final byte[] prefix) {
+        if (position + prefix.length > content.limit())
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+            if (content.get(position + i) != prefix[i])
+                return false;
+        return true;
+    }
+
+    private static int spaces(final ByteBuffer content, final int from) {
+        int position = from;
+        while (position < content.limit() && CitationScanner.space(content.get(position)))
+            position++;
+        return position;
+    }
+
+    private static boolean space(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean letter(final byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z';
+    }
+
+    private static byte[] ascii(final String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The .aux and .tex files of a project.
+     */
+    private static final class Sources {
+
+        /**
+         * The .aux files.
+         */
+        private final List<Path> aux = new ArrayList<>();
+
+        /**
+         * The .tex files.
+         */
+        private final List<Path> tex = new ArrayList<>();
+
+        private Sources add(final Sources other) {
+            this.aux.addAll(other.aux);
+            this.tex.addAll(other.tex);
+            return this;
+        }
+
+    }
+
+    /**
+     * Lists the sources of a directory, walking its subdirectories in
+     * parallel.
+     */
+    private static final class Walk extends RecursiveTask<Sources> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The directory.
+         */
+        private final Path directory;
+
+        Walk(final Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected Sources compute() {
+            final Sources sources = new Sources();
+            final List<Walk> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> children =
+                Files.newDirectoryStream(this.directory)) {
+                for (Path child : children) {
+                    final String name = child.getFileName().toString();
+                    if (Files.isDirectory(child)) {
+                        if (!name.startsWith("."))
+                            subdirectories.add(new Walk(child));
+                    } else if (name.endsWith(".aux")) {
+                        sources.aux.add(child);
+                    } else if (name.endsWith(".tex")) {
+                        sources.tex.add(child);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            RecursiveTask.invokeAll(subdirectories);
+            for (Walk subdirectory : subdirectories)
+                sources.add(subdirectory.join());
+            return sources;
+        }
+
+    }
+
+    /**
+     * Scans files, splitting them among the threads.
+     */
+    private static final class Scan extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The files.
+         */
+        private final List<Path> files;
+
+        /**
+         * The keys found so far, shared by all tasks.
+         */
+        private final Set<String> keys;
+
+        Scan(final List<Path> files, final Set<String> keys) {
+            this.files = files;
+            this.keys = keys;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.files.size() > 1) {
+                final int half = this.files.size() / 2;
+                RecursiveAction.invokeAll(
+                    new Scan(this.files.subList(0, half), this.keys),
+                    new Scan(this.files.subList(half, this.files.size()), this.keys)
+                );
+                return;
+            }
+            try {
+                for (Path file : this.files)
+                    CitationScanner.scanFile(file, this.keys);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package co.migueljimenez.bib;
+
+import java.util.List;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A subcommand of the {@link Bib} command line. Commands are discovered with
+ * a {@link java.util.ServiceLoader}, so the online module adds its commands
+ * just by being on the classpath.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public interface Command {
+
+    /**
+     * The name used to invoke this command.
+     * @return a name, e.g. "parse"
+     */
+    String name();
+
+    /**
+     * The arguments of this command.
+     * @return a one-line synopsis, without the command name
+     */
+    String usage();
+
+    /**
+     * A short description of this command.
+     * @return a one-line description
+     */
+    String description();
+
+    /**
+     * Runs this command.
+     * @param args The arguments following the command name (mutable, see
+     *  {@link Bib#option(List, String)})
+     * @return the exit status
+     * @throws IllegalArgumentException If the arguments are wrong
+     * @throws Exception If the command fails
+     */
+    int run(List<String> args) throws Exception;
+
+}
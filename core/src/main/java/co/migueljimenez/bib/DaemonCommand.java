@@ -0,0 +1,73 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Keeps the bibliographies of a directory parsed in memory, and answers
+ * requests about them (see {@link BibDaemon}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DaemonCommand implements Command {
+
+    @Override
+    public String name() {
+        return "daemon";
+    }
+
+    @Override
+    public String usage() {
+        return "<directory> [--port <port>] [--output <directory>]";
+    }
+
+    @Override
+    public String description() {
+        return "Serve requests about the bibliographies of a directory";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        final int port = Bib.option(args, "--port", -1);
+        final String output = Bib.option(args, "--output");
+        Bib.expect(args, 1, 1);
+        final File directory = new File(args.get(0));
+        try (BibDaemon daemon = output == null
+            ? new BibDaemon(directory, new OfflineTasks())
+            : new BibDaemon(directory, new File(output), new OfflineTasks())) {
+            daemon.start();
+            if (port >= 0)
+                System.err.printf(
+                    "Listening on 127.0.0.1:%d\n",
+                    daemon.listen(port)
+                );
+            daemon.serve(System.in, System.out);
+        }
+        return 0;
+    }
+
+}
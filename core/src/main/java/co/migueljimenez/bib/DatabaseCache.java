@@ -0,0 +1,548 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jbibtex.BibTeXComment;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXInclude;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXParser;
+import org.jbibtex.BibTeXPreamble;
+import org.jbibtex.BibTeXString;
+import org.jbibtex.ConcateValue;
+import org.jbibtex.CrossReferenceValue;
+import org.jbibtex.DigitStringValue;
+import org.jbibtex.Key;
+import org.jbibtex.KeyValue;
+import org.jbibtex.ParseException;
+import org.jbibtex.ReferenceValue;
+import org.jbibtex.StringValue;
+import org.jbibtex.TokenMgrException;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * On-disk cache of parsed bibtex databases. Each bibtex file maps to one
+ * cache file, named after the hash of its canonical path, that stores the
+ * modification time, size and SHA-256 of the source followed by the parsed
+ * objects in a compact binary form. A cached database is valid when the
+ * modification time and size match, or, failing that, when the content hash
+ * does (e.g., the file was touched or checked out again). Modification times
+ * are coarse on some file systems, so the hash is also checked when the
+ * source was modified shortly before it was cached: an edit right after
+ * would keep its modification time.
+ * <p>
+ * Storing a database prunes the cache: files not used for
+ * {@code bib.cache.max.age.days} (30 by default) are deleted, and so are the
+ * least recently used ones while the cache takes more than
+ * {@code bib.cache.max.mb} (512 by default).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class DatabaseCache {
+
+    /**
+     * Identifies cache files and their format version.
+     */
+    private static final int MAGIC = 0x42494202;
+
+    /**
+     * Sources modified less than this before they were cached, in
+     * milliseconds, are checked by hash. Some file systems only keep
+     * modification times to the second, or to two seconds.
+     */
+    private static final long RACY = 2_000L;
+
+    /**
+     * Object tags.
+     */
+    private static final byte ENTRY = 'E', STRING = 'S', PREAMBLE = 'P',
+        COMMENT = 'C', INCLUDE = 'I';
+
+    /**
+     * Value tags.
+     */
+    private static final byte STRING_VALUE = 's', DIGIT_VALUE = 'd',
+        KEY_VALUE = 'k', REFERENCE_VALUE = 'r', CONCATENATED_VALUE = 'c',
+        CROSS_REFERENCE_VALUE = 'x';
+
+    /**
+     * The UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The directory containing the cache files.
+     */
+    private final File directory;
+
+    /**
+     * Default constructor.
+     * @param directory The directory containing the cache files, or null to
+     *  disable the cache
+     */
+    public DatabaseCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * A cache that never hits and stores nothing, e.g., to measure parsing.
+     * @return the disabled cache
+     */
+    public static DatabaseCache disabled() {
+        return new DatabaseCache(null);
+    }
+
+    /**
+     * The cache directory, from the {@code bib.cache.dir} system property or
+     * {@code ~/.cache/bib}.
+     * @return the default cache directory
+     */
+    public static File defaultDirectory() {
+        return new File(
+            System.getProperty(
+                "bib.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".cache", "bib")
+                    .toString()
+            )
+        );
+    }
+
+    /**
+     * Loads the cached database of the given bibtex file.
+     * @param bibFile The bibtex file
+     * @return the cached database, or null if there is no valid cache entry
+     */
+    public BibTeXDatabase load(final File bibFile) {
+        if (this.directory == null)
+            return null;
+        final File cacheFile = this.cacheFile(bibFile);
+        if (!cacheFile.exists())
+            return null;
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(
+                    new FileInputStream(cacheFile),
+                    1 << 16
+                )
+            )) {
+            if (input.readInt() != DatabaseCache.MAGIC)
+                return null;
+            final long modified = input.readLong();
+            final long size = input.readLong();
+            final long stored = input.readLong();
+            final byte[] hash = new byte[input.readInt()];
+            input.readFully(hash);
+            if (modified != bibFile.lastModified() || size != bibFile.length()
+                || stored - modified < DatabaseCache.RACY) {
+                if (size != bibFile.length()
+                    || !MessageDigest.isEqual(hash, DatabaseCache.hash(bibFile)))
+                    return null;
+            }
+            final BibTeXDatabase database = new Decoder(input).database();
+            // Recently used files are pruned last
+            cacheFile.setLastModified(System.currentTimeMillis());
+            return database;
+        } catch (IOException | RuntimeException e) {
+            System.err.printf(
+                "Ignoring unreadable cache file %s (%s)\n",
+                cacheFile,
+                e.getMessage()
+            );
+            return null;
+        }
+    }
+
+    /**
+     * Stores the parsed database of the given bibtex file, unless the file
+     * changed since it was parsed. The cache file is written aside and then
+     * moved in place, so concurrent readers never see a partial file.
+     * @param bibFile The bibtex file
+     * @param modified The modification time of the file before it was
+     *  parsed
+     * @param database The parsed database
+     * @throws IOException
+     */
+    public void store(final File bibFile, final long modified,
+        final BibTeXDatabase database) throws IOException {
+        if (this.directory == null)
+            return;
+        final byte[] hash = DatabaseCache.hash(bibFile);
+        if (bibFile.lastModified() != modified)
+            return;
+        if (!this.directory.exists())
+            this.directory.mkdirs();
+        final File cacheFile = this.cacheFile(bibFile);
+        final Path temporary = Files.createTempFile(
+            this.directory.toPath(),
+            cacheFile.getName(),
+            ".tmp"
+        );
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(
+                        Files.newOutputStream(temporary),
+                        1 << 16
+                    )
+                )) {
+                output.writeInt(DatabaseCache.MAGIC);
+                output.writeLong(modified);
+                output.writeLong(bibFile.length());
+                output.writeLong(System.currentTimeMillis());
+                output.writeInt(hash.length);
+                output.write(hash);
+                new Encoder(output).database(database);
+            }
+            Files.move(
+                temporary,
+                cacheFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        this.prune(cacheFile);
+    }
+
+    /**
+     * Deletes the cache files not used for {@code bib.cache.max.age.days},
+     * and the least recently used ones while the cache takes more than
+     * {@code bib.cache.max.mb}.
+     * @param keep The cache file just stored, which is never deleted
+     */
+    private void prune(final File keep) {
+        final File[] files = this.directory.listFiles(
+            (directory, name) -> name.endsWith(".bin")
+        );
+        if (files == null)
+            return;
+        // Other processes may use the files meanwhile, so sort a snapshot
+        final Map<File, Long> used = new HashMap<>();
+        long total = 0;
+        for (File file : files) {
+            used.put(file, file.lastModified());
+            total += file.length();
+        }
+        Arrays.sort(files, Comparator.comparing(used::get));
+        final long limit = Long.getLong("bib.cache.max.mb", 512L) * 1024 * 1024;
+        final long oldest = System.currentTimeMillis()
+            - TimeUnit.DAYS.toMillis(Long.getLong("bib.cache.max.age.days", 30L));
+        for (File file : files) {
+            if (total <= limit && used.get(file) >= oldest)
+                break;
+            if (file.equals(keep))
+                continue;
+            final long length = file.length();
+            if (file.delete())
+                total -= length;
+        }
+    }
+
+    private File cacheFile(final File bibFile) {
+        String path;
+        try {
+            path = bibFile.getCanonicalPath();
+        } catch (IOException e) {
+            path = bibFile.getAbsolutePath();
+        }
+        return new File(
+            this.directory,
+            String.format(
+                "%s.bin",
+                DatabaseCache.hex(
+                    DatabaseCache.digest().digest(path.getBytes(DatabaseCache.UTF8))
+                )
+            )
+        );
+    }
+
+    private static byte[] hash(final File file) throws IOException {
+        final MessageDigest digest = DatabaseCache.digest();
+        final byte[] buffer = new byte[1 << 16];
+        try (InputStream input = new FileInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+
+    /**
+     * Writes the objects of a database. Keys are written once and then
+     * referred to by index, since field names and entry types repeat in
+     * every entry.
+     */
+    private static class Encoder {
+
+        private final DataOutputStream output;
+
+        private final Map<String, Integer> keys;
+
+        Encoder(final DataOutputStream output) {
+            this.output = output;
+            this.keys = new HashMap<>();
+        }
+
+        void database(final BibTeXDatabase database) throws IOException {
+            final List<BibTeXObject> objects = database.getObjects();
+            this.output.writeInt(objects.size());
+            for (BibTeXObject object : objects)
+                this.object(object);
+        }
+
+        private void object(final BibTeXObject object) throws IOException {
+            if (object instanceof BibTeXEntry) {
+                final BibTeXEntry entry = (BibTeXEntry) object;
+                this.output.writeByte(DatabaseCache.ENTRY);
+                this.key(entry.getType());
+                this.string(entry.getKey().getValue());
+                this.output.writeInt(entry.getFields().size());
+                for (Map.Entry<Key, Value> field : entry.getFields().entrySet()) {
+                    this.key(field.getKey());
+                    this.value(field.getValue());
+                }
+            } else if (object instanceof BibTeXString) {
+                final BibTeXString string = (BibTeXString) object;
+                this.output.writeByte(DatabaseCache.STRING);
+                this.key(string.getKey());
+                this.value(string.getValue());
+            } else if (object instanceof BibTeXPreamble) {
+                this.output.writeByte(DatabaseCache.PREAMBLE);
+                this.value(((BibTeXPreamble) object).getValue());
+            } else if (object instanceof BibTeXComment) {
+                this.output.writeByte(DatabaseCache.COMMENT);
+                this.value(((BibTeXComment) object).getValue());
+            } else if (object instanceof BibTeXInclude) {
+                this.output.writeByte(DatabaseCache.INCLUDE);
+                this.value(((BibTeXInclude) object).getValue());
+            } else {
+                throw new IOException(
+                    String.format("Unsupported object %s", object.getClass())
+                );
+            }
+        }
+
+        private void value(final Value value) throws IOException {
+            if (value instanceof StringValue) {
+                this.output.writeByte(DatabaseCache.STRING_VALUE);
+                this.output.writeByte(((StringValue) value).getStyle().ordinal());
+                this.string(((StringValue) value).getString());
+            } else if (value instanceof DigitStringValue) {
+                this.output.writeByte(DatabaseCache.DIGIT_VALUE);
+                this.string(((DigitStringValue) value).getString());
+            } else if (value instanceof KeyValue) {
+                this.output.writeByte(DatabaseCache.KEY_VALUE);
+                this.string(((KeyValue) value).getString());
+            } else if (value instanceof ReferenceValue) {
+                this.output.writeByte(DatabaseCache.REFERENCE_VALUE);
+                this.string(((ReferenceValue) value).getValue().getString());
+            } else if (value instanceof ConcateValue) {
+                this.output.writeByte(DatabaseCache.CONCATENATED_VALUE);
+                this.value(((ConcateValue) value).getLeft());
+                this.value(((ConcateValue) value).getRight());
+            } else if (value instanceof CrossReferenceValue) {
+                this.output.writeByte(DatabaseCache.CROSS_REFERENCE_VALUE);
+                this.value(((CrossReferenceValue) value).getValue());
+            } else {
+                throw new IOException(
+                    String.format("Unsupported value %s", value.getClass())
+                );
+            }
+        }
+
+        private void key(final Key key) throws IOException {
+            final Integer index = this.keys.get(key.getValue());
+            if (index == null) {
+                this.output.writeInt(-1);
+                this.string(key.getValue());
+                this.keys.put(key.getValue(), this.keys.size());
+            } else {
+                this.output.writeInt(index);
+            }
+        }
+
+        private void string(final String string) throws IOException {
+            final byte[] bytes = string.getBytes(DatabaseCache.UTF8);
+            this.output.writeInt(bytes.length);
+            this.output.write(bytes);
+        }
+
+    }
+
+    /**
+     * Reads the objects written by {@link Encoder}. References to
+     * {@code @string} macros are resolved against the strings read so far
+     * and the parser's predefined macros, and cross references once all the
+     * entries have been read, as jbibtex does.
+     */
+    private static class Decoder {
+
+        private final DataInputStream input;
+
+        private final List<Key> keys;
+
+        private final BibTeXDatabase database;
+
+        private final Map<Key, BibTeXString> macros;
+
+        private final List<Runnable> crossReferences;
+
+        Decoder(final DataInputStream input) {
+            this.input = input;
+            this.keys = new ArrayList<>();
+            this.database = new BibTeXDatabase();
+            try {
+                this.macros = new BibTeXParser().getMacros();
+            } catch (TokenMgrException | ParseException e) {
+                throw new RuntimeException(e);
+            }
+            this.crossReferences = new ArrayList<>();
+        }
+
+        BibTeXDatabase database() throws IOException {
+            final int size = this.input.readInt();
+            for (int i = 0; i < size; i++)
+                this.database.addObject(this.object());
+            this.crossReferences.forEach(Runnable::run);
+            return this.database;
+        }
+
+        private BibTeXObject object() throws IOException {
+            final byte tag = this.input.readByte();
+            switch (tag) {
+                case DatabaseCache.ENTRY: {
+                    final BibTeXEntry entry =
+                        new BibTeXEntry(this.key(), new Key(this.string()));
+                    final int fields = this.input.readInt();
+                    for (int i = 0; i < fields; i++) {
+                        final Key key = this.key();
+                        final Value value = this.value();
+                        if (value instanceof CrossReferenceValue) {
+                            final Value reference =
+                                ((CrossReferenceValue) value).getValue();
+                            this.crossReferences.add(
+                                () -> entry.addField(
+                                    key,
+                                    new CrossReferenceValue(
+                                        reference,
+                                        this.database.resolveEntry(
+                                            new Key(reference.toUserString())
+                                        )
+                                    )
+                                )
+                            );
+                        }
+                        entry.addField(key, value);
+                    }
+                    return entry;
+                }
+                case DatabaseCache.STRING: return new BibTeXString(this.key(), this.value());
+                case DatabaseCache.PREAMBLE: return new BibTeXPreamble(this.value());
+                case DatabaseCache.COMMENT: return new BibTeXComment((StringValue) this.value());
+                case DatabaseCache.INCLUDE: return new BibTeXInclude((StringValue) this.value(), new BibTeXDatabase());
+                default:
+                    throw new IOException(String.format("Unknown object tag %d", tag));
+            }
+        }
+
+        private Value value() throws IOException {
+            final byte tag = this.input.readByte();
+            switch (tag) {
+                case DatabaseCache.STRING_VALUE: {
+                    final StringValue.Style style =
+                        StringValue.Style.values()[this.input.readByte()];
+                    return new StringValue(this.string(), style);
+                }
+                case DatabaseCache.DIGIT_VALUE: return new DigitStringValue(this.string());
+                case DatabaseCache.KEY_VALUE: return new KeyValue(this.string());
+                case DatabaseCache.REFERENCE_VALUE: {
+                    final KeyValue value = new KeyValue(this.string());
+                    BibTeXString string = this.database.resolveString(value.toKey());
+                    if (string == null)
+                        string = this.macros.get(value.toKey());
+                    return new ReferenceValue(value, string);
+                }
+                case DatabaseCache.CONCATENATED_VALUE: return new ConcateValue(this.value(), this.value());
+                case DatabaseCache.CROSS_REFERENCE_VALUE: return new CrossReferenceValue(this.value(), null);
+                default:
+                    throw new IOException(String.format("Unknown value tag %d", tag));
+            }
+        }
+
+        private Key key() throws IOException {
+            final int index = this.input.readInt();
+            if (index >= 0)
+                return this.keys.get(index);
+            final Key key = new Key(this.string());
+            this.keys.add(key);
+            return key;
+        }
+
+        private String string() throws IOException {
+            final byte[] bytes = new byte[this.input.readInt()];
+            this.input.readFully(bytes);
+            return new String(bytes, DatabaseCache.UTF8);
+        }
+
+    }
+
+}
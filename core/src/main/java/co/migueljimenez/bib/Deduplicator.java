@@ -0,0 +1,651 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.Key;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Finds duplicated entries across one or more databases. Entries sharing a
+ * key (ignoring case) or a normalized DOI are duplicates. Other entries are
+ * compared only when their titles share a bucket in a MinHash/LSH index, so
+ * the cost grows with the number of entries rather than the number of pairs. Two candidates
+ * are duplicates when the MinHash estimate of the Jaccard similarity of their
+ * title trigrams reaches the threshold, and their year and first author's
+ * surname agree (or are missing) across both groups, not just between the
+ * two entries. The first entry of each group is kept, and it receives the
+ * fields it lacks from the others.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class Deduplicator {
+
+    /**
+     * Why two entries were merged.
+     */
+    public enum Reason {
+        KEY, DOI, SIMILAR
+    }
+
+    /**
+     * LaTeX commands, such as {@code \\emph}.
+     */
+    private static final Pattern COMMAND = Pattern.compile("\\\\[a-zA-Z]+");
+
+    /**
+     * Combining marks left after decomposing accented characters.
+     */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Buckets larger than this (e.g., titles such as "Introduction") are
+     * not compared pairwise.
+     */
+    private static final int MAX_BUCKET = 64;
+
+    /**
+     * The number of LSH bands.
+     */
+    private final int bands;
+
+    /**
+     * The number of MinHash values per band.
+     */
+    private final int rows;
+
+    /**
+     * The minimum estimated title similarity of near-duplicates.
+     */
+    private final double threshold;
+
+    /**
+     * The number of threads.
+     */
+    private final int workers;
+
+    /**
+     * Default constructor: 16 bands of 4 rows, which finds pairs with a
+     * similarity of 0.8 with a probability above 0.999, and a threshold of
+     * 0.8.
+     */
+    public Deduplicator() {
+        this(16, 4, 0.8, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Secondary constructor.
+     * @param bands The number of LSH bands
+     * @param rows The number of MinHash values per band
+     * @param threshold The minimum estimated title similarity of
+     *  near-duplicates
+     * @param workers The number of threads
+     */
+    public Deduplicator(final int bands, final int rows,
+        final double threshold, final int workers) {
+        this.bands = bands;
+        this.rows = rows;
+        this.threshold = threshold;
+        this.workers = workers;
+    }
+
+    /**
+     * Deduplicates the entries of the databases, in order.
+     * @param databases The databases
+     * @return the deduplicated database and the merges
+     */
+    public Result deduplicate(final BibTeXDatabase... databases) {
+        final List<BibTeXEntry> entries = new ArrayList<>();
+        final BibTeXDatabase deduplicated = new BibTeXDatabase();
+        for (BibTeXDatabase database : databases) {
+            for (BibTeXObject object : database.getObjects()) {
+                if (object instanceof BibTeXEntry)
+                    entries.add((BibTeXEntry) object);
+                else
+                    deduplicated.addObject(object);
+            }
+        }
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(this.workers);
+        try {
+            final Fingerprint[] fingerprints = this.fingerprints(entries, executor);
+            final Groups groups = new Groups(fingerprints);
+            this.exact(fingerprints, groups);
+            final List<Future<List<long[]>>> candidates = new ArrayList<>();
+            for (int band = 0; band < this.bands; band++) {
+                final int current = band;
+                candidates.add(
+                    executor.submit(() -> this.candidates(fingerprints, current))
+                );
+            }
+            for (Future<List<long[]>> band : candidates)
+                for (long[] pair : band.get())
+                    groups.union(
+                        (int) pair[0],
+                        (int) pair[1],
+                        Reason.SIMILAR,
+                        Double.longBitsToDouble(pair[2])
+                    );
+            return this.merge(entries, fingerprints, groups, deduplicated);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Fingerprint[] fingerprints(final List<BibTeXEntry> entries,
+        final ExecutorService executor)
+        throws InterruptedException, ExecutionException {
+        final Fingerprint[] fingerprints = new Fingerprint[entries.size()];
+        final int chunk = Math.max(1024, entries.size() / (this.workers * 4) + 1);
+        final List<Future<?>> tasks = new ArrayList<>();
+        for (int start = 0; start < entries.size(); start += chunk) {
+            final int from = start;
+            final int to = Math.min(entries.size(), start + chunk);
+            tasks.add(executor.submit(() -> {
+                for (int i = from; i < to; i++)
+                    fingerprints[i] = new Fingerprint(
+                        entries.get(i),
+                        this.bands * this.rows
+                    );
+            }));
+        }
+        for (Future<?> task : tasks)
+            task.get();
+        return fingerprints;
+    }
+
+    /**
+     * Joins the entries with the same key, ignoring case as jbibtex does,
+     * and then those with the same DOI.
+     */
+    private void exact(final Fingerprint[] fingerprints, final Groups groups) {
+        final Map<String, Integer> keys = new HashMap<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            final Integer key = keys.putIfAbsent(
+                fingerprints[i].key.toLowerCase(Locale.ROOT),
+                i
+            );
+            if (key != null)
+                groups.union(key, i, Reason.KEY, 1.0);
+        }
+        final Map<String, Integer> dois = new HashMap<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i].doi.isEmpty())
+                continue;
+            final Integer doi = dois.putIfAbsent(fingerprints[i].doi, i);
+            if (doi != null)
+                groups.union(doi, i, Reason.DOI, 1.0);
+        }
+    }
+
+    /**
+     * Finds the similar pairs among the entries sharing a bucket in the
+     * given band.
+     * @return pairs of indexes, with the bits of their similarity
+     */
+    private List<long[]> candidates(final Fingerprint[] fingerprints,
+        final int band) {
+        final Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < fingerprints.length; i++) {
+            if (fingerprints[i].signature == null)
+                continue;
+            long hash = band;
+            for (int r = 0; r < this.rows; r++)
+                hash = hash * 31 + fingerprints[i].signature[band * this.rows + r];
+            buckets.computeIfAbsent(hash, key -> new ArrayList<>(2)).add(i);
+        }
+        final List<long[]> pairs = new ArrayList<>();
+        for (List<Integer> bucket : buckets.values()) {
+            if (bucket.size() < 2 || bucket.size() > Deduplicator.MAX_BUCKET)
+                continue;
+            for (int a = 0; a < bucket.size(); a++) {
+                for (int b = a + 1; b < bucket.size(); b++) {
+                    final Fingerprint first = fingerprints[bucket.get(a)];
+                    final Fingerprint second = fingerprints[bucket.get(b)];
+                    if (!first.compatible(second))
+                        continue;
+                    final double similarity = first.similarity(second);
+                    if (similarity >= this.threshold)
+                        pairs.add(
+                            new long[] {
+                                bucket.get(a),
+                                bucket.get(b),
+                                Double.doubleToLongBits(similarity)
+                            }
+                        );
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private Result merge(final List<BibTeXEntry> entries,
+        final Fingerprint[] fingerprints, final Groups groups,
+        final BibTeXDatabase deduplicated) {
+        final Map<Integer, BibTeXEntry> survivors = new HashMap<>();
+        final List<Merge> merges = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            final int root = groups.find(i);
+            if (root == i) {
+                final BibTeXEntry copy = new BibTeXEntry(
+                    entries.get(i).getType(),
+                    entries.get(i).getKey()
+                );
+                copy.addAllFields(entries.get(i).getFields());
+                survivors.put(i, copy);
+                deduplicated.addObject(copy);
+            } else {
+                final BibTeXEntry survivor = survivors.get(root);
+                for (Map.Entry<Key, Value> field : entries.get(i).getFields().entrySet())
+                    if (survivor.getField(field.getKey()) == null)
+                        survivor.addField(field.getKey(), field.getValue());
+                final Merge reason = groups.reasons.get(i);
+                merges.add(
+                    new Merge(
+                        fingerprints[root].key,
+                        fingerprints[i].key,
+                        reason.reason,
+                        reason.similarity
+                    )
+                );
+            }
+        }
+        return new Result(deduplicated, merges);
+    }
+
+    /**
+     * Normalizes free text: no LaTeX commands, braces or accents,
+     * lowercase, and single spaces between words. Plain ASCII text, the
+     * common case, is normalized in a single pass.
+     * @param text The text
+     * @return the normalized text
+     */
+    public static String normalize(final String text) {
+        String plain = text;
+        if (plain.indexOf('\\') >= 0)
+            plain = Deduplicator.COMMAND.matcher(plain).replaceAll(" ");
+        for (int i = 0; i < plain.length(); i++) {
+            if (plain.charAt(i) > 0x7F) {
+                plain = Deduplicator.MARKS.matcher(
+                    Normalizer.normalize(plain, Normalizer.Form.NFD)
+                ).replaceAll("");
+                break;
+            }
+        }
+        final StringBuilder normalized = new StringBuilder(plain.length());
+        boolean separator = false;
+        for (int i = 0; i < plain.length(); i++) {
+            final char c = plain.charAt(i);
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                if (separator && normalized.length() > 0)
+                    normalized.append(' ');
+                normalized.append(c);
+                separator = false;
+            } else if (c >= 'A' && c <= 'Z') {
+                if (separator && normalized.length() > 0)
+                    normalized.append(' ');
+                normalized.append((char) (c + ('a' - 'A')));
+                separator = false;
+            } else {
+                separator = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Normalizes a DOI or DOI link, e.g., {@code https://doi.org/10.1/ABC}
+     * becomes {@code 10.1/abc}.
+     * @param doi The DOI
+     * @return the normalized DOI
+     */
+    public static String normalizeDoi(final String doi) {
+        String normalized = DoiDump.doi(doi.trim()).toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("doi:"))
+            normalized = normalized.substring(4).trim();
+        return normalized;
+    }
+
+    /**
+     * What is compared of each entry.
+     */
+    private static final class Fingerprint {
+
+        private final String key;
+
+        private final String doi;
+
+        private final String year;
+
+        private final String author;
+
+        /**
+         * The MinHash signature of the title trigrams, or null if the entry
+         * has no title.
+         */
+        private final int[] signature;
+
+        Fingerprint(final BibTeXEntry entry, final int hashes) {
+            this.key = entry.getKey().getValue();
+            this.doi = Deduplicator.normalizeDoi(
+                Fingerprint.field(entry, BibTeXEntry.KEY_DOI)
+            );
+            this.year = Fingerprint.field(entry, BibTeXEntry.KEY_YEAR).trim();
+            this.author = Fingerprint.surname(
+                Fingerprint.field(entry, BibTeXEntry.KEY_AUTHOR)
+            );
+            final String title = Deduplicator.normalize(
+                Fingerprint.field(entry, BibTeXEntry.KEY_TITLE)
+            );
+            this.signature = title.isEmpty()
+                ? null
+                : Fingerprint.minHash(title, hashes);
+        }
+
+        boolean compatible(final Fingerprint other) {
+            return (this.year.isEmpty() || other.year.isEmpty()
+                    || this.year.equals(other.year))
+                && (this.author.isEmpty() || other.author.isEmpty()
+                    || this.author.equals(other.author))
+                && (this.doi.isEmpty() || other.doi.isEmpty()
+                    || this.doi.equals(other.doi));
+        }
+
+        double similarity(final Fingerprint other) {
+            int equal = 0;
+            for (int i = 0; i < this.signature.length; i++)
+                if (this.signature[i] == other.signature[i])
+                    equal++;
+            return (double) equal / this.signature.length;
+        }
+
+        private static String field(final BibTeXEntry entry, final Key key) {
+            final Value value = entry.getField(key);
+            return value == null ? "" : value.toUserString();
+        }
+
+        /**
+         * The surname of the first author, in either "Surname, Name" or
+         * "Name Surname" form.
+         */
+        private static String surname(final String authors) {
+            final String first = authors.split("\\s+and\\s+", 2)[0];
+            final int comma = first.indexOf(',');
+            final String normalized = Deduplicator.normalize(
+                comma >= 0 ? first.substring(0, comma) : first
+            );
+            if (comma >= 0)
+                return normalized;
+            return normalized.substring(normalized.lastIndexOf(' ') + 1);
+        }
+
+        private static int[] minHash(final String title, final int hashes) {
+            final int[] signature = new int[hashes];
+            for (int i = 0; i < hashes; i++)
+                signature[i] = Integer.MAX_VALUE;
+            final String padded = String.format(" %s ", title);
+            for (int s = 0; s + 3 <= padded.length(); s++) {
+                final long shingle = padded.charAt(s) * 0x1F1F1F1FL
+                    + padded.charAt(s + 1) * 0x10001L
+                    + padded.charAt(s + 2);
+                for (int i = 0; i < hashes; i++) {
+                    final int hash = (int) (Fingerprint.mix(shingle + i * 0x9E3779B97F4A7C15L) >>> 33);
+                    if (hash < signature[i])
+                        signature[i] = hash;
+                }
+            }
+            return signature;
+        }
+
+        /**
+         * The SplitMix64 finalizer.
+         */
+        private static long mix(final long value) {
+            long z = value;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+    }
+
+    /**
+     * The groups of duplicates, as a union-find forest. Each root keeps the
+     * DOI, year and first author of its group, so that entries without them
+     * cannot bridge two groups that disagree on them.
+     */
+    private static final class Groups {
+
+        /**
+         * The parent of each entry.
+         */
+        private final int[] parents;
+
+        /**
+         * The DOI of each group, by root, or an empty string.
+         */
+        private final String[] dois;
+
+        /**
+         * The year of each group, by root, or an empty string.
+         */
+        private final String[] years;
+
+        /**
+         * The first author of each group, by root, or an empty string.
+         */
+        private final String[] authors;
+
+        /**
+         * Why each entry that is no longer a root was joined.
+         */
+        private final Map<Integer, Merge> reasons;
+
+        Groups(final Fingerprint[] fingerprints) {
+            this.parents = new int[fingerprints.length];
+            this.dois = new String[fingerprints.length];
+            this.years = new String[fingerprints.length];
+            this.authors = new String[fingerprints.length];
+            for (int i = 0; i < fingerprints.length; i++) {
+                this.parents[i] = i;
+                this.dois[i] = fingerprints[i].doi;
+                this.years[i] = fingerprints[i].year;
+                this.authors[i] = fingerprints[i].author;
+            }
+            this.reasons = new HashMap<>();
+        }
+
+        /**
+         * Joins the groups of both entries, unless they disagree: groups
+         * with different DOIs are never joined by DOI or similarity, nor
+         * groups with different years or first authors by similarity. Equal
+         * keys always join, since a database keeps one entry per key. The
+         * root of a group is always its first entry, so the earliest entry
+         * survives.
+         */
+        void union(final int first, final int second, final Reason reason,
+            final double similarity) {
+            final int a = this.find(first);
+            final int b = this.find(second);
+            if (a == b)
+                return;
+            if (reason != Reason.KEY
+                && (!Groups.agree(this.dois[a], this.dois[b])
+                    || reason == Reason.SIMILAR
+                        && (!Groups.agree(this.years[a], this.years[b])
+                            || !Groups.agree(this.authors[a], this.authors[b]))))
+                return;
+            final int root = Math.min(a, b);
+            final int child = Math.max(a, b);
+            this.parents[child] = root;
+            if (this.dois[root].isEmpty())
+                this.dois[root] = this.dois[child];
+            if (this.years[root].isEmpty())
+                this.years[root] = this.years[child];
+            if (this.authors[root].isEmpty())
+                this.authors[root] = this.authors[child];
+            this.reasons.put(child, new Merge(null, null, reason, similarity));
+        }
+
+        int find(final int index) {
+            int root = index;
+            while (this.parents[root] != root)
+                root = this.parents[root];
+            int current = index;
+            while (this.parents[current] != root) {
+                final int next = this.parents[current];
+                this.parents[current] = root;
+                current = next;
+            }
+            return root;
+        }
+
+        private static boolean agree(final String first, final String second) {
+            return first.isEmpty() || second.isEmpty() || first.equals(second);
+        }
+
+    }
+
+    /**
+     * A duplicate merged into the entry that was kept.
+     */
+    public static final class Merge {
+
+        /**
+         * The key of the entry that was kept.
+         */
+        private final String kept;
+
+        /**
+         * The key of the duplicate.
+         */
+        private final String duplicate;
+
+        /**
+         * Why the entries were merged.
+         */
+        private final Reason reason;
+
+        /**
+         * The estimated title similarity, 1 for exact matches.
+         */
+        private final double similarity;
+
+        Merge(final String kept, final String duplicate, final Reason reason,
+            final double similarity) {
+            this.kept = kept;
+            this.duplicate = duplicate;
+            this.reason = reason;
+            this.similarity = similarity;
+        }
+
+        public String getKept() {
+            return this.kept;
+        }
+
+        public String getDuplicate() {
+            return this.duplicate;
+        }
+
+        public Reason getReason() {
+            return this.reason;
+        }
+
+        public double getSimilarity() {
+            return this.similarity;
+        }
+
+    }
+
+    /**
+     * The deduplicated database and the merges that produced it.
+     */
+    public static final class Result {
+
+        /**
+         * The deduplicated database.
+         */
+        private final BibTeXDatabase database;
+
+        /**
+         * The merged duplicates, in input order.
+         */
+        private final List<Merge> merges;
+
+        Result(final BibTeXDatabase database, final List<Merge> merges) {
+            this.database = database;
+            this.merges = Collections.unmodifiableList(merges);
+        }
+
+        public BibTeXDatabase getDatabase() {
+            return this.database;
+        }
+
+        public List<Merge> getMerges() {
+            return this.merges;
+        }
+
+        /**
+         * Writes the merges as tab-separated values: kept key, duplicate
+         * key, reason and similarity.
+         * @param writer The writer
+         * @throws IOException
+         */
+        public void report(final Writer writer) throws IOException {
+            writer.write("kept\tduplicate\treason\tsimilarity\n");
+            for (Merge merge : this.merges)
+                writer.write(
+                    String.format(
+                        Locale.ROOT,
+                        "%s\t%s\t%s\t%.3f\n",
+                        merge.kept,
+                        merge.duplicate,
+                        merge.reason,
+                        merge.similarity
+                    )
+                );
+        }
+
+    }
+
+}
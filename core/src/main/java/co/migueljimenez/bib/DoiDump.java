@@ -0,0 +1,1008 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.StringValue;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A local bulk metadata dump: JSON-lines records keyed by DOI, such as a
+ * Crossref snapshot. {@link #index()} builds, once, a sorted table of
+ * (DOI hash, record offset) pairs next to the dump; lookups binary search
+ * the memory-mapped table and read the matching records straight from the
+ * dump, so enriching a library needs neither a browser nor the network.
+ * The dump must be uncompressed for its records to be addressable.
+ * <p>
+ * The index file starts with a magic number, the length and modification
+ * time of the dump it was built from, and the number of pairs; an index
+ * that does not match its dump is rejected. The DOI of each record is read
+ * from the top-level string field {@code bib.dump.doi.field} ("DOI" by
+ * default); resolver URLs are accepted, and DOIs are case insensitive.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DoiDump implements Closeable {
+
+    /**
+     * Identifies index files, and their version.
+     */
+    private static final long MAGIC = 0x4249424449445831L;
+
+    /**
+     * The size of the index header, in bytes.
+     */
+    private static final int HEADER = 32;
+
+    /**
+     * The size of a (hash, offset) pair, in bytes.
+     */
+    private static final int PAIR = 16;
+
+    /**
+     * The size of each mapped region of the index, a multiple of the pair
+     * size so no pair straddles two regions.
+     */
+    private static final long REGION = 1L << 30;
+
+    /**
+     * The UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The abstract field.
+     */
+    private static final Key ABSTRACT = new Key("abstract");
+
+    /**
+     * Matches markup, e.g., JATS tags in Crossref abstracts.
+     */
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+
+    /**
+     * Matches the "Abstract" heading of JATS abstracts.
+     */
+    private static final Pattern TITLE =
+        Pattern.compile("<jats:title>.*?</jats:title>", Pattern.DOTALL);
+
+    /**
+     * Matches runs of whitespace.
+     */
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    /**
+     * Matches DOI resolver URLs.
+     */
+    private static final Pattern RESOLVER =
+        Pattern.compile("^https?://(dx\\.)?doi\\.org/", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * The dump.
+     */
+    private final File dump;
+
+    /**
+     * The index file.
+     */
+    private final File indexFile;
+
+    /**
+     * The top-level field holding the DOI of each record.
+     */
+    private final String doiField;
+
+    /**
+     * The mapped regions of the index, once opened.
+     */
+    private MappedByteBuffer[] regions;
+
+    /**
+     * The number of pairs in the index.
+     */
+    private long count;
+
+    /**
+     * The dump, once opened for reading records.
+     */
+    private FileChannel channel;
+
+    /**
+     * Default constructor.
+     * @param dump The JSON-lines dump; its index is {@code <dump>.idx}
+     */
+    public DoiDump(final File dump) {
+        this(
+            dump,
+            new File(dump.getPath() + ".idx"),
+            System.getProperty("bib.dump.doi.field", "DOI")
+        );
+    }
+
+    /**
+     * Secondary constructor.
+     * @param dump The JSON-lines dump
+     * @param indexFile The index file
+     * @param doiField The top-level field holding the DOI of each record
+     */
+    public DoiDump(final File dump, final File indexFile,
+        final String doiField) {
+        this.dump = dump;
+        this.indexFile = indexFile;
+        this.doiField = doiField;
+    }
+
+    /**
+     * Whether the index exists and matches the dump.
+     * @return whether lookups can be done without indexing first
+     */
+    public boolean indexed() {
+        if (!this.indexFile.exists())
+            return false;
+        try (DataInputStream input = new DataInputStream(
+                Files.newInputStream(this.indexFile.toPath())
+            )) {
+            return input.readLong() == DoiDump.MAGIC
+                && input.readLong() == this.dump.length()
+                && input.readLong() == this.dump.lastModified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Builds the index, reading the dump once. Pairs are sorted in runs of
+     * {@code bib.dump.run} pairs (8M by default, 128 MiB of heap), and runs
+     * are merged into the index, so dumps of any size can be indexed.
+     * @return the number of records indexed
+     * @throws IOException If the dump can't be read or a record is
+     *  malformed
+     */
+    public long index() throws IOException {
+        final long length = this.dump.length();
+        final long modified = this.dump.lastModified();
+        final int capacity = (int) Math.min(
+            Integer.getInteger("bib.dump.run", 1 << 23),
+            length / 16 + 1
+        );
+        final long[] hashes = new long[capacity];
+        final long[] offsets = new long[capacity];
+        final List<File> runs = new ArrayList<>();
+        final File temporary = File.createTempFile(
+            this.indexFile.getName(),
+            ".tmp",
+            this.indexFile.getAbsoluteFile().getParentFile()
+        );
+        final Lines lines = new Lines(capacity, hashes, offsets, runs);
+        try {
+            try (InputStream input =
+                Files.newInputStream(this.dump.toPath())) {
+                final byte[] chunk = new byte[1 << 20];
+                int read;
+                while ((read = input.read(chunk)) >= 0)
+                    lines.feed(chunk, read);
+            }
+            lines.finish();
+            DoiDump.sort(hashes, offsets, 0, lines.size);
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(
+                        Files.newOutputStream(temporary.toPath()),
+                        1 << 20
+                    )
+                )) {
+                output.writeLong(DoiDump.MAGIC);
+                output.writeLong(length);
+                output.writeLong(modified);
+                output.writeLong(lines.records);
+                DoiDump.merge(runs, hashes, offsets, lines.size, output);
+            }
+            this.close();
+            Files.move(
+                temporary.toPath(),
+                this.indexFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+            for (File run : runs)
+                Files.deleteIfExists(run.toPath());
+        }
+        return lines.records;
+    }
+
+    /**
+     * Looks up the records of the given DOIs. The hashes are searched in
+     * order, and the records are read in the order they appear in the dump,
+     * so a batch costs one pass over the index pages and the dump regions
+     * it touches.
+     * @param dois The DOIs, or resolver URLs
+     * @return the records found, as parsed by {@link Json}, by DOI as given
+     * @throws IOException If the index is missing or stale
+     */
+    public Map<String, Map<String, Object>> lookup(
+        final Collection<String> dois) throws IOException {
+        this.open();
+        final List<Candidate> candidates = new ArrayList<>();
+        final long[] hashes = new long[dois.size()];
+        final String[] normalized = new String[dois.size()];
+        final String[] given = new String[dois.size()];
+        int size = 0;
+        for (String doi : dois) {
+            given[size] = doi;
+            normalized[size] = DoiDump.normalize(doi);
+            hashes[size] = DoiDump.hash(normalized[size]);
+            size++;
+        }
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        long low = 0;
+        for (Integer query : order) {
+            long pair = this.search(hashes[query], low);
+            low = pair;
+            while (pair < this.count && this.hash(pair) == hashes[query])
+                candidates.add(
+                    new Candidate(
+                        this.offset(pair++),
+                        normalized[query],
+                        given[query]
+                    )
+                );
+        }
+        candidates.sort((a, b) -> Long.compare(a.offset, b.offset));
+        final Map<String, Map<String, Object>> records = new HashMap<>();
+        final Record record = new Record();
+        for (Candidate candidate : candidates) {
+            if (records.containsKey(candidate.given))
+                continue;
+            this.read(candidate.offset, record);
+            final Object parsed;
+            try {
+                parsed = Json.parse(record.bytes, 0, record.length);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(
+                    String.format(
+                        "Malformed record at byte %d of %s (%s)",
+                        candidate.offset,
+                        this.dump,
+                        e.getMessage()
+                    )
+                );
+            }
+            if (!(parsed instanceof Map))
+                continue;
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> object = (Map<String, Object>) parsed;
+            final Object doi = object.get(this.doiField);
+            if (doi instanceof String
+                && DoiDump.normalize((String) doi).equals(candidate.normalized))
+                records.put(candidate.given, object);
+        }
+        return records;
+    }
+
+    /**
+     * Fills the missing fields of the entries that have a DOI in the dump:
+     * the abstract, and the title, year, venue, volume, number, pages and
+     * publisher. Entries are looked up in batches of {@code bib.dump.batch}
+     * (4096 by default) DOIs, and entries that share a DOI, in any of its
+     * forms, are all filled from the same record.
+     * @param entries The entries
+     * @return the entries that changed
+     * @throws IOException If the index is missing or stale
+     */
+    public List<BibTeXEntry> fill(final Collection<BibTeXEntry> entries)
+        throws IOException {
+        final int batch = Integer.getInteger("bib.dump.batch", 4096);
+        final List<BibTeXEntry> changed = new ArrayList<>();
+        final Map<String, List<BibTeXEntry>> pending = new HashMap<>();
+        for (BibTeXEntry entry : entries) {
+            final Value doi = entry.getField(BibTeXEntry.KEY_DOI);
+            if (doi == null)
+                continue;
+            pending.computeIfAbsent(
+                DoiDump.normalize(doi.toUserString()),
+                key -> new ArrayList<>()
+            ).add(entry);
+            if (pending.size() == batch)
+                this.fill(pending, changed);
+        }
+        this.fill(pending, changed);
+        return changed;
+    }
+
+    private void fill(final Map<String, List<BibTeXEntry>> pending,
+        final List<BibTeXEntry> changed) throws IOException {
+        if (pending.isEmpty())
+            return;
+        for (Map.Entry<String, Map<String, Object>> record :
+            this.lookup(pending.keySet()).entrySet())
+            for (BibTeXEntry entry : pending.get(record.getKey()))
+                if (DoiDump.complete(entry, record.getValue()))
+                    changed.add(entry);
+        pending.clear();
+    }
+
+    /**
+     * Adds the fields of a Crossref-style record that the entry is missing.
+     * @param entry The entry
+     * @param record The record
+     * @return whether a field was added
+     */
+    public static boolean complete(final BibTeXEntry entry,
+        final Map<String, Object> record) {
+        final Map<Key, Object> fields = new LinkedHashMap<>();
+        fields.put(DoiDump.ABSTRACT, DoiDump.text(record.get("abstract")));
+        fields.put(BibTeXEntry.KEY_TITLE, DoiDump.first(record.get("title")));
+        fields.put(BibTeXEntry.KEY_YEAR, DoiDump.year(record));
+        fields.put(
+            BibTeXEntry.TYPE_ARTICLE.equals(entry.getType())
+                ? BibTeXEntry.KEY_JOURNAL
+                : BibTeXEntry.KEY_BOOKTITLE,
+            DoiDump.first(record.get("container-title"))
+        );
+        fields.put(BibTeXEntry.KEY_VOLUME, record.get("volume"));
+        fields.put(BibTeXEntry.KEY_NUMBER, record.get("issue"));
+        final Object pages = record.get("page");
+        if (pages instanceof String)
+            fields.put(
+                BibTeXEntry.KEY_PAGES,
+                ((String) pages).replaceAll("-+", "--")
+            );
+        fields.put(BibTeXEntry.KEY_PUBLISHER, record.get("publisher"));
+        boolean changed = false;
+        for (Map.Entry<Key, Object> field : fields.entrySet())
+            changed |= DoiDump.add(entry, field.getKey(), field.getValue());
+        return changed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.regions = null;
+        if (this.channel != null) {
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * The resolver that DOIs are fetched from, as set by
+     * {@code bib.doi.resolver}.
+     * @return a URL prefix such as https://dx.doi.org/
+     */
+    public static String resolver() {
+        return System.getProperty("bib.doi.resolver", "https://dx.doi.org/");
+    }
+
+    /**
+     * Extracts the DOI from a link to the configured resolver, or to
+     * doi.org.
+     * @param url A URL such as https://dx.doi.org/10.1145/xyz
+     * @return the DOI, or the URL itself if it is not a resolver URL
+     */
+    public static String doi(final String url) {
+        final String resolver = DoiDump.resolver();
+        if (url.regionMatches(true, 0, resolver, 0, resolver.length()))
+            return url.substring(resolver.length());
+        return DoiDump.RESOLVER.matcher(url).replaceFirst("");
+    }
+
+    /**
+     * The normalized form of a DOI, as indexed.
+     * @param doi The DOI, or a resolver URL
+     * @return the lower-case DOI
+     */
+    static String normalize(final String doi) {
+        return DoiDump.doi(doi.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A 64-bit hash of a normalized DOI (FNV-1a, with the finalizer of
+     * MurmurHash3 to spread the bits).
+     * @param doi The normalized DOI
+     * @return the hash
+     */
+    static long hash(final String doi) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte current : doi.getBytes(DoiDump.UTF8)) {
+            hash ^= current & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private synchronized void open() throws IOException {
+        if (this.regions != null)
+            return;
+        if (!this.indexed())
+            throw new IOException(
+                String.format(
+                    "%s is missing or out of date, index %s first",
+                    this.indexFile,
+                    this.dump
+                )
+            );
+        try (FileChannel index = FileChannel.open(
+                this.indexFile.toPath(),
+                StandardOpenOption.READ
+            )) {
+            final long size = index.size();
+            this.count = (size - DoiDump.HEADER) / DoiDump.PAIR;
+            final long regions = (size + DoiDump.REGION - 1) / DoiDump.REGION;
+            this.regions = new MappedByteBuffer[(int) regions];
+            for (int i = 0; i < this.regions.length; i++) {
+                final long start = i * DoiDump.REGION;
+                this.regions[i] = index.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    start,
+                    Math.min(DoiDump.REGION, size - start)
+                );
+            }
+        }
+        this.channel = FileChannel.open(
+            this.dump.toPath(),
+            StandardOpenOption.READ
+        );
+    }
+
+    /**
+     * Finds the first pair whose hash is not less than the given one.
+     * @param hash The hash
+     * @param from The first pair to consider
+     * @return the position of the pair, or the number of pairs
+     */
+    private long search(final long hash, final long from) {
+        long low = from;
+        long high = this.count;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            if (this.hash(middle) < hash)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private long hash(final long pair) {
+        final long position = DoiDump.HEADER + pair * DoiDump.PAIR;
+        return this.regions[(int) (position / DoiDump.REGION)]
+            .getLong((int) (position % DoiDump.REGION));
+    }
+
+    private long offset(final long pair) {
+        final long position = DoiDump.HEADER + pair * DoiDump.PAIR + 8;
+        return this.regions[(int) (position / DoiDump.REGION)]
+            .getLong((int) (position % DoiDump.REGION));
+    }
+
+    /**
+     * Reads the line starting at the given offset of the dump.
+     */
+    private void read(final long offset, final Record record)
+        throws IOException {
+        record.length = 0;
+        long position = offset;
+        while (true) {
+            if (record.length == record.bytes.length)
+                record.bytes = Arrays.copyOf(record.bytes, record.bytes.length * 2);
+            final ByteBuffer buffer = ByteBuffer.wrap(
+                record.bytes,
+                record.length,
+                record.bytes.length - record.length
+            );
+            final int read = this.channel.read(buffer, position);
+            if (read <= 0)
+                return;
+            for (int i = record.length; i < record.length + read; i++) {
+                if (record.bytes[i] == '\n') {
+                    record.length = i;
+                    return;
+                }
+            }
+            record.length += read;
+            position += read;
+        }
+    }
+
+    private static boolean add(final BibTeXEntry entry, final Key key,
+        final Object value) {
+        if (!(value instanceof String || value instanceof Number)
+            || entry.getField(key) != null)
+            return false;
+        final String text = DoiDump.SPACES.matcher(value.toString())
+            .replaceAll(" ")
+            .trim();
+        if (text.isEmpty() || !DoiDump.balanced(text))
+            return false;
+        entry.addField(key, new StringValue(text, StringValue.Style.BRACED));
+        return true;
+    }
+
+    /**
+     * Removes the markup of an abstract.
+     */
+    private static String text(final Object value) {
+        if (!(value instanceof String))
+            return null;
+        final String text = DoiDump.TAG.matcher(
+            DoiDump.TITLE.matcher((String) value).replaceAll(" ")
+        ).replaceAll(" ");
+        return text.replace("&lt;", "<")
+            .replace("&gt;", ">")
+            .replace("&amp;", "&");
+    }
+
+    /**
+     * The first element of a list, e.g., Crossref titles.
+     */
+    private static Object first(final Object value) {
+        if (value instanceof List)
+            return ((List<?>) value).isEmpty() ? null : ((List<?>) value).get(0);
+        return value;
+    }
+
+    /**
+     * The year of publication: "date-parts" of "issued", or of "published".
+     */
+    private static Object year(final Map<String, Object> record) {
+        for (String field : new String[] {"issued", "published"}) {
+            final Object date = record.get(field);
+            if (date instanceof Map) {
+                final Object year = DoiDump.first(
+                    DoiDump.first(((Map<?, ?>) date).get("date-parts"))
+                );
+                if (year instanceof Number)
+                    return year;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the braces of a value are balanced, as a braced bibtex value
+     * requires.
+     */
+    private static boolean balanced(final String text) {
+        int depth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char current = text.charAt(i);
+            if (current == '{')
+                depth++;
+            else if (current == '}' && --depth < 0)
+                return false;
+        }
+        return depth == 0;
+    }
+
+    private static boolean blank(final byte[] line, final int from,
+        final int to) {
+        for (int i = from; i < to; i++)
+            if (line[i] != ' ' && line[i] != '\t' && line[i] != '\r')
+                return false;
+        return true;
+    }
+
+    /**
+     * Sorts a run and writes it to a temporary file.
+     */
+    private static File run(final long[] hashes, final long[] offsets,
+        final int size) throws IOException {
+        DoiDump.sort(hashes, offsets, 0, size);
+        final File run = File.createTempFile("bib-doi", ".run");
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(
+                    Files.newOutputStream(run.toPath()),
+                    1 << 20
+                )
+            )) {
+            for (int i = 0; i < size; i++) {
+                output.writeLong(hashes[i]);
+                output.writeLong(offsets[i]);
+            }
+        }
+        return run;
+    }
+
+    /**
+     * Merges the sorted runs and the sorted pairs still in memory.
+     */
+    private static void merge(final List<File> runs, final long[] hashes,
+        final long[] offsets, final int size, final DataOutputStream output)
+        throws IOException {
+        final PriorityQueue<Source> queue = new PriorityQueue<>();
+        final List<DataInputStream> inputs = new ArrayList<>();
+        try {
+            for (File run : runs) {
+                final DataInputStream input = new DataInputStream(
+                    new BufferedInputStream(
+                        Files.newInputStream(run.toPath()),
+                        1 << 20
+                    )
+                );
+                inputs.add(input);
+                final Source source = new Source(input, null, null, 0);
+                if (source.advance())
+                    queue.add(source);
+            }
+            final Source memory = new Source(null, hashes, offsets, size);
+            if (memory.advance())
+                queue.add(memory);
+            while (!queue.isEmpty()) {
+                final Source source = queue.poll();
+                output.writeLong(source.hash);
+                output.writeLong(source.offset);
+                if (source.advance())
+                    queue.add(source);
+            }
+        } finally {
+            for (DataInputStream input : inputs)
+                input.close();
+        }
+    }
+
+    /**
+     * Sorts the pairs by hash, then by offset, so the first record of a
+     * DOI that appears twice in the dump wins.
+     */
+    private static void sort(final long[] hashes, final long[] offsets,
+        final int from, final int to) {
+        int low = from;
+        int high = to;
+        while (high - low > 16) {
+            final int middle = (low + high) >>> 1;
+            final long pivotHash = hashes[middle];
+            final long pivotOffset = offsets[middle];
+            int i = low;
+            int j = high - 1;
+            while (i <= j) {
+                while (DoiDump.compare(hashes[i], offsets[i], pivotHash, pivotOffset) < 0)
+                    i++;
+                while (DoiDump.compare(hashes[j], offsets[j], pivotHash, pivotOffset) > 0)
+                    j--;
+                if (i <= j)
+                    DoiDump.swap(hashes, offsets, i++, j--);
+            }
+            if (j + 1 - low < high - i) {
+                DoiDump.sort(hashes, offsets, low, j + 1);
+                low = i;
+            } else {
+                DoiDump.sort(hashes, offsets, i, high);
+                high = j + 1;
+            }
+        }
+        for (int i = low + 1; i < high; i++)
+            for (int j = i; j > low && DoiDump.compare(
+                hashes[j - 1], offsets[j - 1], hashes[j], offsets[j]) > 0; j--)
+                DoiDump.swap(hashes, offsets, j - 1, j);
+    }
+
+    private static int compare(final long hash, final long offset,
+        final long otherHash, final long otherOffset) {
+        final int comparison = Long.compare(hash, otherHash);
+        return comparison != 0 ? comparison : Long.compare(offset, otherOffset);
+    }
+
+    private static void swap(final long[] hashes, final long[] offsets,
+        final int i, final int j) {
+        final long hash = hashes[i];
+        hashes[i] = hashes[j];
+        hashes[j] = hash;
+        final long offset = offsets[i];
+        offsets[i] = offsets[j];
+        offsets[j] = offset;
+    }
+
+    /**
+     * Splits the dump into lines, and collects the (hash, offset) pair of
+     * each record, spilling sorted runs when the arrays are full.
+     */
+    private final class Lines {
+
+        /**
+         * The capacity of a run.
+         */
+        private final int capacity;
+
+        /**
+         * The hashes of the current run.
+         */
+        private final long[] hashes;
+
+        /**
+         * The offsets of the current run.
+         */
+        private final long[] offsets;
+
+        /**
+         * The runs spilled so far.
+         */
+        private final List<File> runs;
+
+        /**
+         * The beginning of a line that spans two chunks.
+         */
+        private byte[] pending;
+
+        /**
+         * The length of the pending bytes.
+         */
+        private int length;
+
+        /**
+         * The offset of the current line in the dump.
+         */
+        private long offset;
+
+        /**
+         * The number of pairs in the current run.
+         */
+        private int size;
+
+        /**
+         * The number of records indexed.
+         */
+        private long records;
+
+        Lines(final int capacity, final long[] hashes, final long[] offsets,
+            final List<File> runs) {
+            this.capacity = capacity;
+            this.hashes = hashes;
+            this.offsets = offsets;
+            this.runs = runs;
+            this.pending = new byte[1 << 16];
+        }
+
+        /**
+         * Indexes the lines completed by a chunk of the dump.
+         */
+        void feed(final byte[] chunk, final int read) throws IOException {
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] != '\n')
+                    continue;
+                if (this.length == 0) {
+                    this.line(chunk, start, i);
+                } else {
+                    this.append(chunk, start, i);
+                    this.line(this.pending, 0, this.length);
+                    this.length = 0;
+                }
+                this.offset += 1;
+                start = i + 1;
+            }
+            this.append(chunk, start, read);
+        }
+
+        /**
+         * Indexes the last line, if the dump does not end with a newline.
+         */
+        void finish() throws IOException {
+            if (this.length > 0)
+                this.line(this.pending, 0, this.length);
+            this.length = 0;
+        }
+
+        private void append(final byte[] chunk, final int from,
+            final int to) {
+            final int needed = this.length + to - from;
+            if (needed > this.pending.length)
+                this.pending = Arrays.copyOf(
+                    this.pending,
+                    Math.max(needed, this.pending.length * 2)
+                );
+            System.arraycopy(chunk, from, this.pending, this.length, to - from);
+            this.length = needed;
+        }
+
+        private void line(final byte[] bytes, final int from, final int to)
+            throws IOException {
+            final long start = this.offset;
+            this.offset += to - from;
+            if (DoiDump.blank(bytes, from, to))
+                return;
+            final String doi;
+            try {
+                doi = Json.field(bytes, from, to, DoiDump.this.doiField);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(
+                    String.format(
+                        "Malformed record at byte %d of %s (%s)",
+                        start,
+                        DoiDump.this.dump,
+                        e.getMessage()
+                    )
+                );
+            }
+            if (doi == null)
+                return;
+            if (this.size == this.capacity) {
+                this.runs.add(DoiDump.run(this.hashes, this.offsets, this.size));
+                this.size = 0;
+            }
+            this.hashes[this.size] = DoiDump.hash(DoiDump.normalize(doi));
+            this.offsets[this.size++] = start;
+            this.records++;
+        }
+
+    }
+
+    /**
+     * A record to read from the dump for a queried DOI.
+     */
+    private static final class Candidate {
+
+        /**
+         * The offset of the record in the dump.
+         */
+        private final long offset;
+
+        /**
+         * The normalized DOI.
+         */
+        private final String normalized;
+
+        /**
+         * The DOI as given.
+         */
+        private final String given;
+
+        Candidate(final long offset, final String normalized,
+            final String given) {
+            this.offset = offset;
+            this.normalized = normalized;
+            this.given = given;
+        }
+
+    }
+
+    /**
+     * The bytes of a record, reused across reads.
+     */
+    private static final class Record {
+
+        /**
+         * The buffer.
+         */
+        private byte[] bytes = new byte[1 << 16];
+
+        /**
+         * The length of the record.
+         */
+        private int length;
+
+    }
+
+    /**
+     * The next pair of a sorted run, on disk or in memory.
+     */
+    private static final class Source implements Comparable<Source> {
+
+        /**
+         * The run on disk, or null.
+         */
+        private final DataInputStream input;
+
+        /**
+         * The hashes in memory, or null.
+         */
+        private final long[] hashes;
+
+        /**
+         * The offsets in memory, or null.
+         */
+        private final long[] offsets;
+
+        /**
+         * The number of pairs in memory.
+         */
+        private final int size;
+
+        /**
+         * The next pair in memory.
+         */
+        private int next;
+
+        /**
+         * The hash of the current pair.
+         */
+        private long hash;
+
+        /**
+         * The offset of the current pair.
+         */
+        private long offset;
+
+        Source(final DataInputStream input, final long[] hashes,
+            final long[] offsets, final int size) {
+            this.input = input;
+            this.hashes = hashes;
+            this.offsets = offsets;
+            this.size = size;
+        }
+
+        /**
+         * Moves to the next pair.
+         * @return whether there was one
+         */
+        boolean advance() throws IOException {
+            if (this.input == null) {
+                if (this.next == this.size)
+                    return false;
+                this.hash = this.hashes[this.next];
+                this.offset = this.offsets[this.next++];
+                return true;
+            }
+            try {
+                this.hash = this.input.readLong();
+                this.offset = this.input.readLong();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int compareTo(final Source other) {
+            return DoiDump.compare(this.hash, this.offset, other.hash, other.offset);
+        }
+
+    }
+
+}
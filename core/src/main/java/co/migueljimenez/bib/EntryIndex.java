@@ -0,0 +1,535 @@
+package co.migueljimenez.bib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * An in-memory index of the entries of a database, answering queries such
+ * as "entries with 'self-adaptive' in the title or abstract, from 2010 to
+ * 2017, published in X" without scanning every entry. Title, abstract and
+ * keywords are tokenized into an inverted index, and results are ranked by
+ * TF-IDF, with title matches weighing the most. Year, DOI, type and venue
+ * are indexed as exact values.
+ * <p>
+ * Entries can be added at any time, e.g., as abstracts are fetched; adding
+ * an entry whose key is already indexed replaces it. Queries and updates
+ * may run concurrently.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class EntryIndex {
+
+    /**
+     * The keywords field.
+     */
+    private static final Key KEYWORDS = new Key("keywords");
+
+    /**
+     * The abstract field.
+     */
+    private static final Key ABSTRACT = new Key("abstract");
+
+    /**
+     * The indexed entries, by document number.
+     */
+    private final List<BibTeXEntry> documents;
+
+    /**
+     * The document number of each key.
+     */
+    private final Map<String, Integer> keys;
+
+    /**
+     * The postings of each term.
+     */
+    private final Map<String, Postings> terms;
+
+    /**
+     * The documents of each year, sorted by year so a range of years is a
+     * sub-map rather than a scan of every document.
+     */
+    private final NavigableMap<Integer, BitSet> years;
+
+    /**
+     * The document of each normalized DOI.
+     */
+    private final Map<String, Integer> dois;
+
+    /**
+     * The documents of each lowercase entry type.
+     */
+    private final Map<String, BitSet> types;
+
+    /**
+     * The documents of each normalized venue (journal or booktitle).
+     */
+    private final Map<String, BitSet> venues;
+
+    /**
+     * Documents replaced by a later version of the same entry.
+     */
+    private final BitSet deleted;
+
+    /**
+     * Guards the index.
+     */
+    private final ReadWriteLock lock;
+
+    /**
+     * Default constructor.
+     */
+    public EntryIndex() {
+        this.documents = new ArrayList<>();
+        this.keys = new HashMap<>();
+        this.terms = new HashMap<>();
+        this.years = new TreeMap<>();
+        this.dois = new HashMap<>();
+        this.types = new HashMap<>();
+        this.venues = new HashMap<>();
+        this.deleted = new BitSet();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Secondary constructor.
+     * @param database The entries to index
+     */
+    public EntryIndex(final BibTeXDatabase database) {
+        this();
+        database.getEntries().values().forEach(this::add);
+    }
+
+    /**
+     * Indexes the entry, replacing a previous version with the same key.
+     * @param entry The entry
+     */
+    public void add(final BibTeXEntry entry) {
+        final Map<String, Float> weights = new HashMap<>();
+        EntryIndex.tokens(entry, BibTeXEntry.KEY_TITLE, 3f, weights);
+        EntryIndex.tokens(entry, EntryIndex.KEYWORDS, 2f, weights);
+        EntryIndex.tokens(entry, EntryIndex.ABSTRACT, 1f, weights);
+        this.lock.writeLock().lock();
+        try {
+            final int document = this.documents.size();
+            final Integer previous = this.keys.put(entry.getKey().getValue(), document);
+            if (previous != null)
+                this.deleted.set(previous);
+            this.documents.add(entry);
+            weights.forEach(
+                (term, weight) -> this.terms
+                    .computeIfAbsent(term, key -> new Postings())
+                    .add(document, weight)
+            );
+            final Integer year = EntryIndex.year(entry);
+            if (year != null)
+                this.years.computeIfAbsent(year, key -> new BitSet())
+                    .set(document);
+            final String doi = EntryIndex.field(entry, BibTeXEntry.KEY_DOI);
+            if (!doi.isEmpty())
+                this.dois.put(Deduplicator.normalizeDoi(doi), document);
+            this.types.computeIfAbsent(
+                entry.getType().getValue().toLowerCase(Locale.ROOT),
+                key -> new BitSet()
+            ).set(document);
+            final String venue = EntryIndex.venue(entry);
+            if (!venue.isEmpty())
+                this.venues.computeIfAbsent(venue, key -> new BitSet())
+                    .set(document);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds an entry by DOI.
+     * @param doi The DOI, in any form accepted by
+     *  {@link Deduplicator#normalizeDoi(String)}
+     * @return the entry, or null if there is none
+     */
+    public BibTeXEntry byDoi(final String doi) {
+        this.lock.readLock().lock();
+        try {
+            final Integer document = this.dois.get(Deduplicator.normalizeDoi(doi));
+            return document == null || this.deleted.get(document)
+                ? null
+                : this.documents.get(document);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.keys.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Starts a query. Every condition given must hold; a query without text
+     * returns the matching entries in insertion order.
+     * @return a new query
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    private List<Hit> search(final Query query) {
+        this.lock.readLock().lock();
+        try {
+            final BitSet filter = this.filter(query);
+            final PriorityQueue<Hit> top = new PriorityQueue<>(
+                query.limit + 1,
+                (a, b) -> a.score != b.score
+                    ? Float.compare(a.score, b.score)
+                    : Integer.compare(b.document, a.document)
+            );
+            if (query.terms.isEmpty()) {
+                for (int document = filter.nextSetBit(0);
+                    document >= 0 && top.size() < query.limit;
+                    document = filter.nextSetBit(document + 1))
+                    top.add(new Hit(this.documents.get(document), document, 0f));
+            } else {
+                this.rank(query, filter, top);
+            }
+            final List<Hit> hits = new ArrayList<>(top);
+            hits.sort(top.comparator().reversed());
+            return hits;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the documents containing every query term, walking the
+     * shortest postings list and probing the others.
+     */
+    private void rank(final Query query, final BitSet filter,
+        final PriorityQueue<Hit> top) {
+        final List<Postings> lists = new ArrayList<>();
+        final List<Float> idfs = new ArrayList<>();
+        for (String term : query.terms) {
+            final Postings postings = this.terms.get(term);
+            if (postings == null)
+                return;
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        for (Postings postings : lists)
+            idfs.add(
+                (float) Math.log(1.0 + (double) this.documents.size() / postings.size)
+            );
+        final Postings shortest = lists.get(0);
+        final int[] cursors = new int[lists.size()];
+        for (int i = 0; i < shortest.size; i++) {
+            final int document = shortest.documents[i];
+            if (!filter.get(document))
+                continue;
+            float score = shortest.weights[i] * idfs.get(0);
+            boolean all = true;
+            for (int l = 1; l < lists.size() && all; l++) {
+                final Postings other = lists.get(l);
+                final int position = Arrays.binarySearch(
+                    other.documents,
+                    cursors[l],
+                    other.size,
+                    document
+                );
+                if (position < 0) {
+                    cursors[l] = -position - 1;
+                    all = false;
+                } else {
+                    cursors[l] = position;
+                    score += other.weights[position] * idfs.get(l);
+                }
+            }
+            if (!all)
+                continue;
+            if (top.size() < query.limit) {
+                top.add(new Hit(this.documents.get(document), document, score));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Hit(this.documents.get(document), document, score));
+            }
+        }
+    }
+
+    /**
+     * The live documents satisfying the years, type, venue and DOI of the
+     * query.
+     */
+    private BitSet filter(final Query query) {
+        final BitSet filter = new BitSet(this.documents.size());
+        filter.set(0, this.documents.size());
+        filter.andNot(this.deleted);
+        if (query.type != null)
+            filter.and(this.types.getOrDefault(query.type, new BitSet()));
+        if (query.venue != null)
+            filter.and(this.venues.getOrDefault(query.venue, new BitSet()));
+        if (query.doi != null) {
+            final Integer document = this.dois.get(query.doi);
+            final BitSet single = new BitSet();
+            if (document != null)
+                single.set(document);
+            filter.and(single);
+        }
+        if (query.from != Integer.MIN_VALUE || query.to != Integer.MAX_VALUE) {
+            final BitSet years = new BitSet();
+            if (query.from <= query.to)
+                for (BitSet documents :
+                    this.years.subMap(query.from, true, query.to, true).values())
+                    years.or(documents);
+            filter.and(years);
+        }
+        return filter;
+    }
+
+    private static void tokens(final BibTeXEntry entry, final Key key,
+        final float weight, final Map<String, Float> weights) {
+        final String text = Deduplicator.normalize(EntryIndex.field(entry, key));
+        if (text.isEmpty())
+            return;
+        for (String token : text.split(" "))
+            weights.merge(token, weight, Float::sum);
+    }
+
+    private static String venue(final BibTeXEntry entry) {
+        final String journal = EntryIndex.field(entry, BibTeXEntry.KEY_JOURNAL);
+        return Deduplicator.normalize(
+            journal.isEmpty()
+                ? EntryIndex.field(entry, BibTeXEntry.KEY_BOOKTITLE)
+                : journal
+        );
+    }
+
+    /**
+     * The year of the entry, or null if it has none.
+     */
+    private static Integer year(final BibTeXEntry entry) {
+        try {
+            return Integer.valueOf(EntryIndex.field(entry, BibTeXEntry.KEY_YEAR).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String field(final BibTeXEntry entry, final Key key) {
+        final Value value = entry.getField(key);
+        return value == null ? "" : value.toUserString();
+    }
+
+    /**
+     * The documents containing a term, in increasing order, with the
+     * weighted frequency of the term in each one.
+     */
+    private static final class Postings {
+
+        /**
+         * The document numbers.
+         */
+        private int[] documents = new int[4];
+
+        /**
+         * The weighted frequency of the term in each document.
+         */
+        private float[] weights = new float[4];
+
+        /**
+         * The number of documents.
+         */
+        private int size;
+
+        void add(final int document, final float weight) {
+            if (this.size == this.documents.length) {
+                this.documents = Arrays.copyOf(this.documents, this.size * 2);
+                this.weights = Arrays.copyOf(this.weights, this.size * 2);
+            }
+            this.documents[this.size] = document;
+            this.weights[this.size] = weight;
+            this.size++;
+        }
+
+    }
+
+    /**
+     * A query over the index.
+     */
+    public final class Query {
+
+        /**
+         * Normalized terms that must all appear in the title, keywords or
+         * abstract.
+         */
+        private final List<String> terms = new ArrayList<>();
+
+        /**
+         * The first year, inclusive.
+         */
+        private int from = Integer.MIN_VALUE;
+
+        /**
+         * The last year, inclusive.
+         */
+        private int to = Integer.MAX_VALUE;
+
+        /**
+         * The lowercase entry type, if required.
+         */
+        private String type;
+
+        /**
+         * The normalized venue, if required.
+         */
+        private String venue;
+
+        /**
+         * The normalized DOI, if required.
+         */
+        private String doi;
+
+        /**
+         * The maximum number of results.
+         */
+        private int limit = 10;
+
+        private Query() {
+        }
+
+        /**
+         * Requires every word of the text, e.g., "self-adaptive" requires
+         * both "self" and "adaptive".
+         * @param text The text
+         * @return this query
+         */
+        public Query text(final String text) {
+            final String normalized = Deduplicator.normalize(text);
+            if (!normalized.isEmpty())
+                this.terms.addAll(Arrays.asList(normalized.split(" ")));
+            return this;
+        }
+
+        /**
+         * Requires a year within the range, inclusive.
+         * @param from The first year
+         * @param to The last year
+         * @return this query
+         */
+        public Query years(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public Query type(final String type) {
+            this.type = type.toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        /**
+         * Requires the journal (or book title, if there is no journal) to
+         * equal the venue, ignoring case, punctuation and LaTeX markup.
+         * @param venue The venue
+         * @return this query
+         */
+        public Query venue(final String venue) {
+            this.venue = Deduplicator.normalize(venue);
+            return this;
+        }
+
+        public Query doi(final String doi) {
+            this.doi = Deduplicator.normalizeDoi(doi);
+            return this;
+        }
+
+        /**
+         * Runs the query.
+         * @param limit The maximum number of results
+         * @return the best matches, best first
+         */
+        public List<Hit> top(final int limit) {
+            this.limit = limit;
+            if (limit <= 0)
+                return Collections.emptyList();
+            return EntryIndex.this.search(this);
+        }
+
+    }
+
+    /**
+     * A matching entry and its score.
+     */
+    public static final class Hit {
+
+        /**
+         * The matching entry.
+         */
+        private final BibTeXEntry entry;
+
+        /**
+         * The document number, which breaks ties between equal scores.
+         */
+        private final int document;
+
+        /**
+         * The TF-IDF score, 0 for queries without text.
+         */
+        private final float score;
+
+        Hit(final BibTeXEntry entry, final int document, final float score) {
+            this.entry = entry;
+            this.document = document;
+            this.score = score;
+        }
+
+        public BibTeXEntry getEntry() {
+            return this.entry;
+        }
+
+        public float getScore() {
+            return this.score;
+        }
+
+    }
+
+}
@@ -0,0 +1,671 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXString;
+import org.jbibtex.DigitStringValue;
+import org.jbibtex.Key;
+import org.jbibtex.KeyValue;
+import org.jbibtex.ReferenceValue;
+import org.jbibtex.StringValue;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A compact alternative to {@link BibTeXDatabase} for very large
+ * bibliographies. jbibtex gives every entry its own {@link Key} and string
+ * objects, so field names, authors and venues are repeated in memory once
+ * per entry. Instead:
+ * <ul>
+ * <li>field names and entry types are interned, so each has a single
+ * {@link Key};</li>
+ * <li>the values of fields that repeat across entries (authors and editors,
+ * one name at a time, venues, publishers, years, etc.) are stored once in a
+ * dictionary and referenced by number;</li>
+ * <li>any other text (titles, abstracts, DOIs, etc.) is stored as UTF-8 in
+ * large buffers, outside the heap unless {@code bib.store.offheap} is
+ * false;</li>
+ * <li>the fields of all entries are laid out in a single int array.</li>
+ * </ul>
+ * Entries are rebuilt as {@link BibTeXEntry} objects on demand, so the
+ * store can be filtered, printed and written like a database (see
+ * {@link #toDatabase()}, {@link #objects()} and {@link #entry(String)}).
+ * Like {@link BibTeXDatabase}, the store is not thread-safe while objects
+ * are being added, and entries and macros with a duplicated key are
+ * ignored. Keys are compared ignoring case, as {@link Key} does, so writing
+ * a store gives the same bytes as writing the database it was loaded from.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class EntryStore {
+
+    /**
+     * Fields whose values are stored in the dictionary.
+     */
+    private static final Set<String> DICTIONARY_FIELDS = new HashSet<>(
+        Arrays.asList(
+            "author", "editor", "journal", "booktitle", "publisher", "year",
+            "month", "series", "address", "organization", "school",
+            "institution", "howpublished", "edition", "volume", "number",
+            "type", "language"
+        )
+    );
+
+    /**
+     * Fields whose values are lists of names, stored one name at a time.
+     */
+    private static final Set<String> NAME_FIELDS = new HashSet<>(
+        Arrays.asList("author", "editor")
+    );
+
+    /**
+     * The separator of names.
+     */
+    private static final String AND = " and ";
+
+    /**
+     * The size of each text buffer.
+     */
+    private static final int CHUNK_SIZE = 1 << 24;
+
+    /**
+     * Number of ints per field: name, kind, and two kind-specific ints.
+     */
+    private static final int FIELD = 4;
+
+    /**
+     * Value sources, in the high bits of a field's kind.
+     */
+    private static final int DICTIONARY = 0, NAMES = 1, TEXT = 2, OTHER = 3;
+
+    /**
+     * Value styles, in the two low bits of a field's kind.
+     */
+    private static final int BRACED = 0, QUOTED = 1, DIGITS = 2, REFERENCE = 3;
+
+    /**
+     * Field names and entry types.
+     */
+    private final Dictionary names;
+
+    /**
+     * The {@link Key} of each name, by name number.
+     */
+    private final List<Key> keys;
+
+    /**
+     * Where the values of each field are stored ({@link #NAMES},
+     * {@link #DICTIONARY} or {@link #TEXT}), by name number.
+     */
+    private byte[] sources;
+
+    /**
+     * Repeated values and individual author names.
+     */
+    private final Dictionary values;
+
+    /**
+     * The text buffers.
+     */
+    private final List<ByteBuffer> chunks;
+
+    /**
+     * Whether text buffers are allocated outside the heap.
+     */
+    private final boolean offHeap;
+
+    /**
+     * Values that are neither strings, numbers nor macro references (e.g.,
+     * concatenations), kept as they are.
+     */
+    private final List<Value> complex;
+
+    /**
+     * The macros referenced by the entries, by name.
+     */
+    private final Map<String, BibTeXString> macros;
+
+    /**
+     * The lowercase names of the macros defined in the store.
+     */
+    private final Set<String> defined;
+
+    /**
+     * The objects other than entries ({@code @string}, {@code @preamble},
+     * comments), kept as they are.
+     */
+    private final List<BibTeXObject> others;
+
+    /**
+     * The objects in insertion order: entry numbers, or
+     * {@code -(other number) - 1}.
+     */
+    private int[] order;
+
+    /**
+     * The number of objects.
+     */
+    private int objects;
+
+    /**
+     * The key of each entry.
+     */
+    private String[] entryKeys;
+
+    /**
+     * The type of each entry, as a name number.
+     */
+    private int[] types;
+
+    /**
+     * The first field of each entry in {@link #fields}, plus the end of the
+     * last entry's fields.
+     */
+    private int[] starts;
+
+    /**
+     * The number of entries.
+     */
+    private int entries;
+
+    /**
+     * The fields of all entries, {@link #FIELD} ints each.
+     */
+    private int[] fields;
+
+    /**
+     * The number of ints used in {@link #fields}.
+     */
+    private int fieldsSize;
+
+    /**
+     * Name numbers of author and editor lists.
+     */
+    private int[] people;
+
+    /**
+     * The number of ints used in {@link #people}.
+     */
+    private int peopleSize;
+
+    /**
+     * Open-addressing table of entry numbers plus one, by key hash.
+     */
+    private int[] table;
+
+    /**
+     * Default constructor.
+     */
+    public EntryStore() {
+        this.names = new Dictionary();
+        this.keys = new ArrayList<>();
+        this.sources = new byte[16];
+        this.values = new Dictionary();
+        this.chunks = new ArrayList<>();
+        this.offHeap = Boolean.parseBoolean(
+            System.getProperty("bib.store.offheap", "true")
+        );
+        this.complex = new ArrayList<>();
+        this.macros = new HashMap<>();
+        this.defined = new HashSet<>();
+        this.others = new ArrayList<>();
+        this.order = new int[16];
+        this.entryKeys = new String[16];
+        this.types = new int[16];
+        this.starts = new int[17];
+        this.fields = new int[16 * EntryStore.FIELD];
+        this.people = new int[64];
+        this.table = new int[32];
+    }
+
+    /**
+     * Reads a bibtex file into a store, one object at a time.
+     * @param bibFile The bibtex file
+     * @return the store
+     * @throws IOException
+     */
+    public static EntryStore load(final File bibFile) throws IOException {
+        final EntryStore store = new EntryStore();
+        try (Stream<BibTeXObject> objects = BibTeXReader.objects(bibFile)) {
+            objects.forEachOrdered(store::add);
+        }
+        return store;
+    }
+
+    /**
+     * Copies a database into a store.
+     * @param database The database
+     * @return the store
+     */
+    public static EntryStore of(final BibTeXDatabase database) {
+        final EntryStore store = new EntryStore();
+        database.getObjects().forEach(store::add);
+        return store;
+    }
+
+    /**
+     * Adds an object. Entries and macros whose key is already in the store
+     * are ignored.
+     * @param object The object
+     */
+    public void add(final BibTeXObject object) {
+        if (object instanceof BibTeXEntry) {
+            this.add((BibTeXEntry) object);
+            return;
+        }
+        if (object instanceof BibTeXString) {
+            final BibTeXString string = (BibTeXString) object;
+            if (!this.defined.add(EntryStore.lowercase(string.getKey().getValue())))
+                return;
+            this.macros.put(string.getKey().getValue(), string);
+        }
+        this.others.add(object);
+        this.order(-this.others.size());
+    }
+
+    private void add(final BibTeXEntry entry) {
+        final String key = entry.getKey().getValue();
+        if (this.find(key) >= 0)
+            return;
+        final int number = this.entries;
+        if (number + 1 >= this.entryKeys.length) {
+            final int length = this.entryKeys.length * 2;
+            this.entryKeys = Arrays.copyOf(this.entryKeys, length);
+            this.types = Arrays.copyOf(this.types, length);
+            this.starts = Arrays.copyOf(this.starts, length + 1);
+        }
+        this.entryKeys[number] = key;
+        this.types[number] = this.name(entry.getType());
+        this.starts[number] = this.fieldsSize;
+        for (Map.Entry<Key, Value> field : entry.getFields().entrySet())
+            this.encode(field.getKey(), field.getValue());
+        this.starts[number + 1] = this.fieldsSize;
+        this.entries++;
+        this.index(key, number);
+        this.order(number);
+    }
+
+    /**
+     * The number of entries.
+     */
+    public int size() {
+        return this.entries;
+    }
+
+    /**
+     * Whether there is an entry with the given key, ignoring case.
+     * @param key The key
+     */
+    public boolean contains(final String key) {
+        return this.find(key) >= 0;
+    }
+
+    /**
+     * Rebuilds an entry.
+     * @param key The key, in any case
+     * @return the entry, or null if there is none with the given key
+     */
+    public BibTeXEntry entry(final String key) {
+        final int number = this.find(key);
+        return number < 0 ? null : this.entry(number);
+    }
+
+    /**
+     * Rebuilds the entries, in insertion order.
+     * @return the entries
+     */
+    public Stream<BibTeXEntry> entries() {
+        return IntStream.range(0, this.entries).mapToObj(this::entry);
+    }
+
+    /**
+     * Rebuilds the entries whose key is in the given set, in insertion
+     * order. Other entries are not rebuilt.
+     * @param keys The keys
+     * @return the matching entries
+     */
+    public Stream<BibTeXEntry> entries(final Set<String> keys) {
+        return IntStream.range(0, this.entries)
+            .filter(i -> keys.contains(this.entryKeys[i]))
+            .mapToObj(this::entry);
+    }
+
+    /**
+     * Rebuilds the objects, in insertion order.
+     * @return the entries, macros, preambles and comments
+     */
+    public Stream<BibTeXObject> objects() {
+        return IntStream.range(0, this.objects).mapToObj(
+            i -> this.order[i] >= 0
+                ? this.entry(this.order[i])
+                : this.others.get(-this.order[i] - 1)
+        );
+    }
+
+    /**
+     * Rebuilds the whole database.
+     * @return a database with every object of the store
+     */
+    public BibTeXDatabase toDatabase() {
+        final BibTeXDatabase database = new BibTeXDatabase();
+        this.objects().forEachOrdered(database::addObject);
+        return database;
+    }
+
+    /**
+     * The macros defined or referenced in the store.
+     */
+    public Map<String, BibTeXString> getMacros() {
+        return Collections.unmodifiableMap(this.macros);
+    }
+
+    /**
+     * The number of bytes of text stored in the buffers.
+     */
+    public long textBytes() {
+        return this.chunks.stream().mapToLong(ByteBuffer::position).sum();
+    }
+
+    private BibTeXEntry entry(final int number) {
+        final BibTeXEntry entry = new BibTeXEntry(
+            this.keys.get(this.types[number]),
+            new Key(this.entryKeys[number])
+        );
+        for (int field = this.starts[number]; field < this.starts[number + 1];
+            field += EntryStore.FIELD)
+            entry.addField(this.keys.get(this.fields[field]), this.decode(field));
+        return entry;
+    }
+
+    private void encode(final Key key, final Value value) {
+        final int name = this.name(key);
+        final String text;
+        final int style;
+        if (value instanceof StringValue) {
+            text = ((StringValue) value).getString();
+            style = ((StringValue) value).getStyle() == StringValue.Style.QUOTED
+                ? EntryStore.QUOTED
+                : EntryStore.BRACED;
+        } else if (value instanceof DigitStringValue) {
+            text = ((DigitStringValue) value).getString();
+            style = EntryStore.DIGITS;
+        } else if (value instanceof ReferenceValue) {
+            final ReferenceValue reference = (ReferenceValue) value;
+            text = reference.getValue().getString();
+            style = EntryStore.REFERENCE;
+            if (reference.getString() != null)
+                this.macros.putIfAbsent(text, reference.getString());
+        } else {
+            this.complex.add(value);
+            this.field(name, EntryStore.OTHER << 2, this.complex.size() - 1, 0);
+            return;
+        }
+        final int source = style == EntryStore.REFERENCE
+            ? EntryStore.DICTIONARY
+            : this.sources[name];
+        if (source == EntryStore.NAMES) {
+            final int start = this.peopleSize;
+            int from = 0;
+            for (int to = text.indexOf(EntryStore.AND); to >= 0;
+                to = text.indexOf(EntryStore.AND, from)) {
+                this.person(this.values.id(text.substring(from, to)));
+                from = to + EntryStore.AND.length();
+            }
+            this.person(this.values.id(text.substring(from)));
+            this.field(
+                name,
+                EntryStore.NAMES << 2 | style,
+                start,
+                this.peopleSize - start
+            );
+        } else if (source == EntryStore.DICTIONARY) {
+            this.field(
+                name,
+                EntryStore.DICTIONARY << 2 | style,
+                this.values.id(text),
+                0
+            );
+        } else {
+            final long position = this.store(text);
+            this.field(
+                name,
+                EntryStore.TEXT << 2 | style,
+                (int) (position >>> 32),
+                (int) position
+            );
+        }
+    }
+
+    private Value decode(final int field) {
+        final int kind = this.fields[field + 1];
+        final int first = this.fields[field + 2];
+        final int second = this.fields[field + 3];
+        final String text;
+        switch (kind >>> 2) {
+            case EntryStore.DICTIONARY:
+                text = this.values.get(first);
+                break;
+            case EntryStore.NAMES: {
+                final StringBuilder builder = new StringBuilder();
+                for (int i = first; i < first + second; i++) {
+                    if (i > first)
+                        builder.append(EntryStore.AND);
+                    builder.append(this.values.get(this.people[i]));
+                }
+                text = builder.toString();
+            } break;
+            case EntryStore.TEXT:
+                text = this.text(first, second);
+                break;
+            default:
+                return this.complex.get(first);
+        }
+        switch (kind & 3) {
+            case EntryStore.QUOTED:
+                return new StringValue(text, StringValue.Style.QUOTED);
+            case EntryStore.DIGITS:
+                return new DigitStringValue(text);
+            case EntryStore.REFERENCE:
+                return new ReferenceValue(new KeyValue(text), this.macros.get(text));
+            default:
+                return new StringValue(text, StringValue.Style.BRACED);
+        }
+    }
+
+    /**
+     * Appends text to the buffers, prefixed with its length.
+     * @return the number of the buffer in the high 32 bits, and the position
+     *  in the buffer in the low 32 bits
+     */
+    private long store(final String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final int length = bytes.length + 4;
+        ByteBuffer chunk = this.chunks.isEmpty()
+            ? null
+            : this.chunks.get(this.chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < length) {
+            final int capacity = Math.max(EntryStore.CHUNK_SIZE, length);
+            chunk = this.offHeap
+                ? ByteBuffer.allocateDirect(capacity)
+                : ByteBuffer.allocate(capacity);
+            this.chunks.add(chunk);
+        }
+        final int position = chunk.position();
+        chunk.putInt(bytes.length);
+        chunk.put(bytes);
+        return (long) (this.chunks.size() - 1) << 32 | position;
+    }
+
+    private String text(final int number, final int position) {
+        final ByteBuffer chunk = this.chunks.get(number).duplicate();
+        final byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.position(position + 4);
+        chunk.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void field(final int name, final int kind, final int first,
+        final int second) {
+        if (this.fieldsSize + EntryStore.FIELD > this.fields.length)
+            this.fields = Arrays.copyOf(this.fields, this.fields.length * 2);
+        this.fields[this.fieldsSize++] = name;
+        this.fields[this.fieldsSize++] = kind;
+        this.fields[this.fieldsSize++] = first;
+        this.fields[this.fieldsSize++] = second;
+    }
+
+    private void person(final int name) {
+        if (this.peopleSize == this.people.length)
+            this.people = Arrays.copyOf(this.people, this.people.length * 2);
+        this.people[this.peopleSize++] = name;
+    }
+
+    private void order(final int object) {
+        if (this.objects == this.order.length)
+            this.order = Arrays.copyOf(this.order, this.order.length * 2);
+        this.order[this.objects++] = object;
+    }
+
+    /**
+     * Interns a field name or entry type.
+     * @return its number
+     */
+    private int name(final Key key) {
+        final int number = this.names.id(key.getValue());
+        if (number == this.keys.size()) {
+            this.keys.add(key);
+            if (number == this.sources.length)
+                this.sources = Arrays.copyOf(this.sources, number * 2);
+            final String field = key.getValue().toLowerCase(Locale.ROOT);
+            this.sources[number] = (byte) (
+                EntryStore.NAME_FIELDS.contains(field)
+                    ? EntryStore.NAMES
+                    : EntryStore.DICTIONARY_FIELDS.contains(field)
+                        ? EntryStore.DICTIONARY
+                        : EntryStore.TEXT
+            );
+        }
+        return number;
+    }
+
+    /**
+     * Finds an entry by key.
+     * @return the entry number, or -1 if there is none
+     */
+    private int find(final String key) {
+        final int mask = this.table.length - 1;
+        final String lowercase = EntryStore.lowercase(key);
+        for (int slot = EntryStore.hash(lowercase) & mask; this.table[slot] != 0;
+            slot = slot + 1 & mask)
+            if (lowercase.equals(
+                EntryStore.lowercase(this.entryKeys[this.table[slot] - 1])))
+                return this.table[slot] - 1;
+        return -1;
+    }
+
+    private void index(final String key, final int number) {
+        if (this.entries * 2 > this.table.length) {
+            final int[] previous = this.table;
+            this.table = new int[previous.length * 2];
+            for (int slot : previous)
+                if (slot != 0)
+                    this.put(this.entryKeys[slot - 1], slot);
+        }
+        this.put(key, number + 1);
+    }
+
+    private void put(final String key, final int slot) {
+        final int mask = this.table.length - 1;
+        int position = EntryStore.hash(EntryStore.lowercase(key)) & mask;
+        while (this.table[position] != 0)
+            position = position + 1 & mask;
+        this.table[position] = slot;
+    }
+
+    /**
+     * The form in which {@link Key} compares keys.
+     */
+    private static String lowercase(final String key) {
+        return key.toLowerCase(Locale.US);
+    }
+
+    private static int hash(final String key) {
+        final int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Numbers distinct strings in order of appearance.
+     */
+    private static final class Dictionary {
+
+        /**
+         * The number of each string.
+         */
+        private final Map<String, Integer> numbers;
+
+        /**
+         * The strings, by number.
+         */
+        private final List<String> strings;
+
+        Dictionary() {
+            this.numbers = new HashMap<>();
+            this.strings = new ArrayList<>();
+        }
+
+        int id(final String string) {
+            final Integer number = this.numbers.get(string);
+            if (number != null)
+                return number;
+            this.numbers.put(string, this.strings.size());
+            this.strings.add(string);
+            return this.strings.size() - 1;
+        }
+
+        String get(final int number) {
+            return this.strings.get(number);
+        }
+
+    }
+
+}
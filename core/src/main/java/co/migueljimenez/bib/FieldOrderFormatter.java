@@ -0,0 +1,252 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.ConcateValue;
+import org.jbibtex.CrossReferenceValue;
+import org.jbibtex.Key;
+import org.jbibtex.LiteralValue;
+import org.jbibtex.ReferenceValue;
+import org.jbibtex.Value;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Formats entries with their fields in a canonical order, the same as
+ * {@code python-sort/sort.py}: the type is capitalized, known fields come
+ * first in the configured order, the remaining fields follow in their
+ * original order, and every field name is padded to a common column.
+ * Entries are rendered one at a time into the writer, optionally on a pool
+ * of threads, while still being written in input order. String definitions,
+ * preambles and comments are written as {@link BibTeXFormatter} writes them,
+ * and references to string definitions are kept as references.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class FieldOrderFormatter {
+
+    /**
+     * The field order of {@code python-sort/sort.py}.
+     */
+    public static final List<String> DEFAULT_ORDER = Collections.unmodifiableList(
+        Arrays.asList(
+            "author", "title", "type", "journal", "booktitle", "series",
+            "volume", "edition", "number", "pages", "numpages", "year", "doi",
+            "isbn", "issn", "publisher", "editor", "institution", "url",
+            "urldate", "link", "eprint", "keywords", "note", "abstract", "file"
+        )
+    );
+
+    /**
+     * The position of each known field, by lowercase name.
+     */
+    private final Map<String, Integer> positions;
+
+    /**
+     * The width field names are padded to, including the indentation.
+     */
+    private final int column;
+
+    /**
+     * Default constructor. The order can be overridden with a comma-separated
+     * list of fields in the {@code bib.field.order} system property.
+     */
+    public FieldOrderFormatter() {
+        this(
+            System.getProperty("bib.field.order") == null
+                ? FieldOrderFormatter.DEFAULT_ORDER
+                : Arrays.asList(System.getProperty("bib.field.order").split("\\s*,\\s*")),
+            14
+        );
+    }
+
+    /**
+     * Secondary constructor.
+     * @param order The known fields, in the order they are written
+     * @param column The width field names are padded to, including the
+     *  indentation
+     */
+    public FieldOrderFormatter(final List<String> order, final int column) {
+        this.positions = new HashMap<>();
+        for (String field : order)
+            this.positions.putIfAbsent(field.trim().toLowerCase(Locale.ROOT), this.positions.size());
+        this.column = column;
+    }
+
+    /**
+     * Writes the objects in input order, rendering up to {@code workers}
+     * of them concurrently. At most {@code workers * 4} rendered objects are
+     * waiting to be written at any time.
+     * @param objects The objects to write
+     * @param writer The writer, ideally buffered
+     * @param workers The number of threads rendering objects
+     * @throws IOException
+     */
+    public void format(final Stream<? extends BibTeXObject> objects,
+        final Writer writer, final int workers) throws IOException {
+        if (workers <= 1) {
+            try {
+                objects.forEachOrdered(object -> {
+                    try {
+                        writer.write(this.render(object));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(workers);
+        final Deque<Future<String>> pending = new ArrayDeque<>();
+        try {
+            objects.forEachOrdered(object -> {
+                if (pending.size() >= workers * 4)
+                    this.write(pending.poll(), writer);
+                pending.add(executor.submit(() -> this.render(object)));
+            });
+            while (!pending.isEmpty())
+                this.write(pending.poll(), writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Renders an object, followed by a blank line.
+     * @param object The object
+     * @return the formatted object
+     */
+    public String render(final BibTeXObject object) {
+        if (object instanceof BibTeXEntry)
+            return this.render((BibTeXEntry) object);
+        final BibTeXDatabase single = new BibTeXDatabase();
+        single.addObject(object);
+        final StringWriter writer = new StringWriter();
+        try {
+            new BibTeXFormatter().format(single, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.append("\n\n").toString();
+    }
+
+    private String render(final BibTeXEntry entry) {
+        final List<Map.Entry<Key, Value>> known = new ArrayList<>();
+        final List<Map.Entry<Key, Value>> extra = new ArrayList<>();
+        for (Map.Entry<Key, Value> field : entry.getFields().entrySet()) {
+            if (this.positions.containsKey(field.getKey().getValue().toLowerCase(Locale.ROOT)))
+                known.add(field);
+            else
+                extra.add(field);
+        }
+        known.sort(
+            (a, b) -> Integer.compare(
+                this.positions.get(a.getKey().getValue().toLowerCase(Locale.ROOT)),
+                this.positions.get(b.getKey().getValue().toLowerCase(Locale.ROOT))
+            )
+        );
+        final String type = entry.getType().getValue();
+        final StringBuilder builder = new StringBuilder(256);
+        builder.append('@')
+            .append(type.substring(0, 1).toUpperCase(Locale.ROOT))
+            .append(type.substring(1).toLowerCase(Locale.ROOT))
+            .append('{')
+            .append(entry.getKey().getValue())
+            .append(",\n");
+        this.append(builder, known);
+        this.append(builder, extra);
+        return builder.append("}\n\n").toString();
+    }
+
+    private void append(final StringBuilder builder,
+        final List<Map.Entry<Key, Value>> fields) {
+        for (Map.Entry<Key, Value> field : fields) {
+            final int start = builder.length();
+            builder.append("  ")
+                .append(field.getKey().getValue().toLowerCase(Locale.ROOT))
+                .append(' ');
+            while (builder.length() - start < this.column)
+                builder.append(' ');
+            builder.append("= ");
+            FieldOrderFormatter.value(builder, field.getValue());
+            builder.append(",\n");
+        }
+    }
+
+    /**
+     * Appends the value, braced unless it is a reference to a string
+     * definition.
+     */
+    private static void value(final StringBuilder builder, final Value value) {
+        if (value instanceof ReferenceValue) {
+            builder.append(((ReferenceValue) value).getValue().getString());
+        } else if (value instanceof ConcateValue) {
+            FieldOrderFormatter.value(builder, ((ConcateValue) value).getLeft());
+            builder.append(" # ");
+            FieldOrderFormatter.value(builder, ((ConcateValue) value).getRight());
+        } else if (value instanceof CrossReferenceValue) {
+            FieldOrderFormatter.value(builder, ((CrossReferenceValue) value).getValue());
+        } else if (value instanceof LiteralValue) {
+            builder.append('{').append(((LiteralValue) value).getString()).append('}');
+        } else {
+            builder.append('{').append(value.toUserString()).append('}');
+        }
+    }
+
+    private void write(final Future<String> rendered, final Writer writer) {
+        try {
+            writer.write(rendered.get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
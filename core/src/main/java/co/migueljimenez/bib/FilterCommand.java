@@ -0,0 +1,100 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Writes the entries of the input files whose keys are listed in a file, or
+ * cited in a LaTeX project (see {@link CitationScanner}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class FilterCommand implements Command {
+
+    @Override
+    public String name() {
+        return "filter";
+    }
+
+    @Override
+    public String usage() {
+        return "(<keys file> | --project <dir>) <output> <input>... "
+            + "[--workers n]";
+    }
+
+    @Override
+    public String description() {
+        return "Keep the entries listed in a file or cited in a project";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        final String project = Bib.option(args, "--project");
+        final int workers = Bib.option(args, "--workers", 1);
+        final OfflineTasks tasks = new OfflineTasks();
+        if (project != null) {
+            Bib.expect(args, 2, Integer.MAX_VALUE);
+            final Set<String> missing = tasks.bibliography(
+                new File(project),
+                FilterCommand.files(args.subList(1, args.size())),
+                new File(args.get(0)),
+                workers
+            );
+            missing.stream()
+                .sorted()
+                .forEach(key -> System.err.printf("Not found: %s%n", key));
+            return 0;
+        }
+        Bib.expect(args, 3, Integer.MAX_VALUE);
+        final List<String> keys = Files.readAllLines(
+            new File(args.get(0)).toPath(),
+            StandardCharsets.UTF_8
+        ).stream()
+            .map(String::trim)
+            .filter(key -> !key.isEmpty())
+            .collect(Collectors.toList());
+        tasks.write(
+            tasks.filteredEntries(
+                keys,
+                FilterCommand.files(args.subList(2, args.size())),
+                workers
+            ),
+            new File(args.get(1))
+        );
+        return 0;
+    }
+
+    private static Stream<File> files(final List<String> paths) {
+        return paths.stream().map(File::new);
+    }
+
+}
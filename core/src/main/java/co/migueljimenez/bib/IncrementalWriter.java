@@ -0,0 +1,259 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.Key;
+import org.jbibtex.ParseException;
+import org.jbibtex.TokenMgrException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Rewrites only the entries of a bibtex file that changed. The file is
+ * scanned, without parsing it, to find the byte span of each changed entry
+ * (see {@link BibTeXReader#nextKey()}); everything between those spans,
+ * including untouched entries, comments and whitespace, is copied through
+ * byte for byte with channel transfers, and only the changed entries are
+ * formatted. Entries that are not in the file are appended. The result is
+ * written to a temporary file that atomically replaces the original, so
+ * both the I/O and the diff grow with the number of changes rather than
+ * with the size of the file.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class IncrementalWriter {
+
+    /**
+     * Formats a changed object.
+     */
+    private final Function<BibTeXObject, String> renderer;
+
+    /**
+     * Default constructor. Changed entries are formatted like
+     * {@link OfflineTasks#write(BibTeXDatabase, File)} does.
+     */
+    public IncrementalWriter() {
+        this(IncrementalWriter::format);
+    }
+
+    /**
+     * Secondary constructor.
+     * @param renderer Formats a changed object, e.g.,
+     *  {@link FieldOrderFormatter#render(BibTeXObject)}
+     */
+    public IncrementalWriter(final Function<BibTeXObject, String> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * Replaces the changed entries in the file, in place.
+     * @param bibFile The bibtex file, uncompressed
+     * @param changed The changed entries
+     * @return the number of entries replaced in the file; the rest were
+     *  appended
+     * @throws IOException
+     */
+    public int rewrite(final File bibFile,
+        final Collection<? extends BibTeXEntry> changed) throws IOException {
+        if (changed.isEmpty())
+            return 0;
+        if (bibFile.getName().endsWith(".gz"))
+            throw new IOException(
+                String.format("Cannot rewrite %s in place", bibFile)
+            );
+        final Map<Key, BibTeXEntry> remaining = new LinkedHashMap<>();
+        for (BibTeXEntry entry : changed)
+            remaining.put(entry.getKey(), entry);
+        final List<Splice> splices = this.splices(bibFile, remaining);
+        final File temporary = File.createTempFile(
+            bibFile.getName(),
+            ".tmp",
+            bibFile.getAbsoluteFile().getParentFile()
+        );
+        try {
+            try (FileChannel input = FileChannel.open(
+                    bibFile.toPath(),
+                    StandardOpenOption.READ
+                );
+                FileChannel output = FileChannel.open(
+                    temporary.toPath(),
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+                )) {
+                long position = 0;
+                for (Splice splice : splices) {
+                    IncrementalWriter.transfer(input, position, splice.start, output);
+                    this.write(splice.entry, output);
+                    position = splice.end;
+                }
+                IncrementalWriter.transfer(input, position, input.size(), output);
+                String separator = IncrementalWriter.separator(input);
+                for (BibTeXEntry entry : remaining.values()) {
+                    IncrementalWriter.write(separator, output);
+                    this.write(entry, output);
+                    separator = "\n\n";
+                }
+                if (!remaining.isEmpty())
+                    IncrementalWriter.write("\n", output);
+                output.force(false);
+            }
+            Files.move(
+                temporary.toPath(),
+                bibFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+        return splices.size();
+    }
+
+    /**
+     * Finds the span of each changed entry in the file, in file order.
+     * Found entries are removed from {@code remaining}. Keys are compared
+     * ignoring case, like {@link Key} does. If a key appears more than
+     * once, the first entry is replaced, as it is the one that parsing
+     * keeps; later duplicates are copied through untouched.
+     */
+    private List<Splice> splices(final File bibFile,
+        final Map<Key, BibTeXEntry> remaining) throws IOException {
+        final List<Splice> splices = new ArrayList<>();
+        try (BibTeXReader reader = new BibTeXReader(BibTeXReader.open(bibFile))) {
+            String key;
+            while (!remaining.isEmpty() && (key = reader.nextKey()) != null) {
+                final BibTeXEntry entry = key.isEmpty()
+                    ? null
+                    : remaining.remove(new Key(key));
+                if (entry != null)
+                    splices.add(
+                        new Splice(reader.getStart(), reader.getEnd(), entry)
+                    );
+            }
+        } catch (TokenMgrException | ParseException e) {
+            throw new IOException(e);
+        }
+        return splices;
+    }
+
+    /**
+     * The newlines needed after the end of the file for an appended entry
+     * to be preceded by a blank line.
+     */
+    private static String separator(final FileChannel input)
+        throws IOException {
+        final ByteBuffer tail = ByteBuffer.allocate(2);
+        final long size = input.size();
+        if (size == 0)
+            return "";
+        input.read(tail, Math.max(0, size - 2));
+        int newlines = 0;
+        for (int i = tail.position() - 1; i >= 0 && tail.get(i) == '\n'; i--)
+            newlines++;
+        return newlines >= 2 ? "" : newlines == 1 ? "\n" : "\n\n";
+    }
+
+    private void write(final BibTeXObject object, final FileChannel output)
+        throws IOException {
+        IncrementalWriter.write(this.renderer.apply(object), output);
+    }
+
+    private static void write(final String text, final FileChannel output)
+        throws IOException {
+        final ByteBuffer buffer =
+            ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            output.write(buffer);
+    }
+
+    /**
+     * Copies the bytes in [from, to) of the input to the end of the output.
+     */
+    private static void transfer(final FileChannel input, final long from,
+        final long to, final FileChannel output) throws IOException {
+        long position = from;
+        while (position < to)
+            position += input.transferTo(position, to - position, output);
+    }
+
+    private static String format(final BibTeXObject object) {
+        final BibTeXDatabase single = new BibTeXDatabase();
+        single.addObject(object);
+        final StringWriter writer = new StringWriter();
+        try {
+            new BibTeXFormatter().format(single, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * A changed entry, and the bytes it replaces.
+     */
+    private static final class Splice {
+
+        /**
+         * The offset of the first byte replaced.
+         */
+        private final long start;
+
+        /**
+         * The offset after the last byte replaced.
+         */
+        private final long end;
+
+        /**
+         * The changed entry.
+         */
+        private final BibTeXEntry entry;
+
+        Splice(final long start, final long end, final BibTeXEntry entry) {
+            this.start = start;
+            this.end = end;
+            this.entry = entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Indexes a JSON-lines metadata dump by DOI (see {@link DoiDump}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class IndexDumpCommand implements Command {
+
+    @Override
+    public String name() {
+        return "index-dump";
+    }
+
+    @Override
+    public String usage() {
+        return "<dump>";
+    }
+
+    @Override
+    public String description() {
+        return "Index a JSON-lines metadata dump by DOI";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        Bib.expect(args, 1, 1);
+        IndexDumpCommand.index(new DoiDump(new File(args.get(0))), true);
+        return 0;
+    }
+
+    /**
+     * Indexes the dump, unless it is already indexed and {@code force} is
+     * false.
+     * @param dump The dump
+     * @param force Whether to rebuild an up to date index
+     * @return the dump
+     * @throws Exception If the dump can't be indexed
+     */
+    public static DoiDump index(final DoiDump dump, final boolean force)
+        throws Exception {
+        if (force || !dump.indexed()) {
+            final long start = System.nanoTime();
+            final long records = dump.index();
+            System.out.println(
+                String.format(
+                    "%d records indexed in %d ms",
+                    records,
+                    (System.nanoTime() - start) / 1_000_000
+                )
+            );
+        }
+        return dump;
+    }
+
+}
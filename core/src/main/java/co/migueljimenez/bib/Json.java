@@ -0,0 +1,389 @@
+package co.migueljimenez.bib;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A minimal JSON parser working on UTF-8 bytes, so records can be read
+ * straight from a dump without decoding the whole line first. Objects are
+ * parsed as maps, arrays as lists, integers as longs and other numbers as
+ * doubles. {@link #field(byte[], int, int, String)} reads one top-level
+ * string without building the rest of the object.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Json {
+
+    /**
+     * The UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The bytes being parsed.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The end of the bytes being parsed, exclusive.
+     */
+    private final int end;
+
+    /**
+     * The current position.
+     */
+    private int position;
+
+    private Json(final byte[] bytes, final int from, final int to) {
+        this.bytes = bytes;
+        this.position = from;
+        this.end = to;
+    }
+
+    /**
+     * Parses a JSON value.
+     * @param bytes The UTF-8 bytes
+     * @param from The first byte of the value
+     * @param to The end of the value, exclusive
+     * @return the value
+     * @throws IllegalArgumentException If the value is malformed
+     */
+    public static Object parse(final byte[] bytes, final int from,
+        final int to) {
+        final Json json = new Json(bytes, from, to);
+        final Object value = json.value();
+        json.whitespace();
+        if (json.position < json.end)
+            throw json.error("Unexpected content");
+        return value;
+    }
+
+    /**
+     * Parses a JSON value.
+     * @param text The value
+     * @return the value
+     * @throws IllegalArgumentException If the value is malformed
+     */
+    public static Object parse(final String text) {
+        final byte[] bytes = text.getBytes(Json.UTF8);
+        return Json.parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Reads a string field of a JSON object, skipping the other fields.
+     * @param bytes The UTF-8 bytes
+     * @param from The first byte of the object
+     * @param to The end of the object, exclusive
+     * @param name The field name
+     * @return the value of the field, or null if the field is missing or it
+     *  is not a string
+     * @throws IllegalArgumentException If the object is malformed
+     */
+    public static String field(final byte[] bytes, final int from,
+        final int to, final String name) {
+        final Json json = new Json(bytes, from, to);
+        final byte[] key = name.getBytes(Json.UTF8);
+        json.expect('{');
+        if (json.consume('}'))
+            return null;
+        do {
+            json.whitespace();
+            final boolean matches = json.key(key);
+            json.expect(':');
+            json.whitespace();
+            if (matches && json.peek() == '"')
+                return json.string();
+            json.skip();
+        } while (json.consume(','));
+        json.expect('}');
+        return null;
+    }
+
+    private Object value() {
+        this.whitespace();
+        switch (this.peek()) {
+            case '{':
+                return this.object();
+            case '[':
+                return this.array();
+            case '"':
+                return this.string();
+            case 't':
+                this.literal("true");
+                return Boolean.TRUE;
+            case 'f':
+                this.literal("false");
+                return Boolean.FALSE;
+            case 'n':
+                this.literal("null");
+                return null;
+            default:
+                return this.number();
+        }
+    }
+
+    private Map<String, Object> object() {
+        final Map<String, Object> object = new LinkedHashMap<>();
+        this.expect('{');
+        if (this.consume('}'))
+            return object;
+        do {
+            this.whitespace();
+            final String key = this.string();
+            this.expect(':');
+            object.put(key, this.value());
+        } while (this.consume(','));
+        this.expect('}');
+        return object;
+    }
+
+    private List<Object> array() {
+        final List<Object> array = new ArrayList<>();
+        this.expect('[');
+        if (this.consume(']'))
+            return array;
+        do {
+            array.add(this.value());
+        } while (this.consume(','));
+        this.expect(']');
+        return array;
+    }
+
+    private String string() {
+        if (this.peek() != '"')
+            throw this.error("Expected a string");
+        int start = ++this.position;
+        StringBuilder builder = null;
+        while (this.position < this.end) {
+            final byte current = this.bytes[this.position];
+            if (current == '"') {
+                final String tail = new String(
+                    this.bytes,
+                    start,
+                    this.position++ - start,
+                    Json.UTF8
+                );
+                return builder == null
+                    ? tail
+                    : builder.append(tail).toString();
+            }
+            if (current == '\\') {
+                if (builder == null)
+                    builder = new StringBuilder();
+                builder.append(
+                    new String(this.bytes, start, this.position - start, Json.UTF8)
+                );
+                this.position++;
+                builder.append(this.escape());
+                start = this.position;
+            } else {
+                this.position++;
+            }
+        }
+        throw this.error("Unterminated string");
+    }
+
+    private char escape() {
+        if (this.position >= this.end)
+            throw this.error("Unterminated escape");
+        final byte current = this.bytes[this.position++];
+        switch (current) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) current;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (this.position + 4 > this.end)
+                    throw this.error("Unterminated escape");
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(
+                        this.bytes[this.position++],
+                        16
+                    );
+                    if (digit < 0)
+                        throw this.error("Malformed escape");
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw this.error("Malformed escape");
+        }
+    }
+
+    private Number number() {
+        final int start = this.position;
+        boolean integral = true;
+        while (this.position < this.end) {
+            final byte current = this.bytes[this.position];
+            if (current == '.' || current == 'e' || current == 'E')
+                integral = false;
+            else if (current != '-' && current != '+'
+                && (current < '0' || current > '9'))
+                break;
+            this.position++;
+        }
+        if (start == this.position)
+            throw this.error("Unexpected character");
+        final String text = new String(
+            this.bytes,
+            start,
+            this.position - start,
+            Json.UTF8
+        );
+        try {
+            if (integral && this.position - start < 19)
+                return Long.parseLong(text);
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw this.error("Malformed number");
+        }
+    }
+
+    private void literal(final String literal) {
+        for (int i = 0; i < literal.length(); i++)
+            if (this.position >= this.end
+                || this.bytes[this.position++] != literal.charAt(i))
+                throw this.error("Unexpected literal");
+    }
+
+    /**
+     * Reads a key, comparing it to the expected one without decoding it
+     * unless it has escapes.
+     */
+    private boolean key(final byte[] expected) {
+        if (this.peek() != '"')
+            throw this.error("Expected a string");
+        final int start = this.position + 1;
+        int index = start;
+        while (index < this.end && this.bytes[index] != '"'
+            && this.bytes[index] != '\\')
+            index++;
+        if (index < this.end && this.bytes[index] == '"') {
+            this.position = index + 1;
+            if (index - start != expected.length)
+                return false;
+            for (int i = 0; i < expected.length; i++)
+                if (this.bytes[start + i] != expected[i])
+                    return false;
+            return true;
+        }
+        return this.string().equals(new String(expected, Json.UTF8));
+    }
+
+    /**
+     * Skips a value without building it.
+     */
+    private void skip() {
+        this.whitespace();
+        final byte first = this.peek();
+        if (first == '"') {
+            this.skipString();
+            return;
+        }
+        if (first != '{' && first != '[') {
+            this.value();
+            return;
+        }
+        int depth = 0;
+        while (this.position < this.end) {
+            final byte current = this.bytes[this.position];
+            if (current == '"') {
+                this.skipString();
+                continue;
+            }
+            this.position++;
+            if (current == '{' || current == '[')
+                depth++;
+            else if ((current == '}' || current == ']') && --depth == 0)
+                return;
+        }
+        throw this.error("Unterminated value");
+    }
+
+    private void skipString() {
+        this.position++;
+        while (this.position < this.end) {
+            final byte current = this.bytes[this.position++];
+            if (current == '"')
+                return;
+            if (current == '\\')
+                this.position++;
+        }
+        throw this.error("Unterminated string");
+    }
+
+    private void whitespace() {
+        while (this.position < this.end) {
+            final byte current = this.bytes[this.position];
+            if (current != ' ' && current != '\t' && current != '\n'
+                && current != '\r')
+                return;
+            this.position++;
+        }
+    }
+
+    private byte peek() {
+        if (this.position >= this.end)
+            throw this.error("Unexpected end");
+        return this.bytes[this.position];
+    }
+
+    private boolean consume(final char expected) {
+        this.whitespace();
+        if (this.position < this.end && this.bytes[this.position] == expected) {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char expected) {
+        if (!this.consume(expected))
+            throw this.error(String.format("Expected '%s'", expected));
+    }
+
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(
+            String.format("%s at byte %d", message, this.position)
+        );
+    }
+
+}
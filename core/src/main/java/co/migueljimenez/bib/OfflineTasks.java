@@ -0,0 +1,456 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXParser;
+import org.jbibtex.Key;
+import org.jbibtex.ObjectResolutionException;
+import org.jbibtex.ParseException;
+import org.jbibtex.TokenMgrException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * TODO
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2017-08-03
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class OfflineTasks {
+
+    /**
+     * The cache of parsed databases.
+     */
+    private final DatabaseCache cache;
+
+    /**
+     * Default constructor.
+     */
+    public OfflineTasks() {
+        this(new DatabaseCache(DatabaseCache.defaultDirectory()));
+    }
+
+    /**
+     * Secondary constructor.
+     * @param cache The cache of parsed databases
+     */
+    public OfflineTasks(final DatabaseCache cache) {
+        this.cache = cache;
+    }
+
+    public BibTeXDatabase filteredEntries(final List<String> keys,
+        Stream<File> inputs) {
+        return this.filteredEntries(keys, inputs, 1);
+    }
+
+    /**
+     * Reads the input files on a pool of {@code workers} threads and keeps
+     * only the entries whose key is in {@code keys}. Each file is streamed
+     * one entry at a time, so only the matching entries are held in memory.
+     * Matches are merged in input order, so duplicated keys across files end
+     * up exactly as in the sequential version.
+     * @param keys The keys to keep
+     * @param inputs The bibtex files
+     * @param workers The number of files parsed in parallel
+     * @return a database containing the matching entries
+     */
+    public BibTeXDatabase filteredEntries(final Collection<String> keys,
+        final Stream<File> inputs, final int workers) {
+        final Set<String> lookup = new HashSet<>(keys);
+        final ExecutorService executor =
+            Executors.newFixedThreadPool(workers);
+        try {
+            final List<Future<List<BibTeXEntry>>> matches = inputs
+                .map(file -> executor.submit(() -> {
+                    System.out.println(file);
+                    try (Stream<BibTeXEntry> entries =
+                        BibTeXReader.entries(file)) {
+                        return this.matchingEntries(lookup, entries);
+                    }
+                }))
+                .collect(Collectors.toList());
+            final BibTeXDatabase filtered = new BibTeXDatabase();
+            for (Future<List<BibTeXEntry>> match : matches)
+                match.get().forEach(filtered::addObject);
+            return filtered;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public BibTeXDatabase filteredEntries(final List<String> keys,
+        final BibTeXDatabase... inputs) {
+        final Set<String> lookup = new HashSet<>(keys);
+        BibTeXDatabase filtered = new BibTeXDatabase();
+        Stream.of(inputs)
+            .flatMap(
+                database -> this.matchingEntries(
+                    lookup,
+                    database.getEntries().values().stream()
+                ).stream()
+            )
+            .forEach(filtered::addObject);
+        return filtered;
+    }
+
+    /**
+     * Keeps the entries of the stores whose key is in {@code keys}, without
+     * rebuilding the others.
+     * @param keys The keys to keep
+     * @param inputs The stores
+     * @return a database containing the matching entries
+     */
+    public BibTeXDatabase filteredEntries(final Collection<String> keys,
+        final EntryStore... inputs) {
+        final Set<String> lookup = new HashSet<>(keys);
+        final BibTeXDatabase filtered = new BibTeXDatabase();
+        Stream.of(inputs)
+            .flatMap(store -> store.entries(lookup))
+            .forEachOrdered(filtered::addObject);
+        return filtered;
+    }
+
+    /**
+     * Writes the bibliography of a LaTeX project: the entries of the input
+     * files cited in the project (see {@link CitationScanner}).
+     * @param project The root directory of the project
+     * @param inputs The bibtex files
+     * @param outputFile The output file
+     * @param workers The number of threads scanning the project and parsing
+     *  the bibtex files
+     * @return the cited keys that are not in the bibtex files
+     * @throws IOException
+     */
+    public Set<String> bibliography(final File project,
+        final Stream<File> inputs, final File outputFile, final int workers)
+        throws IOException {
+        final Set<String> keys =
+            new CitationScanner(workers).scan(project.toPath());
+        final BibTeXDatabase bibliography =
+            this.filteredEntries(keys, inputs, workers);
+        this.write(bibliography, outputFile);
+        final Set<String> missing = new HashSet<>(keys);
+        bibliography.getEntries().keySet()
+            .forEach(key -> missing.remove(key.getValue()));
+        System.out.println(
+            String.format(
+                "%d keys cited, %d not found",
+                keys.size(),
+                missing.size()
+            )
+        );
+        return missing;
+    }
+
+    private List<BibTeXEntry> matchingEntries(final Set<String> keys,
+        final Stream<BibTeXEntry> entries) {
+        return entries
+            .filter(entry -> keys.contains(entry.getKey().toString()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Merges the files without duplicates (see {@link Deduplicator}), and
+     * reports the merged entries in {@code <output>.merges.tsv}.
+     * @param outputFile The deduplicated bibtex file
+     * @param inputs The bibtex files, in order of preference
+     * @return the deduplicated database and the merges
+     * @throws ObjectResolutionException
+     * @throws TokenMgrException
+     * @throws ParseException
+     * @throws IOException
+     */
+    public Deduplicator.Result deduplicate(final File outputFile,
+        final File... inputs) throws ObjectResolutionException,
+            TokenMgrException, ParseException, IOException {
+        final BibTeXDatabase[] databases = new BibTeXDatabase[inputs.length];
+        for (int i = 0; i < inputs.length; i++)
+            databases[i] = this.database(inputs[i]);
+        final Deduplicator.Result result =
+            new Deduplicator().deduplicate(databases);
+        this.write(result.getDatabase(), outputFile);
+        final File report = new File(outputFile.getPath() + ".merges.tsv");
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(report),
+                    Charset.forName("UTF-8")
+                )
+            )) {
+            result.report(writer);
+        }
+        System.out.println(
+            String.format(
+                "%d duplicates merged, see %s",
+                result.getMerges().size(),
+                report.getAbsolutePath()
+            )
+        );
+        return result;
+    }
+
+    public BibTeXDatabase database(final File bibFile)
+        throws ObjectResolutionException, TokenMgrException,
+            ParseException, IOException {
+        final BibTeXDatabase cached = this.cache.load(bibFile);
+        if (cached != null)
+            return cached;
+        final long modified = bibFile.lastModified();
+        final BibTeXDatabase database = new BibTeXParser().parse(
+            new InputStreamReader(
+                BibTeXReader.open(bibFile),
+                Charset.forName("UTF-8")
+            )
+        );
+        this.cache.store(bibFile, modified, database);
+        return database;
+    }
+
+    public void print(final BibTeXDatabase database, final Key key) {
+        final AtomicInteger count = new AtomicInteger();
+        database.getEntries()
+        .entrySet()
+        .stream()
+        .forEach(
+            entry -> {
+                if (entry.getValue().getField(key) == null)
+                    return;
+                System.out.println(
+                    String.format(
+                        "%d. %s (%s)",
+                        count.incrementAndGet(),
+                        entry.getValue().getField(key).toUserString(),
+                        entry.getKey()
+                    )
+                );
+            }
+        );
+    }
+
+    public void print(final EntryStore store, final Key key) {
+        final AtomicInteger count = new AtomicInteger();
+        store.entries()
+            .filter(entry -> entry.getField(key) != null)
+            .forEachOrdered(
+                entry -> System.out.println(
+                    String.format(
+                        "%d. %s (%s)",
+                        count.incrementAndGet(),
+                        entry.getField(key).toUserString(),
+                        entry.getKey()
+                    )
+                )
+            );
+    }
+
+    /**
+     * Prints the given field of every entry in the file, reading one entry
+     * at a time.
+     * @param bibFile The bibtex file
+     * @param key The field to print
+     * @throws IOException
+     */
+    public void print(final File bibFile, final Key key) throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        try (Stream<BibTeXEntry> entries = BibTeXReader.entries(bibFile)) {
+            entries
+                .filter(entry -> entry.getField(key) != null)
+                .forEach(
+                    entry -> System.out.println(
+                        String.format(
+                            "%d. %s (%s)",
+                            count.incrementAndGet(),
+                            entry.getField(key).toUserString(),
+                            entry.getKey()
+                        )
+                    )
+                );
+        }
+    }
+
+    /**
+     * Formats the objects as they are consumed from the stream, so the whole
+     * database never has to be in memory.
+     * @param objects The objects to write
+     * @param outputFile The output file
+     * @throws IOException
+     */
+    public void write(final Stream<? extends BibTeXObject> objects,
+        final File outputFile) throws IOException {
+        System.out.println(
+            String.format(
+                "Storing data to %s",
+                outputFile.getAbsoluteFile()
+            )
+        );
+        final BibTeXFormatter formatter = new BibTeXFormatter();
+        final AtomicBoolean first = new AtomicBoolean(true);
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(outputFile),
+                    Charset.forName("UTF-8")
+                )
+            )) {
+            objects.forEachOrdered(object -> {
+                final BibTeXDatabase single = new BibTeXDatabase();
+                single.addObject(object);
+                try {
+                    if (!first.getAndSet(false))
+                        writer.write("\n\n");
+                    formatter.format(single, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    public void write(final BibTeXDatabase database,
+        final File outputFile) throws IOException {
+        this.write(database.getObjects().stream(), outputFile);
+    }
+
+    public void write(final EntryStore store, final File outputFile)
+        throws IOException {
+        this.write(store.objects(), outputFile);
+    }
+
+    /**
+     * Replaces the changed entries of the file in place, leaving the rest of
+     * the file untouched (see {@link IncrementalWriter}).
+     * @param bibFile The bibtex file
+     * @param changed The changed entries
+     * @throws IOException
+     */
+    public void update(final File bibFile,
+        final Collection<? extends BibTeXEntry> changed) throws IOException {
+        final int replaced = new IncrementalWriter().rewrite(bibFile, changed);
+        System.out.println(
+            String.format(
+                "%d entries updated and %d added in %s",
+                replaced,
+                changed.size() - replaced,
+                bibFile.getAbsoluteFile()
+            )
+        );
+    }
+
+    /**
+     * Fills the missing abstracts and other fields of the file's entries
+     * from a local metadata dump (see {@link DoiDump}), rewriting only the
+     * entries that changed.
+     * @param bibFile The bibtex file
+     * @param dump The indexed dump
+     * @return the entries that changed
+     * @throws ObjectResolutionException
+     * @throws TokenMgrException
+     * @throws ParseException
+     * @throws IOException
+     */
+    public List<BibTeXEntry> fill(final File bibFile, final DoiDump dump)
+        throws ObjectResolutionException, TokenMgrException, ParseException,
+            IOException {
+        final List<BibTeXEntry> changed = dump.fill(
+            this.database(bibFile).getEntries().values()
+        );
+        System.out.println(
+            String.format("%d entries completed from the dump", changed.size())
+        );
+        if (!changed.isEmpty())
+            this.update(bibFile, changed);
+        return changed;
+    }
+
+    /**
+     * Rewrites the file with the fields of every entry in canonical order
+     * (see {@link FieldOrderFormatter}), reading and writing one entry at a
+     * time. The output is written to a temporary file first, so an
+     * interrupted run never leaves a truncated bibliography behind.
+     * @param inputFile The bibtex file
+     * @param outputFile The output file, possibly the input file itself
+     * @param workers The number of threads rendering entries
+     * @throws IOException
+     */
+    public void normalize(final File inputFile, final File outputFile,
+        final int workers) throws IOException {
+        System.out.println(
+            String.format(
+                "Storing data to %s",
+                outputFile.getAbsoluteFile()
+            )
+        );
+        final File temporary = File.createTempFile(
+            outputFile.getName(),
+            ".tmp",
+            outputFile.getAbsoluteFile().getParentFile()
+        );
+        try {
+            try (Stream<BibTeXObject> objects = BibTeXReader.objects(inputFile);
+                Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(
+                        new FileOutputStream(temporary),
+                        Charset.forName("UTF-8")
+                    ),
+                    1 << 16
+                )) {
+                new FieldOrderFormatter().format(objects, writer, workers);
+            }
+            Files.move(
+                temporary.toPath(),
+                outputFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXString;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Parses bibtex files one object at a time and reports what they contain,
+ * e.g., to check a file before running other commands on it.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class ParseCommand implements Command {
+
+    @Override
+    public String name() {
+        return "parse";
+    }
+
+    @Override
+    public String usage() {
+        return "<input>...";
+    }
+
+    @Override
+    public String description() {
+        return "Parse bibtex files and count their entries";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        Bib.expect(args, 1, Integer.MAX_VALUE);
+        for (String arg : args) {
+            final long start = System.nanoTime();
+            int entries = 0;
+            int strings = 0;
+            int others = 0;
+            try (Stream<BibTeXObject> objects =
+                BibTeXReader.objects(new File(arg))) {
+                for (BibTeXObject object : (Iterable<BibTeXObject>)
+                    objects::iterator) {
+                    if (object instanceof BibTeXEntry)
+                        entries++;
+                    else if (object instanceof BibTeXString)
+                        strings++;
+                    else
+                        others++;
+                }
+            }
+            System.out.println(
+                String.format(
+                    "%s: %d entries, %d strings, %d other objects in %d ms",
+                    arg,
+                    entries,
+                    strings,
+                    others,
+                    (System.nanoTime() - start) / 1_000_000
+                )
+            );
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,380 @@
+package co.migueljimenez.bib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A chain of stages connected by bounded queues. Each stage has its own
+ * number of workers, and a stage that is slower than the previous one makes
+ * it wait once the queue between them is full, so memory stays bounded no
+ * matter how many items flow through. Stages that block on I/O run on
+ * virtual threads when the JVM has them (Java 21 or later), and on platform
+ * threads otherwise; either way, a stage never runs more than its number of
+ * workers at a time.
+ * <p>
+ * A stage returns null to drop an item, e.g., because it failed; stages
+ * report their own failures.
+ * @param <T> The type of the items leaving the last stage
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Pipeline<T> {
+
+    /**
+     * Follows the last item of a queue.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * Whether the JVM has virtual threads.
+     */
+    private static final boolean VIRTUAL = Pipeline.hasVirtualThreads();
+
+    /**
+     * The items leaving the last stage.
+     */
+    private final BlockingQueue<Object> queue;
+
+    /**
+     * The capacity of the queues.
+     */
+    private final int capacity;
+
+    /**
+     * The threads of every stage so far.
+     */
+    private final List<Thread> threads;
+
+    private Pipeline(final BlockingQueue<Object> queue, final int capacity,
+        final List<Thread> threads) {
+        this.queue = queue;
+        this.capacity = capacity;
+        this.threads = threads;
+    }
+
+    /**
+     * Starts a pipeline, feeding it the items on a separate thread.
+     * @param items The items
+     * @param capacity The capacity of each queue
+     * @param <T> The type of the items
+     * @return the pipeline
+     */
+    public static <T> Pipeline<T> from(final Iterable<T> items,
+        final int capacity) {
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(capacity);
+        final List<Thread> threads = new ArrayList<>();
+        final Thread feeder = new Thread(() -> {
+            try {
+                for (T item : items)
+                    queue.put(item);
+                queue.put(Pipeline.END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "pipeline-source");
+        feeder.setDaemon(true);
+        feeder.start();
+        threads.add(feeder);
+        return new Pipeline<>(queue, capacity, threads);
+    }
+
+    /**
+     * Adds a stage.
+     * @param name The name of the stage, used to name its threads
+     * @param workers The number of items processed at a time
+     * @param blocking Whether the stage blocks on I/O
+     * @param stage The stage
+     * @param <R> The type of the items leaving the stage
+     * @return the pipeline, ending in the new stage
+     */
+    public <R> Pipeline<R> then(final String name, final int workers,
+        final boolean blocking, final Stage<? super T, ? extends R> stage) {
+        final BlockingQueue<Object> input = this.queue;
+        final BlockingQueue<Object> output = new ArrayBlockingQueue<>(this.capacity);
+        final AtomicInteger running = new AtomicInteger(workers);
+        final ThreadFactory factory = Pipeline.factory(name, blocking);
+        for (int i = 0; i < workers; i++) {
+            final Thread thread = factory.newThread(() -> {
+                try {
+                    while (true) {
+                        final Object item = input.take();
+                        if (item == Pipeline.END) {
+                            // Let the other workers of this stage see it
+                            input.put(Pipeline.END);
+                            if (running.decrementAndGet() == 0)
+                                output.put(Pipeline.END);
+                            return;
+                        }
+                        final R result = Pipeline.apply(stage, item);
+                        if (result != null)
+                            output.put(result);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            this.threads.add(thread);
+        }
+        return new Pipeline<>(output, this.capacity, this.threads);
+    }
+
+    /**
+     * Adds a stage whose workers take their items from a dispatcher, in the
+     * dispatcher's order rather than in arrival order. Items are moved into
+     * the dispatcher as soon as the previous stage hands them over, so it
+     * can choose among every item waiting for the stage, e.g., to skip
+     * items whose host is busy. Like a queue, the dispatcher holds up to
+     * the pipeline's capacity of items from the previous stage, which waits
+     * once it is full; items handed back by a worker are not counted again.
+     * @param name The name of the stage, used to name its threads
+     * @param workers The number of items processed at a time
+     * @param blocking Whether the stage blocks on I/O
+     * @param dispatcher Hands the items to the workers
+     * @param stage The stage
+     * @param <R> The type of the items leaving the stage
+     * @return the pipeline, ending in the new stage
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Pipeline<R> then(final String name, final int workers,
+        final boolean blocking, final Dispatcher<T> dispatcher,
+        final Stage<? super T, ? extends R> stage) {
+        final BlockingQueue<Object> input = this.queue;
+        final BlockingQueue<Object> output = new ArrayBlockingQueue<>(this.capacity);
+        final AtomicInteger running = new AtomicInteger(workers);
+        final Semaphore slots = new Semaphore(this.capacity);
+        final Set<Object> waiting = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<>())
+        );
+        final Thread relay = new Thread(() -> {
+            try {
+                while (true) {
+                    final Object item = input.take();
+                    if (item == Pipeline.END)
+                        break;
+                    slots.acquire();
+                    waiting.add(item);
+                    dispatcher.add((T) item);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                dispatcher.close();
+            }
+        }, String.format("%s-dispatch", name));
+        relay.setDaemon(true);
+        relay.start();
+        this.threads.add(relay);
+        final ThreadFactory factory = Pipeline.factory(name, blocking);
+        for (int i = 0; i < workers; i++) {
+            final Thread thread = factory.newThread(() -> {
+                try {
+                    while (true) {
+                        final T item = dispatcher.take();
+                        if (item == null) {
+                            if (running.decrementAndGet() == 0)
+                                output.put(Pipeline.END);
+                            return;
+                        }
+                        if (waiting.remove(item))
+                            slots.release();
+                        final R result = Pipeline.apply(stage, item);
+                        dispatcher.done(item);
+                        if (result != null)
+                            output.put(result);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            this.threads.add(thread);
+        }
+        return new Pipeline<>(output, this.capacity, this.threads);
+    }
+
+    /**
+     * Consumes the items leaving the last stage in batches, on the calling
+     * thread, and waits for every stage to finish. A batch is handed over
+     * when it is full, or when no item arrived for a second, so the output
+     * never lags far behind.
+     * @param size The maximum size of a batch
+     * @param sink Consumes each batch
+     * @throws InterruptedException
+     */
+    @SuppressWarnings("unchecked")
+    public void drain(final int size, final Consumer<List<T>> sink)
+        throws InterruptedException {
+        List<T> batch = new ArrayList<>(size);
+        while (true) {
+            final Object item = this.queue.poll(1, TimeUnit.SECONDS);
+            if (item == Pipeline.END)
+                break;
+            if (item != null)
+                batch.add((T) item);
+            if (batch.size() >= size || item == null && !batch.isEmpty()) {
+                sink.accept(batch);
+                batch = new ArrayList<>(size);
+            }
+        }
+        if (!batch.isEmpty())
+            sink.accept(batch);
+        for (Thread thread : this.threads)
+            thread.join();
+    }
+
+    /**
+     * Whether I/O stages run on virtual threads.
+     * @return true on Java 21 or later
+     */
+    public static boolean virtual() {
+        return Pipeline.VIRTUAL;
+    }
+
+    /**
+     * Applies a stage to an item. Anything the stage throws, errors
+     * included, only drops the item: a worker that died would never pass
+     * the end of the input on, and {@link #drain(int, Consumer)} would wait
+     * forever.
+     */
+    @SuppressWarnings("unchecked")
+    private static <I, R> R apply(final Stage<I, R> stage, final Object item) {
+        try {
+            return stage.apply((I) item);
+        } catch (Throwable e) {
+            System.err.printf("A pipeline stage failed on %s\n", item);
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static ThreadFactory factory(final String name,
+        final boolean blocking) {
+        final AtomicInteger count = new AtomicInteger();
+        if (blocking && Pipeline.VIRTUAL) {
+            try {
+                return Pipeline.virtualFactory(name);
+            } catch (ReflectiveOperationException e) {
+                // Fall back to platform threads
+            }
+        }
+        return runnable -> {
+            final Thread thread = new Thread(
+                runnable,
+                String.format("%s-%d", name, count.getAndIncrement())
+            );
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean hasVirtualThreads() {
+        try {
+            Pipeline.virtualFactory("probe");
+            return true;
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(name + "-", 0).factory()}. The build
+     * targets Java 8 and must compile on JDK 17, which cannot compile
+     * against the Java 21 API, so virtual threads are reached through
+     * reflection when the runtime has them.
+     */
+    private static ThreadFactory virtualFactory(final String name)
+        throws ReflectiveOperationException {
+        final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+        Object virtual = Thread.class.getMethod("ofVirtual").invoke(null);
+        virtual = builder.getMethod("name", String.class, long.class)
+            .invoke(virtual, String.format("%s-", name), 0L);
+        return (ThreadFactory) builder.getMethod("factory").invoke(virtual);
+    }
+
+    /**
+     * Decides which waiting item a stage processes next.
+     * @param <I> The type of the items entering the stage
+     */
+    public interface Dispatcher<I> {
+
+        /**
+         * Adds an item that entered the stage, or that a worker hands back
+         * to be processed again.
+         * @param item The item
+         */
+        void add(I item);
+
+        /**
+         * Reports that no more items will be added.
+         */
+        void close();
+
+        /**
+         * Waits for the next item to process.
+         * @return the item, or null once the dispatcher is closed and has
+         *  no items left, nor any in progress that could be added again
+         * @throws InterruptedException
+         */
+        I take() throws InterruptedException;
+
+        /**
+         * Reports that a worker finished with an item, whatever the result.
+         * @param item The item
+         */
+        void done(I item);
+
+    }
+
+    /**
+     * A step of the pipeline.
+     * @param <I> The type of the items entering the stage
+     * @param <R> The type of the items leaving the stage
+     */
+    public interface Stage<I, R> {
+
+        /**
+         * Processes an item.
+         * @param item The item
+         * @return the result, or null to drop the item
+         * @throws Exception
+         */
+        R apply(I item) throws Exception;
+
+    }
+
+}
@@ -0,0 +1,63 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+import org.jbibtex.Key;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Prints a field of every entry in a bibtex file.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class PrintCommand implements Command {
+
+    @Override
+    public String name() {
+        return "print";
+    }
+
+    @Override
+    public String usage() {
+        return "<input> [field]";
+    }
+
+    @Override
+    public String description() {
+        return "Print a field of every entry (title by default)";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        Bib.expect(args, 1, 2);
+        new OfflineTasks().print(
+            new File(args.get(0)),
+            new Key(args.size() > 1 ? args.get(1) : "title")
+        );
+        return 0;
+    }
+
+}
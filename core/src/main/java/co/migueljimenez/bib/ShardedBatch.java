@@ -0,0 +1,728 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.ParseException;
+import org.jbibtex.TokenMgrException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Runs a job over bibliographies too large for one JVM by splitting the
+ * entries into shards, processing each shard in a separate worker JVM, and
+ * merging the results.
+ * <ol>
+ * <li>The coordinator splits the input files into shard files without
+ * parsing them (see {@link BibTeXReader#nextKey()}), either by key hash,
+ * so entries with the same key end up in the same shard, or by byte range.
+ * Compressed inputs are always split by key, since their byte ranges say
+ * little about how many entries they hold.
+ * Macros and preambles are copied to every shard, so entries referencing
+ * them still parse.</li>
+ * <li>Up to {@code parallelism} worker JVMs run at the same time, one per
+ * shard. A worker that exits with an error, produces no output, or runs
+ * for more than {@code bib.batch.timeout.minutes} (60 by default) is
+ * considered failed, and its shard is retried up to {@code retries} times.
+ * Workers inherit the classpath and the {@code bib.*} system properties;
+ * {@code bib.batch.heap} sets their maximum heap (e.g., 2g).</li>
+ * <li>The outputs are merged in input order: macros and preambles first,
+ * then the entries in the order they appear in the inputs. The result is
+ * therefore the same regardless of the number of shards.</li>
+ * </ol>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class ShardedBatch {
+
+    /**
+     * A job on the entries of the inputs.
+     */
+    public enum Task {
+
+        /**
+         * Keeps the entries whose key is in the keys file, unmodified.
+         */
+        FILTER,
+
+        /**
+         * Rewrites every entry with its fields in canonical order (see
+         * {@link FieldOrderFormatter}).
+         */
+        NORMALIZE,
+
+        /**
+         * Keeps the first entry with each key, ignoring case, unmodified.
+         * Requires splitting by key.
+         */
+        DEDUPLICATE
+
+    }
+
+    /**
+     * How entries are assigned to shards.
+     */
+    public enum Split {
+
+        /**
+         * By the hash of the entry key.
+         */
+        KEY,
+
+        /**
+         * In contiguous byte ranges of similar size.
+         */
+        RANGE
+
+    }
+
+    /**
+     * The number of shards.
+     */
+    private final int shards;
+
+    /**
+     * Maximum number of workers running at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * Number of times a failed shard is retried.
+     */
+    private final int retries;
+
+    /**
+     * Default constructor. Runs one worker per core.
+     * @param shards The number of shards
+     */
+    public ShardedBatch(final int shards) {
+        this(shards, Runtime.getRuntime().availableProcessors(), 2);
+    }
+
+    /**
+     * Secondary constructor.
+     * @param shards The number of shards
+     * @param parallelism Maximum number of workers running at the same time
+     * @param retries Number of times a failed shard is retried
+     */
+    public ShardedBatch(final int shards, final int parallelism,
+        final int retries) {
+        this.shards = shards;
+        this.parallelism = parallelism;
+        this.retries = retries;
+    }
+
+    /**
+     * Runs the job.
+     * @param task The job
+     * @param split How entries are assigned to shards
+     * @param inputs The bibtex files, in order of preference
+     * @param keys The keys to keep (one per line) for {@link Task#FILTER},
+     *  or null
+     * @param outputFile The output file
+     * @throws IOException If the inputs cannot be read, or a shard failed
+     *  more than {@code retries} times
+     * @throws InterruptedException
+     */
+    public void run(final Task task, final Split split, final List<File> inputs,
+        final File keys, final File outputFile)
+        throws IOException, InterruptedException {
+        if (task == Task.DEDUPLICATE && split != Split.KEY)
+            throw new IllegalArgumentException(
+                "Deduplication requires splitting by key"
+            );
+        if (task == Task.FILTER && keys == null)
+            throw new IllegalArgumentException("Filtering requires a keys file");
+        Split assignment = split;
+        if (split == Split.RANGE
+            && inputs.stream().anyMatch(input -> input.getName().endsWith(".gz"))) {
+            // Byte ranges of compressed files say little about their entries
+            System.err.println("Compressed inputs are split by key instead of by range");
+            assignment = Split.KEY;
+        }
+        final Path directory = Files.createTempDirectory(
+            outputFile.getAbsoluteFile().getParentFile().toPath(),
+            String.format("%s.shards", outputFile.getName())
+        );
+        try {
+            final long start = System.currentTimeMillis();
+            final List<Shard> shards = this.split(directory, assignment, inputs);
+            System.out.printf(
+                "Split into %d shards in %d ms\n",
+                shards.size(),
+                System.currentTimeMillis() - start
+            );
+            this.process(task, keys, shards);
+            this.merge(directory, shards, outputFile);
+            System.out.printf(
+                "Stored %s in %d ms\n",
+                outputFile.getAbsolutePath(),
+                System.currentTimeMillis() - start
+            );
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList()))
+                    Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Writes the entries of the inputs into shard files. Each shard file
+     * starts with the macros and preambles of the inputs, and comes with an
+     * index of the offset and input position of each entry.
+     */
+    private List<Shard> split(final Path directory, final Split split,
+        final List<File> inputs) throws IOException {
+        final Path header = directory.resolve("header.bib");
+        final Set<String> macros = new HashSet<>();
+        try (OutputStream output = new BufferedOutputStream(
+                new FileOutputStream(header.toFile())
+            )) {
+            for (File input : inputs)
+                ShardedBatch.scan(input, (key, block) -> {
+                    // Like a database, keep the first definition of a macro
+                    final String macro = ShardedBatch.macro(block);
+                    if (key.isEmpty() && (macro == null || macros.add(macro))) {
+                        output.write(block);
+                        output.write('\n');
+                        output.write('\n');
+                    }
+                });
+        }
+        final long total = inputs.stream().mapToLong(File::length).sum();
+        final List<Shard> shards = new ArrayList<>();
+        final OutputStream[] outputs = new OutputStream[this.shards];
+        final DataOutputStream[] indexes = new DataOutputStream[this.shards];
+        final long[] offsets = new long[this.shards];
+        try {
+            for (int i = 0; i < this.shards; i++) {
+                final Shard shard = new Shard(directory, i);
+                shards.add(shard);
+                Files.copy(header, shard.input.toPath());
+                offsets[i] = shard.input.length();
+                outputs[i] = new BufferedOutputStream(
+                    new FileOutputStream(shard.input, true),
+                    1 << 16
+                );
+                indexes[i] = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(shard.index))
+                );
+            }
+            final long[] sequence = new long[1];
+            final long[] read = new long[1];
+            for (File input : inputs)
+                ShardedBatch.scan(input, (key, block) -> {
+                    read[0] += block.length;
+                    if (key.isEmpty())
+                        return;
+                    // Keys that differ only in case are the same key, as in jbibtex
+                    final int shard = split == Split.KEY
+                        ? Math.floorMod(
+                            key.toLowerCase(Locale.ROOT).hashCode() * 0x9E3779B9,
+                            this.shards
+                        )
+                        : (int) Math.min(this.shards - 1, read[0] * this.shards / Math.max(1, total));
+                    indexes[shard].writeLong(offsets[shard]);
+                    indexes[shard].writeLong(sequence[0]++);
+                    outputs[shard].write(block);
+                    outputs[shard].write('\n');
+                    outputs[shard].write('\n');
+                    offsets[shard] += block.length + 2;
+                });
+        } finally {
+            for (int i = 0; i < this.shards; i++) {
+                if (outputs[i] != null)
+                    outputs[i].close();
+                if (indexes[i] != null)
+                    indexes[i].close();
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Runs a worker for each shard, retrying failed shards.
+     */
+    private void process(final Task task, final File keys,
+        final List<Shard> shards) throws IOException, InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(this.parallelism, shards.size())
+        );
+        try {
+            final List<Future<Void>> results = new ArrayList<>();
+            for (Shard shard : shards)
+                results.add(executor.submit(() -> {
+                    this.process(task, keys, shard);
+                    return null;
+                }));
+            for (Future<Void> result : results)
+                result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void process(final Task task, final File keys, final Shard shard)
+        throws IOException, InterruptedException {
+        final long timeout = Long.getLong("bib.batch.timeout.minutes", 60);
+        for (int attempt = 1;; attempt++) {
+            Files.deleteIfExists(shard.output.toPath());
+            final Process process = new ProcessBuilder(
+                ShardedBatch.command(task, keys, shard)
+            ).redirectErrorStream(true).redirectOutput(shard.log).start();
+            final String failure;
+            try {
+                if (!process.waitFor(timeout, TimeUnit.MINUTES))
+                    failure = String.format("timed out after %d minutes", timeout);
+                else if (process.exitValue() != 0)
+                    failure = String.format("exit code %d", process.exitValue());
+                else if (!shard.output.exists())
+                    failure = "no output";
+                else
+                    return;
+            } finally {
+                process.destroyForcibly();
+            }
+            System.err.printf(
+                "Shard %d failed (%s) on attempt %d of %d, see %s\n",
+                shard.number,
+                failure,
+                attempt,
+                this.retries + 1,
+                shard.log
+            );
+            if (attempt > this.retries)
+                throw new IOException(
+                    String.format("Shard %d failed: %s", shard.number, failure)
+                );
+        }
+    }
+
+    /**
+     * The command line of a worker.
+     */
+    private static List<String> command(final Task task, final File keys,
+        final Shard shard) {
+        final List<String> command = new ArrayList<>();
+        command.add(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        );
+        final String heap = System.getProperty("bib.batch.heap");
+        if (heap != null)
+            command.add(String.format("-Xmx%s", heap));
+        System.getProperties().stringPropertyNames().stream()
+            .filter(name -> name.startsWith("bib."))
+            .sorted()
+            .forEach(
+                name -> command.add(
+                    String.format("-D%s=%s", name, System.getProperty(name))
+                )
+            );
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardedBatch.class.getName());
+        command.add("worker");
+        command.add(task.name());
+        command.add(shard.input.getAbsolutePath());
+        command.add(shard.index.getAbsolutePath());
+        command.add(shard.output.getAbsolutePath());
+        if (keys != null)
+            command.add(keys.getAbsolutePath());
+        return command;
+    }
+
+    /**
+     * Merges the outputs of the shards in input order.
+     */
+    private void merge(final Path directory, final List<Shard> shards,
+        final File outputFile) throws IOException {
+        final File temporary = File.createTempFile(
+            outputFile.getName(),
+            ".tmp",
+            outputFile.getAbsoluteFile().getParentFile()
+        );
+        final List<Result> results = new ArrayList<>();
+        try {
+            try (OutputStream output = new BufferedOutputStream(
+                    new FileOutputStream(temporary),
+                    1 << 16
+                )) {
+                Files.copy(directory.resolve("header.bib"), output);
+                final PriorityQueue<Result> queue = new PriorityQueue<>(
+                    Comparator.comparingLong((Result result) -> result.sequence)
+                );
+                for (Shard shard : shards) {
+                    final Result result = new Result(shard.output);
+                    results.add(result);
+                    if (result.next())
+                        queue.add(result);
+                }
+                while (!queue.isEmpty()) {
+                    final Result result = queue.poll();
+                    output.write(result.text);
+                    output.write('\n');
+                    output.write('\n');
+                    if (result.next())
+                        queue.add(result);
+                }
+            } finally {
+                for (Result result : results)
+                    result.close();
+            }
+            Files.move(
+                temporary.toPath(),
+                outputFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Processes a shard. The output is a sequence of (input position,
+     * length, UTF-8 text) records in input order, written to a temporary
+     * file first so that a crashed worker leaves no output behind.
+     * @param task The job
+     * @param input The shard file
+     * @param index The offset and input position of each entry
+     * @param output The output file
+     * @param keys The keys file, or null
+     * @throws IOException
+     */
+    static void work(final Task task, final File input, final File index,
+        final File output, final File keys) throws IOException {
+        final Set<String> lookup = keys == null
+            ? Collections.emptySet()
+            : ShardedBatch.keys(keys);
+        final Set<String> seen = new HashSet<>();
+        final FieldOrderFormatter formatter = new FieldOrderFormatter();
+        final File temporary = new File(output.getPath() + ".tmp");
+        try (DataInputStream positions = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(index))
+            );
+            DataOutputStream records = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16)
+            );
+            BibTeXReader reader = new BibTeXReader(BibTeXReader.open(input))) {
+            final Positions sequence = new Positions(positions);
+            if (task == Task.NORMALIZE) {
+                while (reader.hasNext()) {
+                    final BibTeXObject object = reader.next();
+                    if (object instanceof BibTeXEntry) {
+                        final long position = sequence.at(reader.getStart());
+                        if (position >= 0)
+                            ShardedBatch.record(
+                                records,
+                                position,
+                                formatter.render(object).trim()
+                                    .getBytes(StandardCharsets.UTF_8)
+                            );
+                    }
+                }
+            } else {
+                String key;
+                while ((key = reader.nextKey()) != null) {
+                    if (key.isEmpty())
+                        continue;
+                    final long position = sequence.at(reader.getStart());
+                    final boolean keep = task == Task.FILTER
+                        ? lookup.contains(key)
+                        : seen.add(key.toLowerCase(Locale.ROOT));
+                    if (position >= 0 && keep)
+                        ShardedBatch.record(records, position, reader.getBlock());
+                }
+            }
+        } catch (TokenMgrException | ParseException e) {
+            throw new IOException(e);
+        }
+        Files.move(
+            temporary.toPath(),
+            output.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+    /**
+     * Reads a keys file: keys are separated by new lines, commas or
+     * whitespace, so both one key per line and {@code a, b} lists work.
+     * @param keys The keys file
+     * @return the keys
+     * @throws IOException
+     */
+    static Set<String> keys(final File keys) throws IOException {
+        final Set<String> lookup = new HashSet<>();
+        for (String line : Files.readAllLines(keys.toPath(), StandardCharsets.UTF_8))
+            for (String key : line.split("[,\\s]+"))
+                if (!key.isEmpty())
+                    lookup.add(key);
+        return lookup;
+    }
+
+    private static void record(final DataOutputStream records,
+        final long position, final byte[] text) throws IOException {
+        records.writeLong(position);
+        records.writeInt(text.length);
+        records.write(text);
+    }
+
+    /**
+     * Reads blocks of a bibtex file without parsing them.
+     * @param input The bibtex file
+     * @param consumer Receives the key of each entry (empty for macros,
+     *  preambles and comments) and the bytes of its block
+     */
+    private static void scan(final File input, final BlockConsumer consumer)
+        throws IOException {
+        try (BibTeXReader reader = new BibTeXReader(BibTeXReader.open(input))) {
+            String key;
+            while ((key = reader.nextKey()) != null)
+                if (!key.isEmpty() || !ShardedBatch.comment(reader.getBlock()))
+                    consumer.accept(key, reader.getBlock());
+        } catch (TokenMgrException | ParseException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * The name of the macro defined by a {@code @string} block, or null for
+     * other blocks.
+     */
+    private static String macro(final byte[] block) {
+        final String text = new String(block, StandardCharsets.UTF_8);
+        final int open = text.indexOf('{') < 0 ? text.indexOf('(') : text.indexOf('{');
+        final int equals = text.indexOf('=');
+        if (!text.substring(1, Math.max(1, open)).trim().equalsIgnoreCase("string")
+            || equals < open)
+            return null;
+        return text.substring(open + 1, equals).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean comment(final byte[] block) {
+        return block.length >= 8
+            && new String(block, 1, 7, StandardCharsets.US_ASCII)
+                .toLowerCase(Locale.ROOT)
+                .equals("comment");
+    }
+
+    /**
+     * Runs a worker: {@code worker <task> <shard> <index> <output> [keys]}.
+     * Workers are started by the coordinator; jobs are started with
+     * {@code bib batch} (see {@link BatchCommand}).
+     * @param args The arguments
+     * @throws Exception
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 5 || !args[0].equals("worker")) {
+            System.err.println(
+                "Usage: ShardedBatch worker <task> <shard> <index> <output> [keys]"
+            );
+            System.exit(2);
+        }
+        ShardedBatch.work(
+            Task.valueOf(args[1]),
+            new File(args[2]),
+            new File(args[3]),
+            new File(args[4]),
+            args.length > 5 ? new File(args[5]) : null
+        );
+    }
+
+    /**
+     * Receives a block.
+     */
+    private interface BlockConsumer {
+        void accept(String key, byte[] block) throws IOException;
+    }
+
+    /**
+     * The files of a shard.
+     */
+    private static final class Shard {
+
+        /**
+         * The number of the shard.
+         */
+        private final int number;
+
+        /**
+         * The entries of the shard.
+         */
+        private final File input;
+
+        /**
+         * The offset and input position of each entry.
+         */
+        private final File index;
+
+        /**
+         * The output of the worker.
+         */
+        private final File output;
+
+        /**
+         * The output of the worker's JVM.
+         */
+        private final File log;
+
+        Shard(final Path directory, final int number) {
+            this.number = number;
+            this.input = directory.resolve(String.format("shard-%d.bib", number)).toFile();
+            this.index = directory.resolve(String.format("shard-%d.idx", number)).toFile();
+            this.output = directory.resolve(String.format("shard-%d.out", number)).toFile();
+            this.log = directory.resolve(String.format("shard-%d.log", number)).toFile();
+        }
+
+    }
+
+    /**
+     * Maps the offsets of a shard's entries to their input positions,
+     * reading the index in order.
+     */
+    private static final class Positions {
+
+        /**
+         * The index.
+         */
+        private final DataInputStream index;
+
+        /**
+         * The offset of the current index record.
+         */
+        private long offset;
+
+        /**
+         * The input position of the current index record.
+         */
+        private long position;
+
+        Positions(final DataInputStream index) {
+            this.index = index;
+            this.offset = -1;
+        }
+
+        /**
+         * The input position of the entry at the given offset.
+         * @return the position, or -1 if there is no entry at that offset
+         */
+        long at(final long offset) throws IOException {
+            try {
+                while (this.offset < offset) {
+                    this.offset = this.index.readLong();
+                    this.position = this.index.readLong();
+                }
+            } catch (EOFException e) {
+                this.offset = Long.MAX_VALUE;
+            }
+            return this.offset == offset ? this.position : -1;
+        }
+
+    }
+
+    /**
+     * Reads the output of a shard.
+     */
+    private static final class Result {
+
+        /**
+         * The output.
+         */
+        private final DataInputStream input;
+
+        /**
+         * The input position of the current entry.
+         */
+        private long sequence;
+
+        /**
+         * The text of the current entry.
+         */
+        private byte[] text;
+
+        Result(final File output) throws IOException {
+            this.input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(output), 1 << 16)
+            );
+        }
+
+        /**
+         * Moves to the next entry.
+         * @return whether there is one
+         */
+        boolean next() throws IOException {
+            try {
+                this.sequence = this.input.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            this.text = new byte[this.input.readInt()];
+            this.input.readFully(this.text);
+            return true;
+        }
+
+        void close() throws IOException {
+            this.input.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package co.migueljimenez.bib;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link BibDaemon}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class BibDaemonTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void exportsToTheOutputDirectory() throws Exception {
+        final File directory = this.folder.newFolder("bib");
+        final File output = this.folder.newFolder("exports");
+        Files.write(
+            new File(directory, "a.bib").toPath(),
+            "@article{a, title = {A}}\n".getBytes(StandardCharsets.UTF_8)
+        );
+        try (BibDaemon daemon =
+            new BibDaemon(directory, output, new OfflineTasks())) {
+            daemon.reload();
+            final String response = BibDaemonTest.serve(daemon, "export all.bib");
+            Assert.assertTrue(response, response.startsWith("OK 1 entries"));
+            Assert.assertTrue(new File(output, "all.bib").exists());
+        }
+    }
+
+    @Test
+    public void exportsToASubdirectoryByDefault() throws Exception {
+        final File directory = this.folder.newFolder("bib");
+        Files.write(
+            new File(directory, "a.bib").toPath(),
+            "@article{a, title = {A}}\n".getBytes(StandardCharsets.UTF_8)
+        );
+        try (BibDaemon daemon = new BibDaemon(directory, new OfflineTasks())) {
+            daemon.reload();
+            final String response = BibDaemonTest.serve(daemon, "export all.bib");
+            Assert.assertTrue(response, response.startsWith("OK 1 entries"));
+            Assert.assertTrue(new File(directory, "exports/all.bib").exists());
+            daemon.reload();
+            Assert.assertEquals(
+                "files 1 entries 1\n.\n",
+                BibDaemonTest.serve(daemon, "stats")
+            );
+        }
+    }
+
+    @Test
+    public void ignoresItsOwnExportsInTheWatchedDirectory() throws Exception {
+        final File directory = this.folder.newFolder("bib");
+        Files.write(
+            new File(directory, "a.bib").toPath(),
+            "@article{a, title = {A}}\n".getBytes(StandardCharsets.UTF_8)
+        );
+        try (BibDaemon daemon =
+            new BibDaemon(directory, directory, new OfflineTasks())) {
+            daemon.reload();
+            Assert.assertTrue(
+                BibDaemonTest.serve(daemon, "export all.bib").startsWith("OK")
+            );
+            daemon.reload();
+            Assert.assertEquals(
+                "files 1 entries 1\n.\n",
+                BibDaemonTest.serve(daemon, "stats")
+            );
+            Assert.assertTrue(
+                BibDaemonTest.serve(daemon, "export a.bib").startsWith("ERROR")
+            );
+        }
+    }
+
+    @Test
+    public void refusesExportsOutsideOfTheOutputDirectory() throws Exception {
+        final File directory = this.folder.newFolder("bib");
+        final File output = this.folder.newFolder("exports");
+        try (BibDaemon daemon =
+            new BibDaemon(directory, output, new OfflineTasks())) {
+            for (String path : new String[] {"../escaped.bib", ".", "sub/../../escaped.bib"}) {
+                final String response =
+                    BibDaemonTest.serve(daemon, String.format("export %s", path));
+                Assert.assertTrue(response, response.startsWith("ERROR"));
+            }
+            Assert.assertFalse(new File(this.folder.getRoot(), "escaped.bib").exists());
+        }
+    }
+
+    private static String serve(final BibDaemon daemon, final String request)
+        throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        daemon.serve(
+            new ByteArrayInputStream(
+                String.format("%s\n", request).getBytes(StandardCharsets.UTF_8)
+            ),
+            output
+        );
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
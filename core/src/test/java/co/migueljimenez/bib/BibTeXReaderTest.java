@@ -0,0 +1,165 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.jbibtex.BibTeXString;
+import org.jbibtex.Key;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link BibTeXReader}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class BibTeXReaderTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsCrossReferencesInEitherDirection() throws IOException {
+        final File file = this.file(
+            "@inproceedings{early, title = {Early}, crossref = {proc}}",
+            "@proceedings{proc, title = {Proceedings}, year = 2017}",
+            "@inproceedings{late, title = {Late}, crossref = {proc}}"
+        );
+        final List<BibTeXEntry> entries = this.entries(file);
+        Assert.assertEquals(3, entries.size());
+        Assert.assertEquals(
+            "proc",
+            entries.get(0).getField(BibTeXEntry.KEY_CROSSREF).toUserString()
+        );
+        Assert.assertEquals(
+            "proc",
+            entries.get(2).getField(BibTeXEntry.KEY_CROSSREF).toUserString()
+        );
+    }
+
+    @Test
+    public void readsCrossReferencesLikeTheWholeFileParser() throws Exception {
+        final File file = this.file(
+            "@inproceedings{a, title = {A}, crossref = {proc}}",
+            "@proceedings{proc, title = {Proceedings}}"
+        );
+        final OfflineTasks tasks = new OfflineTasks(DatabaseCache.disabled());
+        Assert.assertEquals(
+            tasks.database(file).getEntries().keySet(),
+            this.entries(file).stream()
+                .map(BibTeXEntry::getKey)
+                .collect(Collectors.toSet())
+        );
+        Assert.assertEquals(
+            1,
+            tasks.filteredEntries(
+                Stream.of("a").collect(Collectors.toList()),
+                Stream.of(file),
+                1
+            ).getEntries().size()
+        );
+    }
+
+    @Test
+    public void keepsTheFirstEntryOfADuplicatedKey() throws IOException {
+        final File file = this.file(
+            "@article{a, title = {First}}",
+            "@article{b, title = {Other}}",
+            "@article{a, title = {Second}}",
+            "@article{A, title = {Third}}"
+        );
+        final List<BibTeXEntry> entries = this.entries(file);
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals(
+            "First",
+            entries.get(0).getField(BibTeXEntry.KEY_TITLE).toUserString()
+        );
+        Assert.assertEquals(new Key("b"), entries.get(1).getKey());
+    }
+
+    @Test
+    public void keepsTheFirstDefinitionOfAMacro() throws IOException {
+        final File file = this.file(
+            "@string{venue = {First}}",
+            "@string{venue = {Second}}",
+            "@article{a, journal = venue}"
+        );
+        final List<BibTeXObject> objects;
+        try (Stream<BibTeXObject> stream = BibTeXReader.objects(file)) {
+            objects = stream.collect(Collectors.toList());
+        }
+        Assert.assertEquals(2, objects.size());
+        Assert.assertTrue(objects.get(0) instanceof BibTeXString);
+        Assert.assertEquals(
+            "First",
+            ((BibTeXEntry) objects.get(1)).getField(BibTeXEntry.KEY_JOURNAL)
+                .toUserString()
+        );
+    }
+
+    @Test
+    public void matchesTheWholeFileParserOnDuplicates() throws Exception {
+        final File file = this.file(
+            "@string{venue = {First}}",
+            "@article{a, title = {First}, journal = venue}",
+            "@string{venue = {Second}}",
+            "@article{a, title = {Second}}"
+        );
+        final List<BibTeXObject> parsed =
+            new OfflineTasks(DatabaseCache.disabled()).database(file)
+                .getObjects();
+        final List<BibTeXObject> streamed;
+        try (Stream<BibTeXObject> stream = BibTeXReader.objects(file)) {
+            streamed = stream.collect(Collectors.toList());
+        }
+        Assert.assertEquals(parsed.size(), streamed.size());
+    }
+
+    private List<BibTeXEntry> entries(final File file) throws IOException {
+        try (Stream<BibTeXEntry> entries = BibTeXReader.entries(file)) {
+            return entries.collect(Collectors.toList());
+        }
+    }
+
+    private File file(final String... blocks) throws IOException {
+        final File file = this.folder.newFile("test.bib");
+        Files.write(
+            file.toPath(),
+            String.join("\n\n", blocks).getBytes(StandardCharsets.UTF_8)
+        );
+        return file;
+    }
+
+}
@@ -0,0 +1,145 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link CitationScanner}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class CitationScannerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsTheCitationsOfAuxFiles() throws Exception {
+        final File aux = this.file(
+            "paper.aux",
+            "\\relax",
+            "\\citation{a,b}",
+            "\\citation{ c , * }",
+            "\\bibdata{references}",
+            "\\@writefile{toc}{\\citation{ignored}}"
+        );
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList("a", "b", "c")),
+            CitationScanner.scanFile(aux.toPath())
+        );
+    }
+
+    @Test
+    public void readsTheCitationCommandsOfTexFiles() throws Exception {
+        final File tex = this.file(
+            "paper.tex",
+            "As shown~\\cite{a}, and \\citep[see][p.~3]{b, c}.",
+            "\\citeauthor*{d} \\parencite [p. 1] {e} \\textcites{f}",
+            "\\nocite{*} \\citestyle{plain} \\section{cite}",
+            "% \\cite{commented}",
+            "50\\% of them \\cite{g,",
+            "  h}"
+        );
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h")),
+            CitationScanner.scanFile(tex.toPath())
+        );
+    }
+
+    @Test
+    public void readsLargeFilesThroughAMapping() throws Exception {
+        final char[] padding = new char[1 << 17];
+        Arrays.fill(padding, 'x');
+        final File tex = this.file("book.tex", new String(padding), "\\cite{last}");
+        Assert.assertEquals(
+            Collections.singleton("last"),
+            CitationScanner.scanFile(tex.toPath())
+        );
+    }
+
+    @Test
+    public void prefersTheAuxFilesOfAProject() throws Exception {
+        this.folder.newFolder("chapters");
+        this.folder.newFolder("build");
+        this.file("main.tex", "\\cite{a}");
+        this.file("chapters/one.tex", "\\cite{b}");
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList("a", "b")),
+            new CitationScanner(2).scan(this.folder.getRoot().toPath())
+        );
+        this.file("build/main.aux", "\\citation{a}");
+        Assert.assertEquals(
+            Collections.singleton("a"),
+            new CitationScanner(2).scan(this.folder.getRoot().toPath())
+        );
+    }
+
+    @Test
+    public void scansAProjectMoreThanOnce() throws Exception {
+        final CitationScanner scanner = new CitationScanner(2);
+        this.file("main.tex", "\\cite{a}");
+        Assert.assertEquals(
+            Collections.singleton("a"),
+            scanner.scan(this.folder.getRoot().toPath())
+        );
+        this.file("appendix.tex", "\\cite{b}");
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList("a", "b")),
+            scanner.scan(this.folder.getRoot().toPath())
+        );
+    }
+
+    @Test
+    public void skipsHiddenDirectories() throws Exception {
+        this.folder.newFolder(".git");
+        this.file(".git/stale.tex", "\\cite{hidden}");
+        this.file("main.tex", "\\cite{a}");
+        Assert.assertEquals(
+            Collections.singleton("a"),
+            new CitationScanner(1).scan(this.folder.getRoot().toPath())
+        );
+    }
+
+    private File file(final String name, final String... lines) throws IOException {
+        final File file = new File(this.folder.getRoot(), name);
+        Files.write(
+            file.toPath(),
+            String.join("\n", lines).getBytes(StandardCharsets.UTF_8)
+        );
+        return file;
+    }
+
+}
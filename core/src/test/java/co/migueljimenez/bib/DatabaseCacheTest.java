@@ -0,0 +1,167 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXFormatter;
+import org.jbibtex.CrossReferenceValue;
+import org.jbibtex.Key;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link DatabaseCache}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DatabaseCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void clear() {
+        System.clearProperty("bib.cache.max.mb");
+        System.clearProperty("bib.cache.max.age.days");
+    }
+
+    @Test
+    public void loadsWhatWasParsed() throws Exception {
+        final File file = this.file(
+            "a.bib",
+            "@string{venue = {ICSE}}",
+            "@proceedings{p, title = venue # { 2017}, year = 2017}",
+            "@inproceedings{a, title = {A}, crossref = {p}}"
+        );
+        final DatabaseCache cache = this.cache();
+        final BibTeXDatabase parsed = new OfflineTasks(cache).database(file);
+        final BibTeXDatabase loaded = cache.load(file);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(DatabaseCacheTest.format(parsed), DatabaseCacheTest.format(loaded));
+        Assert.assertEquals(
+            "ICSE 2017",
+            loaded.resolveEntry(new Key("p"))
+                .getField(BibTeXEntry.KEY_TITLE).toUserString()
+        );
+        Assert.assertSame(
+            loaded.resolveEntry(new Key("p")),
+            ((CrossReferenceValue) loaded.resolveEntry(new Key("a"))
+                .getField(BibTeXEntry.KEY_CROSSREF)).getEntry()
+        );
+    }
+
+    @Test
+    public void missesAnEditOfTheSameSizeRightAfterCaching() throws Exception {
+        final File file = this.file("a.bib", "@misc{a, title = {First}}");
+        final long modified = file.lastModified();
+        final DatabaseCache cache = this.cache();
+        new OfflineTasks(cache).database(file);
+        Files.write(file.toPath(), "@misc{a, title = {Other}}".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(modified);
+        Assert.assertNull(cache.load(file));
+    }
+
+    @Test
+    public void hitsAFileTouchedWithoutChanges() throws Exception {
+        final File file = this.file("a.bib", "@misc{a, title = {First}}");
+        final DatabaseCache cache = this.cache();
+        new OfflineTasks(cache).database(file);
+        file.setLastModified(file.lastModified() + TimeUnit.MINUTES.toMillis(1));
+        Assert.assertNotNull(cache.load(file));
+        Files.write(file.toPath(), "@misc{a, title = {Longer}}".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(cache.load(file));
+    }
+
+    @Test
+    public void skipsAFileChangedWhileParsed() throws Exception {
+        final File file = this.file("a.bib", "@misc{a, title = {First}}");
+        final DatabaseCache cache = this.cache();
+        cache.store(file, file.lastModified() - 1_000L, new BibTeXDatabase());
+        Assert.assertNull(cache.load(file));
+    }
+
+    @Test
+    public void prunesFilesNotUsedForLong() throws Exception {
+        final File first = this.file("a.bib", "@misc{a, title = {A}}");
+        final File second = this.file("b.bib", "@misc{b, title = {B}}");
+        final DatabaseCache cache = this.cache();
+        new OfflineTasks(cache).database(first);
+        for (File file : this.cacheFiles())
+            file.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31));
+        new OfflineTasks(cache).database(second);
+        Assert.assertEquals(1, this.cacheFiles().length);
+        Assert.assertNull(cache.load(first));
+        Assert.assertNotNull(cache.load(second));
+    }
+
+    @Test
+    public void prunesTheLeastRecentlyUsedFilesBeyondTheLimit() throws Exception {
+        System.setProperty("bib.cache.max.mb", "0");
+        final File first = this.file("a.bib", "@misc{a, title = {A}}");
+        final File second = this.file("b.bib", "@misc{b, title = {B}}");
+        final DatabaseCache cache = this.cache();
+        new OfflineTasks(cache).database(first);
+        Assert.assertNotNull(cache.load(first));
+        new OfflineTasks(cache).database(second);
+        Assert.assertEquals(1, this.cacheFiles().length);
+        Assert.assertNotNull(cache.load(second));
+    }
+
+    private DatabaseCache cache() {
+        return new DatabaseCache(new File(this.folder.getRoot(), "cache"));
+    }
+
+    private File[] cacheFiles() {
+        return new File(this.folder.getRoot(), "cache").listFiles(
+            (directory, name) -> name.endsWith(".bin")
+        );
+    }
+
+    private File file(final String name, final String... blocks) throws IOException {
+        final File file = this.folder.newFile(name);
+        Files.write(
+            file.toPath(),
+            String.join("\n\n", blocks).getBytes(StandardCharsets.UTF_8)
+        );
+        return file;
+    }
+
+    private static String format(final BibTeXDatabase database) throws IOException {
+        final StringWriter writer = new StringWriter();
+        new BibTeXFormatter().format(database, writer);
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,167 @@
+package co.migueljimenez.bib;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.StringValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link Deduplicator}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DeduplicatorTest {
+
+    /**
+     * A title shared by the entries of several tests.
+     */
+    private static final String TITLE =
+        "Efficient Near-Duplicate Detection for Large Bibliographic Databases";
+
+    @Test
+    public void mergesKeysThatOnlyDifferInCase() {
+        final Deduplicator.Result result = new Deduplicator().deduplicate(
+            DeduplicatorTest.database(DeduplicatorTest.entry("Smith2020", "title", "One")),
+            DeduplicatorTest.database(
+                DeduplicatorTest.entry("smith2020", "title", "Two", "year", "2020")
+            )
+        );
+        Assert.assertEquals("[Smith2020]", DeduplicatorTest.keys(result).toString());
+        Assert.assertEquals(Deduplicator.Reason.KEY, result.getMerges().get(0).getReason());
+        Assert.assertEquals(
+            "2020",
+            result.getDatabase().resolveEntry(new Key("Smith2020"))
+                .getField(BibTeXEntry.KEY_YEAR).toUserString()
+        );
+    }
+
+    @Test
+    public void mergesEntriesWithTheSameDoiInAnyForm() {
+        final Deduplicator.Result result = new Deduplicator().deduplicate(
+            DeduplicatorTest.database(
+                DeduplicatorTest.entry("a", "title", "Preprint", "doi", "https://doi.org/10.1/ABC"),
+                DeduplicatorTest.entry("b", "title", "Published", "doi", "doi:10.1/abc"),
+                DeduplicatorTest.entry("c", "title", "Other", "doi", "10.1/abd")
+            )
+        );
+        Assert.assertEquals("[a, c]", DeduplicatorTest.keys(result).toString());
+        Assert.assertEquals("b", result.getMerges().get(0).getDuplicate());
+        Assert.assertEquals(Deduplicator.Reason.DOI, result.getMerges().get(0).getReason());
+    }
+
+    @Test
+    public void mergesNearDuplicateTitlesAboveTheThreshold() {
+        final BibTeXDatabase database = DeduplicatorTest.database(
+            DeduplicatorTest.entry("a", "title", DeduplicatorTest.TITLE, "author", "Smith, Jane"),
+            DeduplicatorTest.entry(
+                "b",
+                "title",
+                "Efficient near-duplicate detection for large bibliographic database",
+                "author",
+                "Jane Smith and John Doe"
+            ),
+            DeduplicatorTest.entry(
+                "c",
+                "title",
+                "Efficient Duplicate Detection for Bibliographic Databases",
+                "author",
+                "Smith, Jane"
+            ),
+            DeduplicatorTest.entry("d", "title", "Scalable Entity Resolution in the Cloud")
+        );
+        final Deduplicator.Result result = new Deduplicator().deduplicate(database);
+        Assert.assertEquals("[a, c, d]", DeduplicatorTest.keys(result).toString());
+        final Deduplicator.Merge merge = result.getMerges().get(0);
+        Assert.assertEquals(Deduplicator.Reason.SIMILAR, merge.getReason());
+        Assert.assertTrue(merge.getSimilarity() >= 0.8 && merge.getSimilarity() < 1.0);
+        Assert.assertEquals(
+            "[a, b, c, d]",
+            DeduplicatorTest.keys(new Deduplicator(16, 4, 1.0, 2).deduplicate(database))
+                .toString()
+        );
+        Assert.assertEquals(
+            "[a, d]",
+            DeduplicatorTest.keys(new Deduplicator(16, 4, 0.5, 2).deduplicate(database))
+                .toString()
+        );
+    }
+
+    @Test
+    public void keepsApartGroupsBridgedByAnEntryWithoutDoi() {
+        final Deduplicator.Result result = new Deduplicator().deduplicate(
+            DeduplicatorTest.database(
+                DeduplicatorTest.entry("a", "title", DeduplicatorTest.TITLE, "doi", "10.1/x"),
+                DeduplicatorTest.entry("b", "title", DeduplicatorTest.TITLE),
+                DeduplicatorTest.entry("c", "title", DeduplicatorTest.TITLE, "doi", "10.1/y")
+            )
+        );
+        Assert.assertEquals("[a, c]", DeduplicatorTest.keys(result).toString());
+    }
+
+    @Test
+    public void keepsApartGroupsBridgedByAnEntryWithoutYear() {
+        final Deduplicator.Result result = new Deduplicator().deduplicate(
+            DeduplicatorTest.database(
+                DeduplicatorTest.entry("a", "title", DeduplicatorTest.TITLE, "year", "2017"),
+                DeduplicatorTest.entry("b", "title", DeduplicatorTest.TITLE, "year", "2018"),
+                DeduplicatorTest.entry("c", "title", DeduplicatorTest.TITLE)
+            )
+        );
+        Assert.assertEquals("[a, b]", DeduplicatorTest.keys(result).toString());
+        Assert.assertEquals("c", result.getMerges().get(0).getDuplicate());
+        Assert.assertEquals("a", result.getMerges().get(0).getKept());
+    }
+
+    private static BibTeXEntry entry(final String key, final String... fields) {
+        final BibTeXEntry entry =
+            new BibTeXEntry(BibTeXEntry.TYPE_ARTICLE, new Key(key));
+        for (int i = 0; i + 1 < fields.length; i += 2)
+            entry.addField(
+                new Key(fields[i]),
+                new StringValue(fields[i + 1], StringValue.Style.BRACED)
+            );
+        return entry;
+    }
+
+    private static BibTeXDatabase database(final BibTeXEntry... entries) {
+        final BibTeXDatabase database = new BibTeXDatabase();
+        for (BibTeXEntry entry : entries)
+            database.addObject(entry);
+        return database;
+    }
+
+    private static List<String> keys(final Deduplicator.Result result) {
+        return result.getDatabase().getEntries().values().stream()
+            .map(entry -> entry.getKey().getValue())
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,140 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.StringValue;
+import org.jbibtex.Value;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link DoiDump}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DoiDumpTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void looksUpRecordsByAnyFormOfTheirDoi() throws Exception {
+        try (DoiDump dump = this.dump()) {
+            final Map<String, Map<String, Object>> records = dump.lookup(
+                Arrays.asList(
+                    "10.1000/a",
+                    "https://doi.org/10.1000/B",
+                    "10.1000/missing"
+                )
+            );
+            Assert.assertEquals(2, records.size());
+            Assert.assertEquals(
+                "Abstract A",
+                records.get("10.1000/a").get("abstract")
+            );
+            Assert.assertEquals(
+                "Abstract B",
+                records.get("https://doi.org/10.1000/B").get("abstract")
+            );
+        }
+    }
+
+    @Test
+    public void fillsEveryEntryThatSharesADoi() throws Exception {
+        final BibTeXEntry first = DoiDumpTest.entry("first", "10.1000/a");
+        final BibTeXEntry second = DoiDumpTest.entry("second", "10.1000/a");
+        final BibTeXEntry third =
+            DoiDumpTest.entry("third", "https://dx.doi.org/10.1000/A");
+        final BibTeXEntry other = DoiDumpTest.entry("other", "10.1000/missing");
+        final List<BibTeXEntry> changed;
+        try (DoiDump dump = this.dump()) {
+            changed = dump.fill(Arrays.asList(first, second, third, other));
+        }
+        Assert.assertEquals(Arrays.asList(first, second, third), changed);
+        for (BibTeXEntry entry : changed) {
+            Assert.assertEquals(
+                "Abstract A",
+                entry.getField(new Key("abstract")).toUserString()
+            );
+            Assert.assertEquals(
+                "Title A",
+                entry.getField(BibTeXEntry.KEY_TITLE).toUserString()
+            );
+        }
+        Assert.assertNull(other.getField(new Key("abstract")));
+    }
+
+    @Test
+    public void keepsTheFieldsAnEntryAlreadyHas() throws Exception {
+        final BibTeXEntry entry = DoiDumpTest.entry("first", "10.1000/a");
+        entry.addField(
+            BibTeXEntry.KEY_TITLE,
+            new StringValue("Mine", StringValue.Style.BRACED)
+        );
+        try (DoiDump dump = this.dump()) {
+            dump.fill(Arrays.asList(entry));
+        }
+        final Value title = entry.getField(BibTeXEntry.KEY_TITLE);
+        Assert.assertEquals("Mine", title.toUserString());
+    }
+
+    private DoiDump dump() throws Exception {
+        final File file = this.folder.newFile("dump.jsonl");
+        Files.write(
+            file.toPath(),
+            String.join(
+                "\n",
+                "{\"DOI\": \"10.1000/a\", \"abstract\": \"Abstract A\", \"title\": [\"Title A\"]}",
+                "{\"DOI\": \"10.1000/b\", \"abstract\": \"Abstract B\", \"title\": [\"Title B\"]}",
+                ""
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final DoiDump dump = new DoiDump(file);
+        Assert.assertEquals(2L, dump.index());
+        Assert.assertTrue(dump.indexed());
+        return dump;
+    }
+
+    private static BibTeXEntry entry(final String key, final String doi) {
+        final BibTeXEntry entry =
+            new BibTeXEntry(BibTeXEntry.TYPE_ARTICLE, new Key(key));
+        entry.addField(
+            BibTeXEntry.KEY_DOI,
+            new StringValue(doi, StringValue.Style.BRACED)
+        );
+        return entry;
+    }
+
+}
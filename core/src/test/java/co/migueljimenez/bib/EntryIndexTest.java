@@ -0,0 +1,106 @@
+package co.migueljimenez.bib;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.StringValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link EntryIndex}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class EntryIndexTest {
+
+    @Test
+    public void findsTheEntriesOfARangeOfYears() {
+        final EntryIndex index = new EntryIndex();
+        index.add(EntryIndexTest.entry("a", "2009", "Self-adaptive systems"));
+        index.add(EntryIndexTest.entry("b", "2012", "Self-adaptive software"));
+        index.add(EntryIndexTest.entry("c", "2017", "Adaptive models"));
+        index.add(EntryIndexTest.entry("d", "n.d.", "Self-adaptive models"));
+        Assert.assertEquals(
+            Arrays.asList("b", "c"),
+            EntryIndexTest.keys(index.query().years(2010, 2017).top(10))
+        );
+        Assert.assertEquals(
+            Arrays.asList("b"),
+            EntryIndexTest.keys(
+                index.query().text("self-adaptive").years(2010, 2017).top(10)
+            )
+        );
+        Assert.assertEquals(
+            Arrays.asList(),
+            EntryIndexTest.keys(index.query().years(2017, 2010).top(10))
+        );
+    }
+
+    @Test
+    public void replacesTheYearOfAnUpdatedEntry() {
+        final EntryIndex index = new EntryIndex();
+        index.add(EntryIndexTest.entry("a", "2009", "Title"));
+        index.add(EntryIndexTest.entry("a", "2015", "Title"));
+        Assert.assertEquals(
+            Arrays.asList(),
+            EntryIndexTest.keys(index.query().years(2009, 2009).top(10))
+        );
+        Assert.assertEquals(
+            Arrays.asList("a"),
+            EntryIndexTest.keys(index.query().years(2015, 2015).top(10))
+        );
+    }
+
+    @Test
+    public void matchesTypesIgnoringCase() {
+        final EntryIndex index = new EntryIndex();
+        index.add(EntryIndexTest.entry("a", "2009", "Title"));
+        Assert.assertEquals(
+            Arrays.asList("a"),
+            EntryIndexTest.keys(index.query().type("ARTICLE").top(10))
+        );
+    }
+
+    private static BibTeXEntry entry(final String key, final String year,
+        final String title) {
+        final BibTeXEntry entry =
+            new BibTeXEntry(BibTeXEntry.TYPE_ARTICLE, new Key(key));
+        entry.addField(BibTeXEntry.KEY_YEAR, new StringValue(year, StringValue.Style.BRACED));
+        entry.addField(BibTeXEntry.KEY_TITLE, new StringValue(title, StringValue.Style.BRACED));
+        return entry;
+    }
+
+    private static List<String> keys(final List<EntryIndex.Hit> hits) {
+        return hits.stream()
+            .map(hit -> hit.getEntry().getKey().getValue())
+            .collect(Collectors.toList());
+    }
+
+}
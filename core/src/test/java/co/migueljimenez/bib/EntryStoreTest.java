@@ -0,0 +1,108 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link EntryStore}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class EntryStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesTheBytesOfTheDatabaseItWasLoadedFrom() throws Exception {
+        final File input = this.file(
+            "@string{ieee = {IEEE}}",
+            "@string{IEEE = {Other}}",
+            "@article{a, author = {Doe, J. and Roe, R.}, journal = ieee, year = 2017}",
+            "@article{A, title = {Same key, other case}}",
+            "@inproceedings{b, title = {B}, booktitle = {Conf}}",
+            "@article{a, title = {Same key}}",
+            "@misc{c, note = \"quoted\" # ieee}"
+        );
+        final OfflineTasks tasks = new OfflineTasks();
+        final BibTeXDatabase database = tasks.database(input);
+        final File expected = new File(this.folder.getRoot(), "expected.bib");
+        tasks.write(database, expected);
+        final File fromDatabase = new File(this.folder.getRoot(), "database.bib");
+        tasks.write(EntryStore.of(database), fromDatabase);
+        final File fromFile = new File(this.folder.getRoot(), "file.bib");
+        tasks.write(EntryStore.load(input), fromFile);
+        final String bytes = EntryStoreTest.read(expected);
+        Assert.assertEquals(bytes, EntryStoreTest.read(fromDatabase));
+        Assert.assertEquals(bytes, EntryStoreTest.read(fromFile));
+    }
+
+    @Test
+    public void keepsTheFirstEntryOfAKeyInAnyCase() {
+        final EntryStore store = new EntryStore();
+        store.add(new BibTeXEntry(BibTeXEntry.TYPE_ARTICLE, new Key("Doe2017")));
+        store.add(new BibTeXEntry(BibTeXEntry.TYPE_MISC, new Key("doe2017")));
+        Assert.assertEquals(1, store.size());
+        Assert.assertTrue(store.contains("DOE2017"));
+        Assert.assertEquals(
+            BibTeXEntry.TYPE_ARTICLE,
+            store.entry("doe2017").getType()
+        );
+    }
+
+    @Test
+    public void findsKeysIgnoringCase() throws Exception {
+        final EntryStore store = EntryStore.load(
+            this.file("@article{Doe2017, title = {T}}", "@article{doe2017, title = {U}}")
+        );
+        Assert.assertEquals(1, store.size());
+        Assert.assertTrue(store.contains("DOE2017"));
+        Assert.assertEquals("Doe2017", store.entry("doe2017").getKey().getValue());
+    }
+
+    private File file(final String... lines) throws Exception {
+        final File file = this.folder.newFile("input.bib");
+        Files.write(
+            file.toPath(),
+            String.join("\n\n", lines).getBytes(StandardCharsets.UTF_8)
+        );
+        return file;
+    }
+
+    private static String read(final File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
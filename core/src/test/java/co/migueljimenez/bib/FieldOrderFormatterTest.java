@@ -0,0 +1,128 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link FieldOrderFormatter}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class FieldOrderFormatterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The default locale before each test.
+     */
+    private final Locale locale = Locale.getDefault();
+
+    @After
+    public void restore() {
+        Locale.setDefault(this.locale);
+    }
+
+    @Test
+    public void formatsEntriesLikeSortPy() throws Exception {
+        Assert.assertEquals(
+            String.join(
+                "\n",
+                "@Article{smith2017,",
+                "  author      = {Smith, Jane},",
+                "  title       = {Sorting Fields},",
+                "  journal     = {Journal},",
+                "  year        = {2017},",
+                "  doi         = {10.1/x},",
+                "  note        = {A note},",
+                "  howpublished = {Online},",
+                "  custom      = {Last},",
+                "}",
+                "",
+                "@Inproceedings{doe2018,",
+                "  title       = {Workshop},",
+                "  booktitle   = {Proceedings},",
+                "  institution = {University},",
+                "}",
+                "",
+                ""
+            ),
+            this.format(
+                "@ARTICLE{smith2017,",
+                "  note = {A note},",
+                "  YEAR = {2017},",
+                "  howpublished = {Online},",
+                "  DOI = {10.1/x},",
+                "  TITLE = {Sorting Fields},",
+                "  custom = {Last},",
+                "  Journal = {Journal},",
+                "  author = {Smith, Jane}",
+                "}",
+                "@inproceedings{doe2018,",
+                "  INSTITUTION = {University},",
+                "  booktitle = {Proceedings},",
+                "  title = {Workshop}",
+                "}"
+            )
+        );
+    }
+
+    @Test
+    public void ignoresTheDefaultLocale() throws Exception {
+        final String expected = this.format(
+            "@ARTICLE{a, TITLE = {Title}, INSTITUTION = {University}, ISSN = {1}}"
+        );
+        Locale.setDefault(new Locale("tr", "TR"));
+        Assert.assertEquals(
+            expected,
+            this.format(
+                "@ARTICLE{a, TITLE = {Title}, INSTITUTION = {University}, ISSN = {1}}"
+            )
+        );
+        Assert.assertTrue(expected, expected.startsWith("@Article{a,\n  title "));
+    }
+
+    private String format(final String... lines) throws Exception {
+        final File file = this.folder.newFile();
+        Files.write(
+            file.toPath(),
+            String.join("\n", lines).getBytes(StandardCharsets.UTF_8)
+        );
+        final StringWriter writer = new StringWriter();
+        new FieldOrderFormatter().format(BibTeXReader.objects(file), writer, 1);
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,135 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.StringValue;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link IncrementalWriter}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class IncrementalWriterTest {
+
+    /**
+     * A file with comments, odd spacing and a duplicated key.
+     */
+    private static final String INPUT = String.join(
+        "",
+        "% A comment that must survive\n",
+        "@string{ieee = {IEEE}}\n\n",
+        "@article{a,\n  title   = {A},\n  journal = ieee\n}\n\n",
+        "@Article{ B , title={B}}\n",
+        "\n\n\n@article{A, title = {Duplicate of a}}\n\n",
+        "@misc{c, note = {C}}"
+    );
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void leavesAFileWithoutChangesAlone() throws Exception {
+        final File file = this.file(IncrementalWriterTest.INPUT);
+        Assert.assertEquals(
+            0,
+            new IncrementalWriter().rewrite(file, Collections.emptyList())
+        );
+        Assert.assertEquals(IncrementalWriterTest.INPUT, IncrementalWriterTest.read(file));
+    }
+
+    @Test
+    public void copiesUnchangedBytesThrough() throws Exception {
+        final File file = this.file(IncrementalWriterTest.INPUT);
+        final int replaced = new IncrementalWriter(object -> "@misc{b, title = {New}}")
+            .rewrite(file, Arrays.asList(IncrementalWriterTest.entry("b")));
+        Assert.assertEquals(1, replaced);
+        Assert.assertEquals(
+            IncrementalWriterTest.INPUT.replace(
+                "@Article{ B , title={B}}",
+                "@misc{b, title = {New}}"
+            ),
+            IncrementalWriterTest.read(file)
+        );
+    }
+
+    @Test
+    public void replacesTheFirstEntryOfADuplicatedKey() throws Exception {
+        final File file = this.file(IncrementalWriterTest.INPUT);
+        final int replaced = new IncrementalWriter(object -> "@misc{A, title = {New}}")
+            .rewrite(file, Arrays.asList(IncrementalWriterTest.entry("A")));
+        Assert.assertEquals(1, replaced);
+        Assert.assertEquals(
+            IncrementalWriterTest.INPUT.replace(
+                "@article{a,\n  title   = {A},\n  journal = ieee\n}",
+                "@misc{A, title = {New}}"
+            ),
+            IncrementalWriterTest.read(file)
+        );
+    }
+
+    @Test
+    public void appendsNewEntriesAfterABlankLine() throws Exception {
+        final File file = this.file(IncrementalWriterTest.INPUT);
+        final int replaced = new IncrementalWriter(object -> "@misc{d}")
+            .rewrite(file, Arrays.asList(IncrementalWriterTest.entry("d")));
+        Assert.assertEquals(0, replaced);
+        Assert.assertEquals(
+            IncrementalWriterTest.INPUT + "\n\n@misc{d}\n",
+            IncrementalWriterTest.read(file)
+        );
+    }
+
+    private File file(final String text) throws Exception {
+        final File file = this.folder.newFile("input.bib");
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(final File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static BibTeXEntry entry(final String key) {
+        final BibTeXEntry entry =
+            new BibTeXEntry(BibTeXEntry.TYPE_MISC, new Key(key));
+        entry.addField(
+            BibTeXEntry.KEY_TITLE,
+            new StringValue("New", StringValue.Style.BRACED)
+        );
+        return entry;
+    }
+
+}
@@ -0,0 +1,110 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link OfflineTasks}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class OfflineTasksTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void filtersFilesInParallelLikeSequentially() throws Exception {
+        // Every file defines k0 to k19 with its own titles, and k<file>x once
+        final List<File> inputs = new ArrayList<>();
+        for (int file = 0; file < 6; file++) {
+            final StringBuilder content = new StringBuilder();
+            for (int i = 19; i >= 0; i--)
+                content.append(
+                    String.format("@article{k%d, title = {File %d}}\n\n", i, file)
+                );
+            content.append(
+                String.format("@article{k%dx, title = {Only %d}}\n\n", file, file)
+            );
+            final File input = this.folder.newFile(String.format("%d.bib", file));
+            Files.write(
+                input.toPath(),
+                content.toString().getBytes(StandardCharsets.UTF_8)
+            );
+            inputs.add(input);
+        }
+        final List<String> keys = Arrays.asList(
+            "k3", "k17", "k0", "k2x", "k5x", "k12", "missing"
+        );
+        final OfflineTasks tasks = new OfflineTasks(DatabaseCache.disabled());
+        final Map<String, String> sequential =
+            OfflineTasksTest.titles(tasks.filteredEntries(keys, inputs.stream()));
+        Assert.assertEquals(
+            Arrays.asList("k17", "k12", "k3", "k0", "k2x", "k5x"),
+            new ArrayList<>(sequential.keySet())
+        );
+        for (String key : Arrays.asList("k17", "k12", "k3", "k0"))
+            Assert.assertEquals("File 0", sequential.get(key));
+        Assert.assertEquals("Only 2", sequential.get("k2x"));
+        for (int run = 0; run < 5; run++) {
+            final Map<String, String> parallel = OfflineTasksTest.titles(
+                tasks.filteredEntries(keys, inputs.stream(), 4)
+            );
+            Assert.assertEquals(
+                new ArrayList<>(sequential.entrySet()),
+                new ArrayList<>(parallel.entrySet())
+            );
+        }
+    }
+
+    /**
+     * The title of each entry, in the order of the database.
+     */
+    private static Map<String, String> titles(final BibTeXDatabase database) {
+        final Map<String, String> titles = new LinkedHashMap<>();
+        for (Map.Entry<Key, BibTeXEntry> entry : database.getEntries().entrySet())
+            titles.put(
+                entry.getKey().getValue(),
+                entry.getValue().getField(BibTeXEntry.KEY_TITLE).toUserString()
+            );
+        return titles;
+    }
+
+}
@@ -0,0 +1,171 @@
+package co.migueljimenez.bib;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link Pipeline}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class PipelineTest {
+
+    @Test(timeout = 10000)
+    public void passesEveryItemThroughEveryStage() throws Exception {
+        final List<Integer> output =
+            Collections.synchronizedList(new ArrayList<>());
+        Pipeline.from(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), 2)
+            .then("double", 3, true, item -> item * 2)
+            .then("increment", 2, false, item -> item + 1)
+            .drain(3, output::addAll);
+        Collections.sort(output);
+        Assert.assertEquals(Arrays.asList(3, 5, 7, 9, 11, 13, 15, 17), output);
+    }
+
+    @Test(timeout = 10000)
+    public void dropsTheItemsOfAStageThatThrows() throws Exception {
+        final List<Integer> output =
+            Collections.synchronizedList(new ArrayList<>());
+        Pipeline.from(Arrays.asList(1, 2, 3, 4), 1)
+            .then("fail", 1, false, item -> {
+                if (item == 2)
+                    throw new IllegalStateException("Expected");
+                if (item == 3)
+                    throw new AssertionError("Expected");
+                return item;
+            })
+            .drain(1, output::addAll);
+        Assert.assertEquals(Arrays.asList(1, 4), output);
+    }
+
+    @Test(timeout = 10000)
+    public void takesTheItemsOfAStageFromItsDispatcher() throws Exception {
+        final List<Integer> output =
+            Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> done =
+            Collections.synchronizedList(new ArrayList<>());
+        final Pipeline.Dispatcher<Integer> dispatcher =
+            new Pipeline.Dispatcher<Integer>() {
+                private final Deque<Integer> items = new ArrayDeque<>();
+                private boolean closed;
+                @Override
+                public synchronized void add(final Integer item) {
+                    this.items.push(item);
+                    this.notifyAll();
+                }
+                @Override
+                public synchronized void close() {
+                    this.closed = true;
+                    this.notifyAll();
+                }
+                @Override
+                public synchronized Integer take() throws InterruptedException {
+                    while (this.items.isEmpty() && !this.closed)
+                        this.wait();
+                    return this.items.poll();
+                }
+                @Override
+                public void done(final Integer item) {
+                    done.add(item);
+                }
+            };
+        Pipeline.from(Arrays.asList(1, 2, 3, 4, 5, 6), 2)
+            .then("dispatched", 2, true, dispatcher, item -> {
+                if (item == 3)
+                    throw new IllegalStateException("Expected");
+                return item * 10;
+            })
+            .drain(2, output::addAll);
+        Collections.sort(output);
+        Collections.sort(done);
+        Assert.assertEquals(Arrays.asList(10, 20, 40, 50, 60), output);
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), done);
+    }
+
+    @Test(timeout = 10000)
+    public void waitsForTheDispatcherToHaveRoom() throws Exception {
+        final List<Integer> output =
+            Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger largest = new AtomicInteger();
+        final Deque<Integer> retried = new ArrayDeque<>();
+        final Pipeline.Dispatcher<Integer> dispatcher =
+            new Pipeline.Dispatcher<Integer>() {
+                private final Deque<Integer> items = new ArrayDeque<>();
+                private boolean closed;
+                @Override
+                public synchronized void add(final Integer item) {
+                    this.items.add(item);
+                    largest.accumulateAndGet(this.items.size(), Math::max);
+                    this.notifyAll();
+                }
+                @Override
+                public synchronized void close() {
+                    this.closed = true;
+                    this.notifyAll();
+                }
+                @Override
+                public synchronized Integer take() throws InterruptedException {
+                    while (this.items.isEmpty() && !this.closed)
+                        this.wait();
+                    return this.items.poll();
+                }
+                @Override
+                public void done(final Integer item) {
+                    // Nothing to release
+                }
+            };
+        final List<Integer> items = new ArrayList<>();
+        for (int i = 1; i <= 20; i++)
+            items.add(i);
+        Pipeline.from(items, 2)
+            .then("slow", 1, true, dispatcher, item -> {
+                if (item % 5 == 0 && !retried.contains(item)) {
+                    // Hand it back, as for a throttled host
+                    retried.add(item);
+                    dispatcher.add(item);
+                    return null;
+                }
+                Thread.sleep(10L);
+                return item;
+            })
+            .drain(5, output::addAll);
+        Collections.sort(output);
+        Assert.assertEquals(items, output);
+        Assert.assertTrue(
+            String.format("The dispatcher held %d items", largest.get()),
+            largest.get() <= 3
+        );
+    }
+
+}
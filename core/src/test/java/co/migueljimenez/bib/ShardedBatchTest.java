@@ -0,0 +1,129 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.BibTeXObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link ShardedBatch}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class ShardedBatchTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsKeysSeparatedByCommasAndSpaces() throws Exception {
+        final File keys = this.folder.newFile("keys.txt");
+        Files.write(
+            keys.toPath(),
+            "a, b\r\n  c\n\nd,e ,\n".getBytes(StandardCharsets.UTF_8)
+        );
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList("a", "b", "c", "d", "e")),
+            ShardedBatch.keys(keys)
+        );
+    }
+
+    @Test(timeout = 120000)
+    public void filtersCompressedInputsSplitByRange() throws Exception {
+        final File input = this.folder.newFile("input.bib.gz");
+        try (OutputStream output =
+            new GZIPOutputStream(new FileOutputStream(input))) {
+            for (int i = 0; i < 200; i++)
+                output.write(
+                    String.format("@article{k%d, title = {T%d}}\n\n", i, i)
+                        .getBytes(StandardCharsets.UTF_8)
+                );
+        }
+        final File keys = this.folder.newFile("keys.txt");
+        Files.write(keys.toPath(), "k3, k150\nk199\n".getBytes(StandardCharsets.UTF_8));
+        final File output = new File(this.folder.getRoot(), "output.bib");
+        new ShardedBatch(4, 2, 0).run(
+            ShardedBatch.Task.FILTER,
+            ShardedBatch.Split.RANGE,
+            Arrays.asList(input),
+            keys,
+            output
+        );
+        final List<String> found;
+        try (Stream<BibTeXObject> objects = BibTeXReader.objects(output)) {
+            found = objects.filter(object -> object instanceof BibTeXEntry)
+                .map(object -> ((BibTeXEntry) object).getKey().getValue())
+                .collect(Collectors.toList());
+        }
+        Assert.assertEquals(Arrays.asList("k3", "k150", "k199"), found);
+    }
+
+    @Test(timeout = 120000)
+    public void deduplicatesKeysThatDifferOnlyInCase() throws Exception {
+        final File input = this.folder.newFile("input.bib");
+        final StringBuilder entries = new StringBuilder();
+        for (int i = 0; i < 50; i++)
+            entries.append(String.format("@article{Key%d, title = {First}}\n\n", i));
+        for (int i = 0; i < 50; i++)
+            entries.append(String.format("@article{KEY%d, title = {Second}}\n\n", i));
+        Files.write(input.toPath(), entries.toString().getBytes(StandardCharsets.UTF_8));
+        final File output = new File(this.folder.getRoot(), "output.bib");
+        new ShardedBatch(4, 2, 0).run(
+            ShardedBatch.Task.DEDUPLICATE,
+            ShardedBatch.Split.KEY,
+            Arrays.asList(input),
+            null,
+            output
+        );
+        // Read the blocks as written, since the parser would merge them
+        final List<String> found = new ArrayList<>();
+        try (BibTeXReader reader =
+            new BibTeXReader(BibTeXReader.open(output))) {
+            String key;
+            while ((key = reader.nextKey()) != null)
+                found.add(key);
+        }
+        Assert.assertEquals(50, found.size());
+        for (int i = 0; i < 50; i++)
+            Assert.assertEquals(String.format("Key%d", i), found.get(i));
+    }
+
+}
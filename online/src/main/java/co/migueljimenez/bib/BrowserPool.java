@@ -0,0 +1,296 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A fixed set of browser sessions shared among worker threads. Each render
+ * borrows a session, so pages and URLs never leak between threads, and
+ * holds a permit for the target host, so no publisher gets more than
+ * {@code maxPerHost} concurrent requests. A session that does not answer
+ * within the timeout, or that fails, is restarted and the page is tried
+ * once more. A session that cannot be restarted is discarded, and a new one
+ * is started in its place by the next render.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class BrowserPool {
+
+    /**
+     * Idle sessions.
+     */
+    private final BlockingQueue<Session> sessions;
+
+    /**
+     * All the live sessions, to shut them down.
+     */
+    private final List<Session> all;
+
+    /**
+     * Starts new sessions.
+     */
+    private final Factory factory;
+
+    /**
+     * The number of sessions discarded and not yet replaced.
+     */
+    private int missing;
+
+    /**
+     * Permits per host.
+     */
+    private final Map<String, Semaphore> hosts;
+
+    /**
+     * Maximum number of concurrent requests per host.
+     */
+    private final int maxPerHost;
+
+    /**
+     * Maximum time to wait for a page, in seconds.
+     */
+    private final long timeout;
+
+    /**
+     * Runs the browser calls, so that hung calls can be abandoned.
+     */
+    private final ExecutorService watchdog;
+
+    /**
+     * Default constructor.
+     * @param size The number of browser sessions
+     * @param maxPerHost Maximum number of concurrent requests per host
+     * @param timeout Maximum time to wait for a page, in seconds
+     * @throws IOException If a browser session could not be started
+     */
+    public BrowserPool(final int size, final int maxPerHost,
+        final long timeout) throws IOException {
+        this(size, maxPerHost, timeout, () -> new BrowserSession(timeout));
+    }
+
+    /**
+     * Constructor with a custom session factory.
+     * @param size The number of browser sessions
+     * @param maxPerHost Maximum number of concurrent requests per host
+     * @param timeout Maximum time to wait for a page, in seconds
+     * @param factory Starts new sessions
+     * @throws IOException If a session could not be started, in which case
+     *  the sessions already started are shut down
+     */
+    BrowserPool(final int size, final int maxPerHost, final long timeout,
+        final Factory factory) throws IOException {
+        this.sessions = new ArrayBlockingQueue<>(size);
+        this.all = new CopyOnWriteArrayList<>();
+        this.factory = factory;
+        this.missing = 0;
+        this.hosts = new ConcurrentHashMap<>();
+        this.maxPerHost = maxPerHost;
+        this.timeout = timeout;
+        this.watchdog = Executors.newCachedThreadPool();
+        try {
+            for (int i = 0; i < size; i++) {
+                final Session session = factory.start();
+                this.all.add(session);
+                this.sessions.add(session);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.shutdown();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return this.all.size();
+    }
+
+    /**
+     * Renders the given URL on an idle session.
+     * @param url The URL
+     * @return the rendered page
+     * @throws IOException If the page could not be rendered, even after
+     *  restarting the session
+     */
+    public Page render(final String url) throws IOException {
+        final Semaphore permits = this.hosts.computeIfAbsent(
+            BrowserPool.host(url),
+            host -> new Semaphore(this.maxPerHost)
+        );
+        Session session = null;
+        try {
+            permits.acquire();
+            session = this.borrow();
+            try {
+                return this.render(session, url);
+            } catch (IOException e) {
+                System.err.printf(
+                    "Restarting browser session after failing to load %s\n",
+                    url
+                );
+                try {
+                    session.restart();
+                } catch (IOException | RuntimeException restart) {
+                    this.discard(session);
+                    session = null;
+                    throw new IOException(
+                        String.format(
+                            "Could not restart the browser session for %s",
+                            url
+                        ),
+                        restart
+                    );
+                }
+                return this.render(session, url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            if (session != null)
+                this.sessions.add(session);
+            permits.release();
+        }
+    }
+
+    public void shutdown() {
+        this.all.forEach(Session::shutdown);
+        this.watchdog.shutdownNow();
+    }
+
+    /**
+     * Takes an idle session, starting a new one first if a discarded session
+     * has not been replaced yet.
+     * @return the session
+     * @throws IOException If the replacement could not be started
+     * @throws InterruptedException
+     */
+    private Session borrow() throws IOException, InterruptedException {
+        Session idle = this.sessions.poll();
+        while (idle == null) {
+            synchronized (this) {
+                if (this.missing > 0) {
+                    this.missing--;
+                    break;
+                }
+            }
+            // Wake up now and then, in case a busy session gets discarded
+            idle = this.sessions.poll(1L, TimeUnit.SECONDS);
+        }
+        if (idle != null)
+            return idle;
+        try {
+            final Session session = this.factory.start();
+            this.all.add(session);
+            return session;
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                this.missing++;
+            }
+            throw new IOException("Could not start a browser session", e);
+        }
+    }
+
+    /**
+     * Shuts down a broken session, so that it is never borrowed again.
+     * @param session The session
+     */
+    private void discard(final Session session) {
+        this.all.remove(session);
+        session.shutdown();
+        synchronized (this) {
+            this.missing++;
+        }
+    }
+
+    private Page render(final Session session, final String url)
+        throws IOException, InterruptedException {
+        final Future<Page> page = this.watchdog.submit(() -> session.render(url));
+        try {
+            return page.get(this.timeout, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            page.cancel(true);
+            throw new IOException(e);
+        }
+    }
+
+    private static String host(final String url) throws MalformedURLException {
+        return new URL(url).getHost();
+    }
+
+    /**
+     * A browser that renders one page at a time.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-18
+     * @version $Id$
+     * @since 0.0.1
+     */
+    public interface Session {
+
+        /**
+         * Navigates to the given URL.
+         * @param url The URL
+         * @return the rendered page
+         */
+        Page render(String url);
+
+        /**
+         * Kills the browser and starts a new one.
+         * @throws IOException
+         */
+        void restart() throws IOException;
+
+        void shutdown();
+
+    }
+
+    /**
+     * Starts browser sessions.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-18
+     * @version $Id$
+     * @since 0.0.1
+     */
+    interface Factory {
+
+        Session start() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,137 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A headless Chrome instance with its own driver service. A session is used
+ * by one thread at a time, and can be restarted when the browser hangs or
+ * crashes.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class BrowserSession implements BrowserPool.Session {
+
+    /**
+     * Maximum time to wait for a page to load.
+     */
+    private final long timeout;
+
+    /**
+     * The driver service.
+     */
+    private ChromeDriverService service;
+
+    /**
+     * The web driver instance.
+     */
+    private WebDriver webDriver;
+
+    /**
+     * Default constructor.
+     * @param timeout Maximum time to wait for a page to load, in seconds
+     * @throws IOException
+     */
+    public BrowserSession(final long timeout) throws IOException {
+        this.timeout = timeout;
+        this.start();
+    }
+
+    /**
+     * Navigates to the given URL.
+     * @param url The URL
+     * @return the rendered page
+     */
+    @Override
+    public Page render(final String url) {
+        this.webDriver.get(url);
+        return new Page(
+            this.webDriver.getCurrentUrl(),
+            Jsoup.parse(this.webDriver.getPageSource())
+        );
+    }
+
+    /**
+     * Kills the browser and starts a new one.
+     * @throws IOException
+     */
+    @Override
+    public void restart() throws IOException {
+        this.shutdown();
+        this.start();
+    }
+
+    @Override
+    public void shutdown() {
+        try {
+            if (this.webDriver != null)
+                this.webDriver.quit();
+        } catch (RuntimeException e) {
+            // The browser may already be gone
+        } finally {
+            this.service.stop();
+        }
+    }
+
+    private void start() throws IOException {
+        this.service = new ChromeDriverService.Builder()
+            .usingDriverExecutable(
+                new File(
+                    System.getProperty("webdriver.chrome.driver")
+                )
+            )
+            .usingAnyFreePort()
+            .build();
+        this.service.start();
+        final ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless", "--disable-gpu");
+        final DesiredCapabilities capabilities = DesiredCapabilities.chrome();
+        capabilities.setCapability(ChromeOptions.CAPABILITY, options);
+        this.webDriver = null;
+        try {
+            this.webDriver = new RemoteWebDriver(
+                this.service.getUrl(),
+                capabilities
+            );
+            this.webDriver.manage()
+                .timeouts()
+                .pageLoadTimeout(this.timeout, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            // Do not leave the driver service running without a browser
+            this.shutdown();
+            throw new IOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Persistent cache of what was learned about each DOI: its landing URL,
+ * abstract and PDF link, each one with the time it was fetched and whether
+ * the fetch succeeded. Successful lookups expire after {@code ttl}, and
+ * failures after {@code negativeTtl}, so recently failed DOIs are not
+ * retried on every run.
+ * <p>
+ * Each DOI is stored in its own properties file, in one of 256
+ * sub-directories. Updates take the lock file of the sub-directory and
+ * replace the file atomically, so several processes (and threads) can
+ * share the cache. Records are read once per run and kept in memory, along
+ * with the updates of this process; updates from other processes are seen
+ * by the next run.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class DoiCache {
+
+    /**
+     * The landing URL a DOI redirects to.
+     */
+    public static final String URL = "url";
+
+    /**
+     * The abstract of the publication.
+     */
+    public static final String ABSTRACT = "abstract";
+
+    /**
+     * The link to the PDF file.
+     */
+    public static final String PDF = "pdf";
+
+    /**
+     * The UTF-8 charset.
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Guards each sub-directory against concurrent updates from this
+     * process, since file locks are held per process.
+     */
+    private final Object[] stripes;
+
+    /**
+     * The records read or written so far, by file.
+     */
+    private final Map<File, Properties> records;
+
+    /**
+     * The directory containing the cache files.
+     */
+    private final File directory;
+
+    /**
+     * For how long successful lookups are valid, in milliseconds.
+     */
+    private final long ttl;
+
+    /**
+     * For how long failed lookups are remembered, in milliseconds.
+     */
+    private final long negativeTtl;
+
+    /**
+     * Default constructor.
+     */
+    public DoiCache() {
+        this(
+            new File(DatabaseCache.defaultDirectory(), "doi"),
+            TimeUnit.DAYS.toMillis(Long.getLong("bib.doi.ttl.days", 90L)),
+            TimeUnit.DAYS.toMillis(Long.getLong("bib.doi.negative.ttl.days", 1L))
+        );
+    }
+
+    /**
+     * Secondary constructor.
+     * @param directory The directory containing the cache files
+     * @param ttl For how long successful lookups are valid, in milliseconds
+     * @param negativeTtl For how long failed lookups are remembered, in
+     *  milliseconds
+     */
+    public DoiCache(final File directory, final long ttl,
+        final long negativeTtl) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.stripes = new Object[256];
+        for (int i = 0; i < this.stripes.length; i++)
+            this.stripes[i] = new Object();
+        this.records = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Looks up a successfully fetched field.
+     * @param doi The DOI
+     * @param field One of {@link #URL}, {@link #ABSTRACT} or {@link #PDF}
+     * @return the value, or null if it is missing, failed or expired
+     */
+    public String lookup(final String doi, final String field) {
+        final Properties record = this.record(this.file(doi));
+        if (!"ok".equals(record.getProperty(field + ".status"))
+            || this.expired(record, field, this.ttl))
+            return null;
+        return record.getProperty(field);
+    }
+
+    /**
+     * Whether fetching the field failed within the negative TTL.
+     * @param doi The DOI
+     * @param field One of {@link #URL}, {@link #ABSTRACT} or {@link #PDF}
+     * @return whether to skip fetching the field
+     */
+    public boolean failedRecently(final String doi, final String field) {
+        final Properties record = this.record(this.file(doi));
+        return "failed".equals(record.getProperty(field + ".status"))
+            && !this.expired(record, field, this.negativeTtl);
+    }
+
+    public void store(final String doi, final String field,
+        final String value) {
+        this.update(doi, field, "ok", value);
+    }
+
+    public void fail(final String doi, final String field,
+        final String reason) {
+        this.update(doi, field, "failed", reason);
+    }
+
+    private boolean expired(final Properties record, final String field,
+        final long ttl) {
+        final String time = record.getProperty(field + ".time");
+        return time == null
+            || System.currentTimeMillis() - Long.parseLong(time) > ttl;
+    }
+
+    private void update(final String doi, final String field,
+        final String status, final String value) {
+        final File file = this.file(doi);
+        synchronized (this.stripes[Integer.parseInt(file.getParentFile().getName(), 16)]) {
+            try {
+                file.getParentFile().mkdirs();
+                final Path lock = file.toPath().resolveSibling(".lock");
+                try (FileChannel channel = FileChannel.open(
+                        lock,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE
+                    )) {
+                    final FileLock fileLock = channel.lock();
+                    try {
+                        final Properties record = this.read(file);
+                        record.setProperty("doi", doi);
+                        record.setProperty(field, value == null ? "" : value);
+                        record.setProperty(field + ".status", status);
+                        record.setProperty(
+                            field + ".time",
+                            String.valueOf(System.currentTimeMillis())
+                        );
+                        final Path temporary = Files.createTempFile(
+                            file.getParentFile().toPath(),
+                            file.getName(),
+                            ".tmp"
+                        );
+                        try (Writer writer = new OutputStreamWriter(
+                                Files.newOutputStream(temporary),
+                                DoiCache.UTF8
+                            )) {
+                            record.store(writer, null);
+                        }
+                        Files.move(
+                            temporary,
+                            file.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE
+                        );
+                        this.records.put(file, record);
+                    } finally {
+                        fileLock.release();
+                    }
+                }
+            } catch (IOException e) {
+                System.err.printf(
+                    "Couldn't update the cache of %s (%s)\n",
+                    doi,
+                    e.getMessage()
+                );
+            }
+        }
+    }
+
+    /**
+     * The record in a file, read from disk the first time only.
+     */
+    private Properties record(final File file) {
+        return this.records.computeIfAbsent(file, this::read);
+    }
+
+    private Properties read(final File file) {
+        final Properties record = new Properties();
+        if (file.exists()) {
+            try (Reader reader = new InputStreamReader(
+                    Files.newInputStream(file.toPath()),
+                    DoiCache.UTF8
+                )) {
+                record.load(reader);
+            } catch (IOException e) {
+                System.err.printf(
+                    "Ignoring unreadable cache file %s (%s)\n",
+                    file,
+                    e.getMessage()
+                );
+            }
+        }
+        return record;
+    }
+
+    /**
+     * The file of a DOI, in a sub-directory named after the first byte of
+     * its hash to keep directories small. DOIs are case insensitive.
+     */
+    private File file(final String doi) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(
+                doi.trim().toLowerCase(Locale.ROOT).getBytes(DoiCache.UTF8)
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 16; i++)
+            name.append(String.format("%02x", hash[i]));
+        return new File(
+            new File(this.directory, name.substring(0, 2)),
+            name.append(".properties").toString()
+        );
+    }
+
+}
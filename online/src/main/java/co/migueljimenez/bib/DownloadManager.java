@@ -0,0 +1,343 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Downloads PDF files on a bounded pool of threads. Each file is first
+ * written to {@code <name>.part}; an interrupted download is resumed with an
+ * HTTP range request, and the file is moved to its final name only once it
+ * is complete and looks like a PDF, so HTML error pages are never saved as
+ * PDFs. A partial file that turns out to be too large or not a PDF is
+ * deleted, so the next run starts over instead of resuming it. When the
+ * queue is full, the caller runs the download itself, which
+ * keeps the number of pending downloads bounded.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class DownloadManager {
+
+    /**
+     * The user agent sent with the requests.
+     */
+    private static final String USER_AGENT =
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0 Safari/537.36";
+
+    /**
+     * The executor running the downloads.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Permits per host.
+     */
+    private final Map<String, Semaphore> hosts;
+
+    /**
+     * Maximum number of concurrent downloads per host.
+     */
+    private final int maxPerHost;
+
+    /**
+     * Maximum size of a file, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Latencies and outcomes of the downloads.
+     */
+    private final ScrapeMetrics metrics;
+
+    /**
+     * Limits the rate of requests to each host.
+     */
+    private final HostScheduler scheduler;
+
+    /**
+     * Number of downloads that failed.
+     */
+    private final AtomicInteger failed;
+
+    /**
+     * Default constructor.
+     * @param parallelism The number of concurrent downloads
+     * @param maxPerHost Maximum number of concurrent downloads per host
+     * @param maxSize Maximum size of a file, in bytes
+     * @param metrics Latencies and outcomes of the downloads
+     * @param scheduler Limits the rate of requests to each host
+     */
+    public DownloadManager(final int parallelism, final int maxPerHost,
+        final long maxSize, final ScrapeMetrics metrics,
+        final HostScheduler scheduler) {
+        this.executor = new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(parallelism * 4),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.hosts = new ConcurrentHashMap<>();
+        this.maxPerHost = maxPerHost;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.failed = new AtomicInteger();
+    }
+
+    /**
+     * Queues a download.
+     * @param source The URL of the file
+     * @param output The file to write
+     * @return a future completed with the output file
+     */
+    public CompletableFuture<File> enqueue(final String source,
+        final File output) {
+        final CompletableFuture<File> future = new CompletableFuture<>();
+        this.executor.execute(() -> {
+            try {
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        // Waits for the host's pause, if it throttled
+                        this.download(source, output);
+                        break;
+                    } catch (HostScheduler.Throttled e) {
+                        if (attempt > Integer.getInteger("bib.host.retries", 5))
+                            throw e;
+                    }
+                }
+                future.complete(output);
+            } catch (IOException | RuntimeException e) {
+                this.failed.incrementAndGet();
+                System.err.printf(
+                    "%s couldn't be downloaded from %s (%s)\n",
+                    output.getName(),
+                    source,
+                    e.getMessage()
+                );
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits for the queued downloads and stops the threads.
+     * @return the number of downloads that failed
+     * @throws InterruptedException
+     */
+    public int shutdown() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        return this.failed.get();
+    }
+
+    /**
+     * Downloads the file, resuming from a previous partial download.
+     * @param source The URL of the file
+     * @param output The file to write
+     * @throws IOException
+     */
+    public void download(final String source, final File output)
+        throws IOException {
+        final String host = new URL(source).getHost();
+        final Semaphore permits = this.hosts.computeIfAbsent(
+            host,
+            key -> new Semaphore(this.maxPerHost)
+        );
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        try {
+            this.scheduler.acquire(host);
+            this.download(source, output, host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Downloads the file, holding a permit for its host.
+     */
+    private void download(final String source, final File output,
+        final String host) throws IOException {
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.DOWNLOAD,
+            host)) {
+            final File part = new File(output.getPath() + ".part");
+            final long existing = part.exists() ? part.length() : 0L;
+            final HttpURLConnection connection =
+                (HttpURLConnection) new URL(source).openConnection();
+            connection.setInstanceFollowRedirects(true);
+            connection.setRequestProperty("User-Agent", DownloadManager.USER_AGENT);
+            connection.setConnectTimeout(60_000);
+            connection.setReadTimeout(60_000);
+            if (existing > 0)
+                connection.setRequestProperty(
+                    "Range",
+                    String.format("bytes=%d-", existing)
+                );
+            final long start = System.nanoTime();
+            final int status = connection.getResponseCode();
+            if (status == 429 || status == 503) {
+                this.scheduler.throttled(
+                    host,
+                    PageFetcher.retryAfter(connection.getHeaderField("Retry-After"))
+                );
+                connection.disconnect();
+                throw new HostScheduler.Throttled(status, source);
+            }
+            this.scheduler.succeeded(
+                host,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            );
+            if (status == 416 && existing > 0) {
+                // The partial file is already complete
+                connection.disconnect();
+            } else if (status == 200 || status == 206) {
+                try {
+                    this.validate(connection, status == 206 ? existing : 0L);
+                    try (InputStream input = connection.getInputStream()) {
+                        this.transfer(input, part, status == 206 ? existing : 0L);
+                    }
+                } catch (Rejected e) {
+                    // Resuming it would fail again
+                    Files.deleteIfExists(part.toPath());
+                    throw e;
+                }
+            } else {
+                connection.disconnect();
+                throw new IOException(
+                    String.format("Unexpected HTTP status %d", status)
+                );
+            }
+            if (!DownloadManager.isPdf(part)) {
+                Files.delete(part.toPath());
+                throw new IOException("The downloaded file is not a PDF");
+            }
+            Files.move(
+                part.toPath(),
+                output.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+            sample.succeed();
+        }
+    }
+
+    private void validate(final HttpURLConnection connection,
+        final long offset) throws IOException {
+        final String type = connection.getContentType();
+        if (type != null && (type.startsWith("text/") || type.contains("html"))) {
+            connection.disconnect();
+            throw new Rejected(
+                String.format("Expected a PDF file but got %s", type)
+            );
+        }
+        final long length = connection.getContentLengthLong();
+        if (length > 0 && offset + length > this.maxSize) {
+            connection.disconnect();
+            throw new Rejected(
+                String.format("The file is too large (%d bytes)", offset + length)
+            );
+        }
+    }
+
+    /**
+     * Copies the response body into the file, starting at the given offset,
+     * letting the file channel pull straight from the socket stream.
+     */
+    private void transfer(final InputStream input, final File part,
+        final long offset) throws IOException {
+        try (ReadableByteChannel source = Channels.newChannel(input);
+            FileChannel target = FileChannel.open(
+                part.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE
+            )) {
+            target.truncate(offset);
+            long position = offset;
+            long transferred;
+            while ((transferred = target.transferFrom(source, position, 1 << 20)) > 0) {
+                position += transferred;
+                this.metrics.downloaded(transferred);
+                if (position > this.maxSize)
+                    throw new Rejected(
+                        String.format("The file is larger than %d bytes", this.maxSize)
+                    );
+            }
+        }
+    }
+
+    private static boolean isPdf(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            final ByteBuffer magic = ByteBuffer.allocate(5);
+            while (magic.hasRemaining() && channel.read(magic) > 0);
+            return new String(magic.array(), 0, magic.position(), "US-ASCII")
+                .equals("%PDF-");
+        }
+    }
+
+    /**
+     * Reports a response that is not the expected file, so the partial
+     * download is of no use.
+     */
+    private static final class Rejected extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        Rejected(final String message) {
+            super(message);
+        }
+
+    }
+
+}
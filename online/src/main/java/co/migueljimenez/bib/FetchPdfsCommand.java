@@ -0,0 +1,70 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Finds the PDF links of the entries of a bibtex file, and optionally
+ * downloads them (see {@link OnlineTasks#findPdfFiles(File, boolean)}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class FetchPdfsCommand implements Command {
+
+    @Override
+    public String name() {
+        return "fetch-pdfs";
+    }
+
+    @Override
+    public String usage() {
+        return "<input> <directory> [--download] [--sessions n] [--per-host n]";
+    }
+
+    @Override
+    public String description() {
+        return "List (and download) the PDF files of a file's entries";
+    }
+
+    @Override
+    public int run(final List<String> args) throws Exception {
+        final boolean download = Bib.flag(args, "--download");
+        final int sessions = Bib.option(args, "--sessions", 1);
+        final int perHost = Bib.option(args, "--per-host", 1);
+        Bib.expect(args, 2, 2);
+        OnlineTasks.defaultChromeDriver();
+        final OnlineTasks online =
+            new OnlineTasks(new File(args.get(0)), sessions, perHost);
+        try {
+            online.findPdfFiles(new File(args.get(1)), download);
+        } finally {
+            online.shutdown();
+        }
+        return 0;
+    }
+
+}
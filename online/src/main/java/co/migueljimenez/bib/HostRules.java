@@ -0,0 +1,481 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * How to extract the abstract and the PDF link from each publisher's pages.
+ * Rules are read from {@code host-rules.ini} on the classpath, or from the
+ * file given by {@code bib.host.rules}, so that a publisher can be added
+ * without recompiling (the file format is described in the bundled one).
+ * <p>
+ * Selectors are compiled once, when the rules are loaded, and the rule of
+ * each host is looked up once and then cached, so extracting from a page
+ * does not parse URLs or CSS selectors.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class HostRules {
+
+    /**
+     * Whether the pages of a host are rendered in a browser.
+     */
+    public enum Render {
+
+        /**
+         * Fetched over HTTP; a page whose static HTML lacks the content is
+         * rendered, and the host is switched to the browser once a few of
+         * its pages needed it.
+         */
+        AUTO,
+
+        /**
+         * Always rendered.
+         */
+        ALWAYS,
+
+        /**
+         * Never rendered, e.g., because some of its pages really have no
+         * abstract.
+         */
+        NEVER
+
+    }
+
+    /**
+     * The rules of hosts matched exactly.
+     */
+    private final Map<String, Rule> exact;
+
+    /**
+     * The rules of hosts matched by suffix, by suffix (e.g., springeropen.com
+     * for *.springeropen.com).
+     */
+    private final Map<String, Rule> suffixes;
+
+    /**
+     * The rule of hosts that match no other rule.
+     */
+    private final Rule fallback;
+
+    /**
+     * The rule found for each host looked up so far.
+     */
+    private final Map<String, Rule> cache;
+
+    private HostRules(final Map<String, Rule> exact,
+        final Map<String, Rule> suffixes, final Rule fallback) {
+        this.exact = exact;
+        this.suffixes = suffixes;
+        this.fallback = fallback;
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Loads the rules from the file given by {@code bib.host.rules}, or else
+     * from the bundled {@code host-rules.ini}.
+     * @return the rules
+     * @throws IOException If the rules cannot be read or are malformed
+     */
+    public static HostRules load() throws IOException {
+        final String file = System.getProperty("bib.host.rules");
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(
+                    new File(file).toPath(),
+                    StandardCharsets.UTF_8
+                )) {
+                return HostRules.parse(reader);
+            }
+        }
+        try (InputStream input = HostRules.class.getResourceAsStream(
+                "/host-rules.ini"
+            )) {
+            if (input == null)
+                throw new IOException("host-rules.ini is not in the classpath");
+            return HostRules.parse(
+                new InputStreamReader(input, StandardCharsets.UTF_8)
+            );
+        }
+    }
+
+    /**
+     * Parses and compiles rules.
+     * @param input The rules, in the format of {@code host-rules.ini}
+     * @return the rules
+     * @throws IOException If the rules cannot be read or are malformed
+     */
+    public static HostRules parse(final Reader input) throws IOException {
+        final Map<String, Rule> exact = new HashMap<>();
+        final Map<String, Rule> suffixes = new HashMap<>();
+        Rule fallback = new Rule("default");
+        Rule rule = null;
+        final BufferedReader reader = new BufferedReader(input);
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith(";"))
+                continue;
+            if (line.startsWith("[") && line.endsWith("]")) {
+                final String host = line.substring(1, line.length() - 1)
+                    .trim()
+                    .toLowerCase(Locale.ROOT);
+                rule = new Rule(host);
+                if (host.equals("default"))
+                    fallback = rule;
+                else if (host.startsWith("*."))
+                    suffixes.put(host.substring(2), rule);
+                else
+                    exact.put(host, rule);
+                continue;
+            }
+            final int equals = line.indexOf('=');
+            if (rule == null || equals < 0)
+                throw new IOException(
+                    String.format("Malformed host rule at line %d: %s", number, line)
+                );
+            try {
+                rule.add(
+                    line.substring(0, equals).trim(),
+                    line.substring(equals + 1).trim()
+                );
+            } catch (IllegalArgumentException e) {
+                throw new IOException(
+                    String.format(
+                        "Malformed host rule at line %d: %s",
+                        number,
+                        e.getMessage()
+                    ),
+                    e
+                );
+            }
+        }
+        return new HostRules(exact, suffixes, fallback);
+    }
+
+    /**
+     * Finds the rule of a host: its own, or else the one of its closest
+     * wildcard suffix, or else the default rule.
+     * @param host The host
+     * @return the rule
+     */
+    public Rule rule(final String host) {
+        final Rule cached = this.cache.get(host);
+        if (cached != null)
+            return cached;
+        final String name = host.toLowerCase(Locale.ROOT);
+        Rule rule = this.exact.get(name);
+        for (int dot = name.indexOf('.'); rule == null && dot >= 0;
+            dot = name.indexOf('.', dot + 1))
+            rule = this.suffixes.get(name.substring(dot + 1));
+        if (rule == null)
+            rule = this.fallback;
+        this.cache.put(host, rule);
+        return rule;
+    }
+
+    /**
+     * Takes the host out of an absolute URL without parsing the rest of it.
+     * @param url The URL
+     * @return the host, or an empty string if the URL has none
+     */
+    public static String host(final String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length()) {
+            final char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#')
+                break;
+            end++;
+        }
+        final int at = url.lastIndexOf('@', end - 1);
+        if (at >= start)
+            start = at + 1;
+        final int colon = url.indexOf(':', start);
+        if (colon >= 0 && colon < end)
+            end = colon;
+        return url.substring(start, end);
+    }
+
+    /**
+     * Finds the first element that matches, in document order, without
+     * visiting the rest of the tree.
+     * @param evaluator The compiled selector
+     * @param root The element to search in, included
+     * @return the element, or null if there is none
+     */
+    public static Element first(final Evaluator evaluator, final Element root) {
+        Node node = root;
+        while (node != null) {
+            if (node instanceof Element
+                && evaluator.matches(root, (Element) node))
+                return (Element) node;
+            if (node.childNodeSize() > 0) {
+                node = node.childNode(0);
+                continue;
+            }
+            while (node != root && node.nextSibling() == null)
+                node = node.parentNode();
+            node = node == root ? null : node.nextSibling();
+        }
+        return null;
+    }
+
+    /**
+     * The extraction rule of a host.
+     */
+    public static final class Rule {
+
+        /**
+         * The host, as written in the rules.
+         */
+        private final String host;
+
+        /**
+         * The selectors of the abstract, in order.
+         */
+        private final List<Selector> abstracts;
+
+        /**
+         * The selectors of the PDF link, in order.
+         */
+        private final List<Selector> links;
+
+        /**
+         * The steps that turn the PDF link into a direct link.
+         */
+        private final List<Follow> follows;
+
+        /**
+         * Whether the pages of the host are rendered in a browser.
+         */
+        private Render render;
+
+        Rule(final String host) {
+            this.host = host;
+            this.abstracts = new ArrayList<>();
+            this.links = new ArrayList<>();
+            this.follows = new ArrayList<>();
+            this.render = Render.AUTO;
+        }
+
+        private void add(final String key, final String value) {
+            switch (key) {
+                case "abstract": this.abstracts.add(new Selector(value)); break;
+                case "link": this.links.add(new Selector(value)); break;
+                case "follow": this.follows.add(new Follow(value)); break;
+                case "render":
+                    this.render = Render.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                        String.format("Unknown key %s", key)
+                    );
+            }
+        }
+
+        public String getHost() {
+            return this.host;
+        }
+
+        /**
+         * Whether this is the rule of hosts with no rules.
+         */
+        public boolean isDefault() {
+            return this.host.equals("default");
+        }
+
+        /**
+         * The first selector of the abstract, or null if there is none.
+         */
+        public String abstractSelector() {
+            return this.abstracts.isEmpty() ? null : this.abstracts.get(0).css;
+        }
+
+        /**
+         * The first selector of the PDF link, or null if there is none.
+         */
+        public String linkSelector() {
+            return this.links.isEmpty() ? null : this.links.get(0).css;
+        }
+
+        /**
+         * Selects the abstract with the first selector that matches.
+         * @param root The page
+         * @return the text of the matched elements, or an empty string
+         */
+        public String text(final Element root) {
+            for (Selector selector : this.abstracts) {
+                final Elements elements = Collector.collect(selector.evaluator, root);
+                if (!elements.isEmpty())
+                    return elements.text();
+            }
+            return "";
+        }
+
+        /**
+         * Selects the PDF link with the first selector that matches, stopping
+         * at the first matching element.
+         * @param root The page
+         * @return the href attribute, or an empty string
+         */
+        public String link(final Element root) {
+            for (Selector selector : this.links) {
+                final Element element = HostRules.first(selector.evaluator, root);
+                if (element != null && element.hasAttr("href"))
+                    return element.attr("href");
+            }
+            return "";
+        }
+
+        public Render getRender() {
+            return this.render;
+        }
+
+        public List<Follow> getFollows() {
+            return Collections.unmodifiableList(this.follows);
+        }
+
+        @Override
+        public String toString() {
+            return this.host;
+        }
+
+    }
+
+    /**
+     * A compiled CSS selector.
+     */
+    private static final class Selector {
+
+        /**
+         * The selector, as written in the rules.
+         */
+        private final String css;
+
+        /**
+         * The compiled selector.
+         */
+        private final Evaluator evaluator;
+
+        Selector(final String css) {
+            this.css = css;
+            this.evaluator = QueryParser.parse(css);
+        }
+
+    }
+
+    /**
+     * A post-processing step of the PDF link: load the link, and continue
+     * with an attribute of the page or with the URL the page ended up at.
+     */
+    public static final class Follow {
+
+        /**
+         * Whether the link is loaded in a browser.
+         */
+        private final boolean render;
+
+        /**
+         * The selector of the element to continue with, or null to continue
+         * with the URL of the page.
+         */
+        private final Selector selector;
+
+        /**
+         * The attribute of the element that holds the next URL.
+         */
+        private final String attribute;
+
+        Follow(final String value) {
+            final String[] parts = value.split("\\s+");
+            if (!parts[0].equals("fetch") && !parts[0].equals("render"))
+                throw new IllegalArgumentException(
+                    String.format("Expected fetch or render: %s", value)
+                );
+            this.render = parts[0].equals("render");
+            if (parts.length == 1) {
+                this.selector = null;
+                this.attribute = null;
+            } else if (parts.length >= 3) {
+                final int start = value.indexOf(parts[1], parts[0].length());
+                final int end = value.lastIndexOf(parts[parts.length - 1]);
+                this.selector = new Selector(value.substring(start, end).trim());
+                this.attribute = parts[parts.length - 1];
+            } else {
+                throw new IllegalArgumentException(
+                    String.format("Expected a selector and an attribute: %s", value)
+                );
+            }
+        }
+
+        public boolean isRender() {
+            return this.render;
+        }
+
+        /**
+         * Finds the next URL in a loaded page.
+         * @param page The page
+         * @return the next URL, or null if the page has no such element
+         */
+        public String next(final Page page) {
+            if (this.selector == null)
+                return page.getUrl();
+            final Element element = HostRules.first(
+                this.selector.evaluator,
+                page.getDocument()
+            );
+            if (element == null || !element.hasAttr(this.attribute))
+                return null;
+            return StringUtil.resolve(page.getUrl(), element.attr(this.attribute));
+        }
+
+    }
+
+}
@@ -0,0 +1,457 @@
+package co.migueljimenez.bib;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import org.jsoup.HttpStatusException;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Spreads requests across publisher hosts. Each host has a token bucket
+ * whose rate adapts to the host's responses: it grows slowly while responses
+ * are fast, and halves when the host answers with 429 or 503, or takes
+ * longer than {@code slow} (additive increase, multiplicative decrease). A
+ * throttled host is also paused for as long as its Retry-After header asks.
+ * <p>
+ * {@link #dispatcher(Function, ToIntFunction)} groups the items of a
+ * pipeline stage by host and hands them to the workers in round-robin
+ * order, skipping hosts that have no tokens left, so work for other hosts
+ * fills the gaps instead of waiting behind a throttled one.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class HostScheduler {
+
+    /**
+     * The token buckets, by host.
+     */
+    private final Map<String, Bucket> buckets;
+
+    /**
+     * The initial rate of a host, in requests per second.
+     */
+    private final double initialRate;
+
+    /**
+     * The minimum rate of a host, in requests per second.
+     */
+    private final double minRate;
+
+    /**
+     * The maximum rate of a host, in requests per second.
+     */
+    private final double maxRate;
+
+    /**
+     * The rate added after each fast response, in requests per second.
+     */
+    private final double step;
+
+    /**
+     * Responses slower than this, in milliseconds, reduce the rate.
+     */
+    private final long slow;
+
+    /**
+     * Default constructor. The rates and thresholds are read from the
+     * {@code bib.host.rate} (1 request per second), {@code bib.host.rate.min}
+     * (0.05), {@code bib.host.rate.max} (5), {@code bib.host.rate.step} (0.1)
+     * and {@code bib.host.slow.ms} (10000) system properties.
+     */
+    public HostScheduler() {
+        this(
+            Double.parseDouble(System.getProperty("bib.host.rate", "1")),
+            Double.parseDouble(System.getProperty("bib.host.rate.min", "0.05")),
+            Double.parseDouble(System.getProperty("bib.host.rate.max", "5")),
+            Double.parseDouble(System.getProperty("bib.host.rate.step", "0.1")),
+            Long.getLong("bib.host.slow.ms", 10_000L)
+        );
+    }
+
+    /**
+     * Secondary constructor.
+     * @param initialRate The initial rate of a host, in requests per second
+     * @param minRate The minimum rate of a host, in requests per second
+     * @param maxRate The maximum rate of a host, in requests per second
+     * @param step The rate added after each fast response
+     * @param slow Responses slower than this, in milliseconds, reduce the
+     *  rate
+     */
+    public HostScheduler(final double initialRate, final double minRate,
+        final double maxRate, final double step, final long slow) {
+        this.buckets = new ConcurrentHashMap<>();
+        this.initialRate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.step = step;
+        this.slow = slow;
+    }
+
+    /**
+     * Waits until the host accepts another request, and takes its token.
+     * @param host The host
+     * @throws InterruptedException
+     */
+    public void acquire(final String host) throws InterruptedException {
+        final Bucket bucket = this.bucket(host);
+        while (true) {
+            final long delay;
+            synchronized (bucket) {
+                delay = bucket.delay();
+                if (delay == 0) {
+                    bucket.tokens -= 1;
+                    return;
+                }
+            }
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Reports a successful response.
+     * @param host The host
+     * @param millis The response time, in milliseconds
+     */
+    public void succeeded(final String host, final long millis) {
+        final Bucket bucket = this.bucket(host);
+        synchronized (bucket) {
+            if (millis > this.slow)
+                bucket.rate = Math.max(this.minRate, bucket.rate / 2);
+            else
+                bucket.rate = Math.min(this.maxRate, bucket.rate + this.step);
+        }
+    }
+
+    /**
+     * Reports a 429 or 503 response: the rate is halved, and the host is
+     * paused.
+     * @param host The host
+     * @param pause How long to leave the host alone, in milliseconds
+     */
+    public void throttled(final String host, final long pause) {
+        final Bucket bucket = this.bucket(host);
+        synchronized (bucket) {
+            bucket.rate = Math.max(this.minRate, bucket.rate / 2);
+            bucket.tokens = 0;
+            bucket.paused = Math.max(bucket.paused, System.nanoTime() + pause * 1_000_000L);
+        }
+        System.err.printf(
+            "%s is throttling requests, lowering its rate to %.2f/s\n",
+            host,
+            bucket.rate
+        );
+    }
+
+    /**
+     * The current rate of the host.
+     * @param host The host
+     * @return the rate, in requests per second
+     */
+    public double rate(final String host) {
+        final Bucket bucket = this.bucket(host);
+        synchronized (bucket) {
+            return bucket.rate;
+        }
+    }
+
+    /**
+     * Creates a dispatcher for a pipeline stage that sends requests. Items
+     * are grouped by host; lower priorities go first within a host, and
+     * hosts take turns, skipping those that are out of tokens, so idle
+     * hosts fill the gaps left by throttled ones. A host never has more
+     * items in progress than tokens available. The dispatcher only picks
+     * the items: the stage still takes each token, as
+     * {@link PageFetcher} does. Workers may add an item again after taking
+     * it, e.g., when its host throttled it, so workers only run out of
+     * items once none is in progress.
+     * @param host The host each item will be requested from, or null if
+     *  the item needs no request, in which case it is handed out right away
+     * @param priority The priority of each item, lowest first
+     * @param <T> The type of the items
+     * @return the dispatcher
+     */
+    public <T> Pipeline.Dispatcher<T> dispatcher(final Function<T, String> host,
+        final ToIntFunction<T> priority) {
+        return new HostQueues<>(host, priority);
+    }
+
+    /**
+     * The first host, in round-robin order, with more tokens than items in
+     * progress. Hosts that were picked move to the end of the order.
+     */
+    private <T> String next(final Map<String, PriorityQueue<Item<T>>> pending,
+        final Map<String, Integer> running) {
+        final Iterator<String> hosts = pending.keySet().iterator();
+        while (hosts.hasNext()) {
+            final String host = hosts.next();
+            final Bucket bucket = this.bucket(host);
+            synchronized (bucket) {
+                if (bucket.delay() == 0
+                    && bucket.tokens >= running.getOrDefault(host, 0) + 1)
+                    return host;
+            }
+        }
+        return null;
+    }
+
+    private long shortestDelay(final Collection<String> hosts) {
+        long shortest = 1000L;
+        for (String host : hosts) {
+            final Bucket bucket = this.bucket(host);
+            synchronized (bucket) {
+                shortest = Math.min(shortest, Math.max(10L, bucket.delay()));
+            }
+        }
+        return shortest;
+    }
+
+    private Bucket bucket(final String host) {
+        return this.buckets.computeIfAbsent(host, key -> new Bucket(this.initialRate));
+    }
+
+    /**
+     * The tokens of a host. Buckets hold up to two tokens, so a host that
+     * was idle for a while accepts a short burst.
+     */
+    private static final class Bucket {
+
+        /**
+         * The rate, in requests per second.
+         */
+        private double rate;
+
+        /**
+         * The available tokens.
+         */
+        private double tokens;
+
+        /**
+         * When the tokens were last refilled, in nanoseconds.
+         */
+        private long refilled;
+
+        /**
+         * No requests are sent before this time, in nanoseconds.
+         */
+        private long paused;
+
+        Bucket(final double rate) {
+            this.rate = rate;
+            this.tokens = 1;
+            this.refilled = System.nanoTime();
+            this.paused = this.refilled;
+        }
+
+        /**
+         * Refills the bucket.
+         * @return the milliseconds until a token is available
+         */
+        long delay() {
+            final long now = System.nanoTime();
+            if (now < this.paused)
+                return TimeUnit.NANOSECONDS.toMillis(this.paused - now) + 1;
+            this.tokens = Math.min(
+                2.0,
+                this.tokens + (now - Math.max(this.refilled, this.paused)) / 1e9 * this.rate
+            );
+            this.refilled = now;
+            if (this.tokens >= 1)
+                return 0;
+            return (long) Math.ceil((1 - this.tokens) / this.rate * 1000);
+        }
+
+    }
+
+    /**
+     * The items waiting for each host.
+     */
+    private final class HostQueues<T> implements Pipeline.Dispatcher<T> {
+
+        /**
+         * The host of each item.
+         */
+        private final Function<T, String> host;
+
+        /**
+         * The priority of each item, lowest first.
+         */
+        private final ToIntFunction<T> priority;
+
+        /**
+         * The items waiting for each host, with hosts in round-robin order.
+         */
+        private final Map<String, PriorityQueue<Item<T>>> pending;
+
+        /**
+         * The items that need no request.
+         */
+        private final Deque<T> ready;
+
+        /**
+         * The number of items in progress, by host.
+         */
+        private final Map<String, Integer> running;
+
+        /**
+         * The host of each item in progress.
+         */
+        private final Map<T, String> taken;
+
+        /**
+         * The number of items added so far, which breaks ties.
+         */
+        private int sequence;
+
+        /**
+         * Whether no more items will be added.
+         */
+        private boolean closed;
+
+        HostQueues(final Function<T, String> host,
+            final ToIntFunction<T> priority) {
+            this.host = host;
+            this.priority = priority;
+            this.pending = new LinkedHashMap<>();
+            this.ready = new ArrayDeque<>();
+            this.running = new HashMap<>();
+            this.taken = new IdentityHashMap<>();
+        }
+
+        @Override
+        public synchronized void add(final T item) {
+            final String name = this.host.apply(item);
+            if (name == null)
+                this.ready.add(item);
+            else
+                this.pending.computeIfAbsent(name, key -> new PriorityQueue<>())
+                    .add(new Item<>(item, this.priority.applyAsInt(item), this.sequence++));
+            this.notifyAll();
+        }
+
+        @Override
+        public synchronized void close() {
+            this.closed = true;
+            this.notifyAll();
+        }
+
+        @Override
+        public synchronized T take() throws InterruptedException {
+            while (true) {
+                if (!this.ready.isEmpty())
+                    return this.ready.poll();
+                final String next = HostScheduler.this.next(this.pending, this.running);
+                if (next != null) {
+                    final PriorityQueue<Item<T>> queue = this.pending.remove(next);
+                    final Item<T> item = queue.poll();
+                    if (!queue.isEmpty())
+                        this.pending.put(next, queue);
+                    this.running.merge(next, 1, Integer::sum);
+                    this.taken.put(item.value, next);
+                    return item.value;
+                }
+                if (this.pending.isEmpty()) {
+                    if (this.closed && this.taken.isEmpty())
+                        return null;
+                    this.wait();
+                } else {
+                    this.wait(HostScheduler.this.shortestDelay(this.pending.keySet()));
+                }
+            }
+        }
+
+        @Override
+        public synchronized void done(final T item) {
+            final String name = this.taken.remove(item);
+            if (name != null) {
+                this.running.merge(name, -1, Integer::sum);
+                this.notifyAll();
+            }
+        }
+
+    }
+
+    /**
+     * Reports a 429 or 503 response, already passed on to
+     * {@link #throttled(String, long)}. It is no failure of the request:
+     * it is retried once the host's pause is over, up to
+     * {@code bib.host.retries} times (5 by default).
+     */
+    public static final class Throttled extends HttpStatusException {
+
+        private static final long serialVersionUID = 1L;
+
+        public Throttled(final int status, final String url) {
+            super("Throttled", status, url);
+        }
+
+    }
+
+    /**
+     * An item waiting for its host.
+     */
+    private static final class Item<T> implements Comparable<Item<T>> {
+
+        /**
+         * The item.
+         */
+        private final T value;
+
+        /**
+         * Its priority, lowest first.
+         */
+        private final int priority;
+
+        /**
+         * Its position in the input, which breaks ties.
+         */
+        private final int sequence;
+
+        Item(final T value, final int priority, final int sequence) {
+            this.value = value;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final Item<T> other) {
+            if (this.priority != other.priority)
+                return Integer.compare(this.priority, other.priority);
+            return Integer.compare(this.sequence, other.sequence);
+        }
+
+    }
+
+}
@@ -0,0 +1,922 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.BibTeXEntry;
+import org.jbibtex.Key;
+import org.jbibtex.ObjectResolutionException;
+import org.jbibtex.ParseException;
+import org.jbibtex.StringValue;
+import org.jbibtex.TokenMgrException;
+import org.jbibtex.Value;
+import org.jsoup.helper.StringUtil;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * TODO
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2017-07-19
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class OnlineTasks {
+
+    /**
+     * The abstract field.
+     */
+    private static final Key ABSTRACT = new Key("abstract");
+
+    /**
+     * The Bibtex file.
+     */
+    private final File bibFile;
+
+    /**
+     * The Bibtex database.
+     */
+    private final BibTeXDatabase database;
+
+    /**
+     * The entries updated since the database was last saved.
+     */
+    private final Set<BibTeXEntry> changed;
+
+    /**
+     * Fetches pages over HTTP or through a browser.
+     */
+    private final PageFetcher fetcher;
+
+    /**
+     * How to extract the abstract and PDF link of each publisher.
+     */
+    private final HostRules rules;
+
+    /**
+     * What is known about each DOI from previous runs.
+     */
+    private final DoiCache cache;
+
+    /**
+     * Latencies, outcomes and progress of the online tasks.
+     */
+    private final ScrapeMetrics metrics;
+
+    /**
+     * Spreads requests across hosts, within each host's rate limit.
+     */
+    private final HostScheduler scheduler;
+
+    /**
+     * The index of the database, built on demand.
+     */
+    private volatile EntryIndex index;
+
+    /**
+     * The number of entries processed concurrently.
+     */
+    private final int concurrency;
+
+    /**
+     * Maximum number of concurrent requests per host.
+     */
+    private final int maxPerHost;
+
+    /**
+     * Default constructor.
+     * @throws ParseException 
+     * @throws TokenMgrException 
+     * @throws ObjectResolutionException 
+     * @throws IOException 
+     */
+    public OnlineTasks(final File bibFile)
+        throws ObjectResolutionException, TokenMgrException,
+            ParseException, IOException {
+        this(bibFile, 1, 1);
+    }
+
+    /**
+     * Secondary constructor.
+     * @param bibFile The bibtex file
+     * @param sessions The number of entries processed concurrently, and of
+     *  browser sessions
+     * @param maxPerHost Maximum number of concurrent requests per host
+     * @throws ParseException 
+     * @throws TokenMgrException 
+     * @throws ObjectResolutionException 
+     * @throws IOException 
+     */
+    public OnlineTasks(final File bibFile, final int sessions,
+        final int maxPerHost) throws ObjectResolutionException,
+            TokenMgrException, ParseException, IOException {
+        this.metrics = new ScrapeMetrics();
+        this.scheduler = new HostScheduler();
+        this.fetcher = new PageFetcher(
+            sessions,
+            maxPerHost,
+            60,
+            this.metrics,
+            this.scheduler
+        );
+        this.rules = HostRules.load();
+        this.cache = new DoiCache();
+        this.concurrency = sessions;
+        this.maxPerHost = maxPerHost;
+        this.bibFile = bibFile;
+        this.database = new OfflineTasks().database(bibFile);
+        this.changed = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * The entries with a DOI that still need work.
+     */
+    private List<Work> pending(final AtomicInteger missingDOIs,
+        final Predicate<Entry<Key, BibTeXEntry>> needed) {
+        final List<Work> work = new ArrayList<>();
+        for (Entry<Key, BibTeXEntry> entry : this.database.getEntries().entrySet()) {
+            final Value doi = entry.getValue().getField(BibTeXEntry.KEY_DOI);
+            if (doi == null)
+                missingDOIs.incrementAndGet();
+            else if (needed.test(entry))
+                work.add(new Work(entry, doi.toUserString()));
+        }
+        return work;
+    }
+
+    /**
+     * Creates a pipeline that resolves, fetches and extracts the given field
+     * for each item. The number of workers of each stage is read from
+     * {@code bib.pipeline.<stage>.workers}; resolution and fetching block on
+     * the network and default to 16 workers each, and extraction defaults
+     * to one worker per core. Queues hold up to
+     * {@code bib.pipeline.capacity} items (64 by default). The fetch stage
+     * is dispatched by the {@link HostScheduler}: its workers take the item
+     * with the lowest priority among the hosts that have a token to spare,
+     * so a slow or throttled publisher never holds every worker.
+     * @param work The items
+     * @param field {@link DoiCache#ABSTRACT} or {@link DoiCache#PDF}
+     * @param priority The priority of each item, lowest first
+     * @param failure Reports an item that failed
+     */
+    private Pipeline<Work> pipeline(final List<Work> work, final String field,
+        final ToIntFunction<Work> priority,
+        final BiConsumer<Work, Exception> failure) {
+        final Pipeline.Dispatcher<Work> dispatcher = this.scheduler.dispatcher(
+            // Cached values need no request
+            item -> item.value == null ? HostRules.host(item.landing) : null,
+            priority
+        );
+        return Pipeline.from(work, Integer.getInteger("bib.pipeline.capacity", 64))
+            .then(
+                "resolve",
+                OnlineTasks.workers("resolve", 16),
+                true,
+                item -> this.attempt(item, field, failure, () -> this.resolve(item, field))
+            )
+            .then(
+                "fetch",
+                OnlineTasks.workers("fetch", 16),
+                true,
+                dispatcher,
+                item -> this.attempt(
+                    item,
+                    field,
+                    failure,
+                    () -> this.fetch(item),
+                    // Behind the pause of its host
+                    dispatcher::add
+                )
+            )
+            .then(
+                "extract",
+                OnlineTasks.workers("extract", Runtime.getRuntime().availableProcessors()),
+                // Falling back to a browser, and post-processing PDF links, may block
+                true,
+                item -> this.attempt(
+                    item,
+                    field,
+                    failure,
+                    () -> field.equals(DoiCache.PDF)
+                        ? this.extractPdfLink(item)
+                        : this.extractAbstract(item)
+                )
+            );
+    }
+
+    private static int workers(final String stage, final int defaultValue) {
+        return Integer.getInteger(
+            String.format("bib.pipeline.%s.workers", stage),
+            defaultValue
+        );
+    }
+
+    /**
+     * Runs a step on an item, and reports the item as done if the step
+     * fails or drops it. Runtime exceptions, e.g., from jsoup or Selenium,
+     * fail the item like I/O errors do, so it is still reported to the
+     * failure callback and counted.
+     */
+    private Work attempt(final Work item, final String field,
+        final BiConsumer<Work, Exception> failure, final Step step) {
+        return this.attempt(item, field, failure, step, null);
+    }
+
+    /**
+     * Runs a step on an item, handing the item to the retry callback if its
+     * host throttled it, up to {@code bib.host.retries} times (5 by
+     * default). A throttled item is never remembered as failed by the
+     * cache.
+     * @param retry Takes throttled items back, or null not to retry them
+     */
+    private Work attempt(final Work item, final String field,
+        final BiConsumer<Work, Exception> failure, final Step step,
+        final Consumer<Work> retry) {
+        try {
+            final Work result = step.run();
+            if (result == null)
+                this.metrics.entryDone();
+            return result;
+        } catch (HostScheduler.Throttled e) {
+            if (retry != null
+                && ++item.throttles <= Integer.getInteger("bib.host.retries", 5)) {
+                retry.accept(item);
+                return null;
+            }
+            failure.accept(item, e);
+            this.metrics.entryDone();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            if (!(e instanceof RecentFailure))
+                this.cache.fail(item.doi, field, e.toString());
+            failure.accept(item, e);
+            this.metrics.entryDone();
+            return null;
+        }
+    }
+
+    public void findPdfFiles(final File outputDirectory,
+        final boolean downloadFiles) throws IOException {
+        if (!outputDirectory.exists())
+            outputDirectory.mkdirs();
+        final File list = new File(outputDirectory, "list.txt");
+        if (!list.exists())
+            list.createNewFile();
+        final Set<String> existingKeys = new HashSet<>();
+        if (downloadFiles) {
+            existingKeys.addAll(
+                Stream.of(outputDirectory.list((dir, name) -> name.endsWith(".pdf")))
+                    .map(name -> name.substring(0, name.lastIndexOf('.')))
+                    .collect(Collectors.toList())
+            );
+        } else {
+            try (Stream<String> lines = Files.lines(Paths.get(list.getAbsolutePath()))) {
+                existingKeys.addAll(
+                    lines.map(line -> {
+                            final String name = line.split(" ")[0];
+                            return name.substring(0, name.lastIndexOf('.'));
+                        })
+                        .collect(Collectors.toList())
+                );
+            }
+        }
+        final AtomicInteger missingDOIs = new AtomicInteger();
+        final AtomicInteger notFoundPDFs = new AtomicInteger();
+        try (ProgressJournal journal = new ProgressJournal(
+                new File(outputDirectory, "journal.tsv"),
+                Integer.getInteger("bib.retry.attempts", 3),
+                TimeUnit.HOURS.toMillis(Long.getLong("bib.retry.delay.hours", 24L))
+            )) {
+            final DownloadManager downloads = this.downloadManager();
+            final List<Work> work = this.pending(
+                missingDOIs,
+                entry -> !existingKeys.contains(entry.getKey().toString())
+                    && !journal.shouldSkip(entry.getKey().toString(), downloadFiles)
+            );
+            this.metrics.startRun(work.size());
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(
+                        new FileOutputStream(list, true),
+                        StandardCharsets.UTF_8
+                    )
+                )) {
+                this.pipeline(
+                    work,
+                    DoiCache.PDF,
+                    // Entries that were never attempted go before retries
+                    item -> journal.attempts(item.key()),
+                    (item, error) -> {
+                        notFoundPDFs.incrementAndGet();
+                        // Neither a failure remembered by the cache nor a
+                        // throttle is a new attempt
+                        if (!(error instanceof RecentFailure)
+                            && !(error instanceof HostScheduler.Throttled))
+                            journal.record(item.key(), item.doi, ProgressJournal.Status.FAILED, null);
+                        System.err.printf("%s (%s) couldn't be downloaded\n", item.key(), item.doi);
+                        error.printStackTrace();
+                    }
+                ).then(
+                    "update",
+                    1,
+                    false,
+                    item -> {
+                        final String key = item.key();
+                        final String link = item.value;
+                        journal.record(key, item.doi, ProgressJournal.Status.FOUND, link);
+                        if (downloadFiles)
+                            downloads.enqueue(
+                                link,
+                                new File(outputDirectory, String.format("%s.pdf", key))
+                            ).whenComplete(
+                                (file, error) -> {
+                                    if (!(error instanceof HostScheduler.Throttled))
+                                        journal.record(
+                                            key,
+                                            item.doi,
+                                            error == null
+                                                ? ProgressJournal.Status.DOWNLOADED
+                                                : ProgressJournal.Status.FAILED,
+                                            link
+                                        );
+                                }
+                            );
+                        this.metrics.entryDone();
+                        return String.format("%s.pdf %s\n", key, link);
+                    }
+                ).drain(
+                    Integer.getInteger("bib.pipeline.batch", 32),
+                    lines -> {
+                        try {
+                            for (String line : lines)
+                                writer.write(line);
+                            writer.flush();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                );
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // The downloads record their outcome in the journal
+            notFoundPDFs.addAndGet(this.await(downloads));
+        }
+        this.metrics.finishRun(new File(outputDirectory, "metrics.json"));
+        System.out.println(
+            String.format(
+                "%d DOI were not found in the Bibtex library, and %d PDFs "
+                + "couldn't be downloaded",
+                missingDOIs.get(),
+                notFoundPDFs.get()
+            )
+        );
+        if (!downloadFiles)
+            System.out.printf(
+                "To download the files listed in '%s', call downloadList "
+                + "on that directory\n",
+                list.getAbsolutePath()
+            );
+    }
+
+    /**
+     * Downloads the files listed in the list.txt file of the directory,
+     * written by {@link #findPdfFiles(File, boolean)}. Files already in the
+     * directory are skipped, and partial downloads are resumed.
+     * @param outputDirectory The directory containing list.txt
+     * @throws IOException
+     */
+    public void downloadList(final File outputDirectory) throws IOException {
+        final DownloadManager downloads = this.downloadManager();
+        try (Stream<String> lines = Files.lines(
+                Paths.get(new File(outputDirectory, "list.txt").getAbsolutePath())
+            )) {
+            lines.map(line -> line.split(" ", 2))
+                .filter(parts -> parts.length == 2)
+                .filter(parts -> !new File(outputDirectory, parts[0]).exists())
+                .forEach(
+                    parts -> downloads.enqueue(
+                        parts[1],
+                        new File(outputDirectory, parts[0])
+                    )
+                );
+        }
+        System.out.printf(
+            "%d PDFs couldn't be downloaded\n",
+            this.await(downloads)
+        );
+    }
+
+    private DownloadManager downloadManager() {
+        return new DownloadManager(
+            this.concurrency,
+            this.maxPerHost,
+            Long.getLong("bib.download.max.bytes", 200L << 20),
+            this.metrics,
+            this.scheduler
+        );
+    }
+
+    private int await(final DownloadManager downloads) {
+        try {
+            return downloads.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    public void updateAbstracts() {
+        final AtomicInteger notFoundCount = new AtomicInteger();
+        final AtomicInteger count = new AtomicInteger();
+        final List<Work> work = this.pending(
+            notFoundCount,
+            entry -> entry.getValue().getField(OnlineTasks.ABSTRACT) == null
+        );
+        this.metrics.startRun(work.size());
+        try {
+            this.pipeline(
+                work,
+                DoiCache.ABSTRACT,
+                // Entries that also miss a PDF link go first
+                item -> this.cache.lookup(item.doi, DoiCache.PDF) == null ? 0 : 1,
+                (item, error) -> {
+                    System.err.printf("%s (%s) couldn't be found\n", item.key(), item.doi);
+                    error.printStackTrace();
+                }
+            ).then(
+                "update",
+                1,
+                false,
+                item -> {
+                    final BibTeXEntry entry = item.entry.getValue();
+                    entry.addField(
+                        OnlineTasks.ABSTRACT,
+                        new StringValue(
+                            item.value,
+                            StringValue.Style.BRACED
+                        )
+                    );
+                    this.changed.add(entry);
+                    if (this.index != null)
+                        this.index.add(entry);
+                    this.metrics.entryDone();
+                    return String.format(
+                        "%d. %s: %s",
+                        count.incrementAndGet(),
+                        item.key(),
+                        item.value
+                    );
+                }
+            ).drain(
+                Integer.getInteger("bib.pipeline.batch", 32),
+                lines -> {
+                    final StringBuilder output = new StringBuilder();
+                    for (String line : lines)
+                        output.append(line).append('\n');
+                    System.out.print(output);
+                    System.out.flush();
+                }
+            );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.metrics.finishRun(
+            new File(System.getProperty("bib.metrics.file", "metrics.json"))
+        );
+        System.out.println(
+            String.format(
+                "%d DOI were not found in the Bibtex library.",
+                notFoundCount.get()
+            )
+        );
+    }
+
+    /**
+     * Fills the missing abstracts and other fields from a local metadata
+     * dump (see {@link DoiDump}), so {@link #updateAbstracts()} only scrapes
+     * the DOIs that are not in the dump.
+     * @param dump The indexed dump
+     * @return the number of entries completed
+     * @throws IOException If the index is missing or stale
+     */
+    public int fill(final DoiDump dump) throws IOException {
+        final List<BibTeXEntry> entries =
+            dump.fill(this.database.getEntries().values());
+        this.changed.addAll(entries);
+        if (this.index != null)
+            entries.forEach(this.index::add);
+        System.out.println(
+            String.format("%d entries completed from the dump", entries.size())
+        );
+        return entries.size();
+    }
+
+    /**
+     * Writes the entries updated so far back to the Bibtex file, rewriting
+     * only those entries (see {@link IncrementalWriter}).
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        final List<BibTeXEntry> entries = new ArrayList<>(this.changed);
+        new OfflineTasks().update(this.bibFile, entries);
+        this.changed.removeAll(entries);
+    }
+
+    /**
+     * Indexes the database the first time it is called. The index is kept
+     * up to date as abstracts are fetched.
+     * @return the index of the database
+     */
+    public EntryIndex index() {
+        if (this.index == null) {
+            synchronized (this) {
+                if (this.index == null)
+                    this.index = new EntryIndex(this.database);
+            }
+        }
+        return this.index;
+    }
+
+    /**
+     * Finds the rule of a page's host, reporting hosts that have no rules.
+     * @param url The URL of the page
+     * @return the rule
+     */
+    private HostRules.Rule rule(final String url) {
+        final HostRules.Rule rule = this.rules.rule(HostRules.host(url));
+        if (rule.isDefault()) {
+            this.metrics.unknownSelector(HostRules.host(url));
+            System.err.println(
+                String.format(
+                    "UNKNOWN URI: %s. Using default selectors",
+                    url
+                )
+            );
+        }
+        return rule;
+    }
+
+    public String textSelector(final String baseUri) {
+        return this.rule(baseUri).abstractSelector();
+    }
+
+    public String linkSelector(final String baseUri) {
+        return this.rule(baseUri).linkSelector();
+    }
+
+    private String postProcessPdfLink(final String url) throws IOException {
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.POST_PROCESS,
+            HostRules.host(url))) {
+            final String postProcessedUrl = this.postProcess(url);
+            sample.succeed();
+            return postProcessedUrl;
+        }
+    }
+
+    /**
+     * Follows the PDF link as the rule of its host says, e.g., through
+     * frames or JavaScript redirects.
+     * @param url The PDF link
+     * @return the direct link to the PDF file
+     * @throws IOException
+     */
+    private String postProcess(final String url) throws IOException {
+        String postProcessedUrl = url;
+        for (HostRules.Follow follow :
+            this.rules.rule(HostRules.host(url)).getFollows()) {
+            final Page page = follow.isRender()
+                ? this.fetcher.render(postProcessedUrl)
+                : this.fetcher.fetch(postProcessedUrl);
+            final String next = follow.next(page);
+            if (next == null)
+                throw new IOException(
+                    String.format("Couldn't follow %s", postProcessedUrl)
+                );
+            postProcessedUrl = next;
+        }
+        return postProcessedUrl;
+    }
+
+    public String PdfLink(final String url)
+        throws IOException {
+        final Work item = new Work(null, url);
+        try {
+            this.resolve(item, DoiCache.PDF);
+            this.fetch(item);
+            this.extractPdfLink(item);
+            return item.value;
+        } catch (RecentFailure | HostScheduler.Throttled e) {
+            throw e;
+        } catch (IOException e) {
+            this.cache.fail(item.doi, DoiCache.PDF, e.toString());
+            throw e;
+        }
+    }
+
+    public String fetchAbstract(final String DOI)
+        throws IOException {
+        final Work item = new Work(null, DOI);
+        try {
+            this.resolve(item, DoiCache.ABSTRACT);
+            this.fetch(item);
+            return this.extractAbstract(item) == null ? "" : item.value;
+        } catch (RecentFailure | HostScheduler.Throttled e) {
+            throw e;
+        } catch (IOException e) {
+            this.cache.fail(item.doi, DoiCache.ABSTRACT, e.toString());
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the field from the cache, or else finds the landing page of the
+     * DOI.
+     */
+    private Work resolve(final Work item, final String field)
+        throws IOException {
+        item.value = this.cache.lookup(item.doi, field);
+        if (item.value != null)
+            return item;
+        if (this.cache.failedRecently(item.doi, field))
+            throw new RecentFailure(
+                String.format("Looking up the %s of %s failed recently", field, item.doi)
+            );
+        item.landing = this.landingUrl(item.url);
+        return item;
+    }
+
+    private Work fetch(final Work item) throws IOException {
+        if (item.value == null)
+            item.page = this.renderPage(item.landing);
+        return item;
+    }
+
+    /**
+     * Selects the abstract, rendering the page in a browser if its static
+     * HTML has none.
+     * @return the item, or null if the page has no abstract
+     */
+    private Work extractAbstract(final Work item)
+        throws IOException {
+        if (item.value != null)
+            return item;
+        final String text = this.extractOrRender(item, DoiCache.ABSTRACT);
+        item.page = null;
+        if (text.isEmpty()) {
+            this.cache.fail(item.doi, DoiCache.ABSTRACT, "Empty abstract");
+            return null;
+        }
+        this.cache.store(item.doi, DoiCache.ABSTRACT, text);
+        item.value = text;
+        return item;
+    }
+
+    /**
+     * Selects the link to the PDF file, rendering the page in a browser if
+     * its static HTML has none.
+     */
+    private Work extractPdfLink(final Work item)
+        throws IOException {
+        if (item.value != null)
+            return item;
+        final String href = this.extractOrRender(item, DoiCache.PDF);
+        final String base = item.page.getUrl();
+        item.page = null;
+        if (href.isEmpty())
+            throw new IOException(
+                String.format("No PDF link found in %s", base)
+            );
+        item.value = this.postProcessPdfLink(StringUtil.resolve(base, href));
+        this.cache.store(item.doi, DoiCache.PDF, item.value);
+        return item;
+    }
+
+    /**
+     * Extracts the abstract or the PDF link of the item's page. If the
+     * static HTML has none, and the rule of the host leaves it to the run
+     * ({@link HostRules.Render#AUTO}), the page is rendered in a browser
+     * and extracted again. Pages whose rendered version had what the static
+     * one lacked are reported to the fetcher, which switches their host to
+     * the browser after a few of them.
+     * @param item The item, with a fetched page
+     * @param field {@link DoiCache#ABSTRACT} or {@link DoiCache#PDF}
+     * @return the text of the abstract or the href of the link, or an empty
+     *  string
+     * @throws IOException
+     */
+    private String extractOrRender(final Work item, final String field)
+        throws IOException {
+        String value = this.extract(item.page, field);
+        final String url = item.page.getUrl();
+        if (value.isEmpty() && !this.fetcher.needsJavaScript(url)
+            && this.rules.rule(HostRules.host(url)).getRender() == HostRules.Render.AUTO) {
+            item.page = this.fetcher.render(item.landing);
+            value = this.extract(item.page, field);
+            if (!value.isEmpty())
+                this.fetcher.missedWithoutJavaScript(url);
+        }
+        return value;
+    }
+
+    /**
+     * Extracts the abstract or the PDF link of the page, counting an empty
+     * result as a failed extraction.
+     * @param page The page
+     * @param field {@link DoiCache#ABSTRACT} or {@link DoiCache#PDF}
+     * @return the text of the abstract or the href of the link, or an empty
+     *  string
+     * @throws IOException
+     */
+    private String extract(final Page page, final String field)
+        throws IOException {
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.EXTRACT,
+            HostRules.host(page.getUrl()))) {
+            final HostRules.Rule rule = this.rule(page.getUrl());
+            final String value = field.equals(DoiCache.PDF)
+                ? rule.link(page.getDocument())
+                : rule.text(page.getDocument());
+            if (!value.isEmpty())
+                sample.succeed();
+            return value;
+        }
+    }
+
+    /**
+     * Resolves a DOI link to the publisher's page, reusing the landing URL
+     * found in a previous run if there is one.
+     * @param url The DOI link
+     * @return the landing URL
+     * @throws IOException
+     */
+    private String landingUrl(final String url) throws IOException {
+        final String doi = DoiDump.doi(url);
+        if (doi.equals(url))
+            return url;
+        String landing = this.cache.lookup(doi, DoiCache.URL);
+        if (landing == null) {
+            landing = this.fetcher.resolve(url);
+            this.cache.store(doi, DoiCache.URL, landing);
+        }
+        return landing;
+    }
+
+    /**
+     * Fetches the page over HTTP, or renders it in a browser if the rule of
+     * its host says so ({@code render = always}) or the run found that its
+     * host needs JavaScript (see {@link PageFetcher#missedWithoutJavaScript}).
+     * @param url The URL
+     * @return the page
+     * @throws IOException
+     */
+    public Page renderPage(final String url) throws IOException {
+        if (this.rules.rule(HostRules.host(url)).getRender() == HostRules.Render.ALWAYS)
+            return this.fetcher.render(url);
+        return this.fetcher.fetch(url);
+    }
+
+    public void shutdown() {
+        this.fetcher.shutdown();
+    }
+
+    /**
+     * Points Selenium to the chromedriver shipped in libs/&lt;os.name&gt;,
+     * unless the webdriver.chrome.driver property is already set.
+     */
+    public static void defaultChromeDriver() {
+        if (System.getProperty("webdriver.chrome.driver") == null)
+            System.setProperty(
+                "webdriver.chrome.driver",
+                String.format(
+                    "libs/%s/chromedriver",
+                    System.getProperty("os.name")
+                )
+            );
+    }
+
+    /**
+     * An entry on its way through the pipeline.
+     */
+    private static final class Work {
+
+        /**
+         * The entry, or null for single lookups.
+         */
+        private final Entry<Key, BibTeXEntry> entry;
+
+        /**
+         * The DOI.
+         */
+        private final String doi;
+
+        /**
+         * The DOI link, or another URL to the publisher's page. DOIs are
+         * resolved by {@code bib.doi.resolver} (https://dx.doi.org/ by
+         * default).
+         */
+        private final String url;
+
+        /**
+         * The publisher's page.
+         */
+        private String landing;
+
+        /**
+         * The fetched page, released once it has been extracted.
+         */
+        private Page page;
+
+        /**
+         * The abstract or PDF link.
+         */
+        private String value;
+
+        /**
+         * The number of times its host throttled it.
+         */
+        private int throttles;
+
+        Work(final Entry<Key, BibTeXEntry> entry, final String doi) {
+            this.entry = entry;
+            this.doi = DoiDump.doi(doi);
+            this.url = this.doi.equals(doi)
+                ? DoiDump.resolver() + doi
+                : doi;
+        }
+
+        String key() {
+            return this.entry.getKey().toString();
+        }
+
+        @Override
+        public String toString() {
+            return this.doi;
+        }
+
+    }
+
+    /**
+     * A step of the pipeline.
+     */
+    private interface Step {
+        Work run() throws IOException;
+    }
+
+    /**
+     * The lookup failed recently, and is not attempted again yet.
+     */
+    private static final class RecentFailure extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        RecentFailure(final String message) {
+            super(message);
+        }
+
+    }
+
+}
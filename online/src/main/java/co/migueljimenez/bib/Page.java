@@ -0,0 +1,64 @@
+package co.migueljimenez.bib;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A rendered page, along with the URL it ended up at after redirects.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class Page {
+
+    /**
+     * The URL of the page, after redirects.
+     */
+    private final String url;
+
+    /**
+     * The parsed page.
+     */
+    private final Document document;
+
+    /**
+     * Default constructor.
+     * @param url The URL of the page, after redirects
+     * @param document The parsed page
+     */
+    public Page(final String url, final Document document) {
+        this.url = url;
+        this.document = document;
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public Document getDocument() {
+        return this.document;
+    }
+
+}
@@ -0,0 +1,321 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.StringUtil;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Fetches pages over plain HTTP, and only launches a browser for the hosts
+ * that need JavaScript to show their content. The JDK keeps HTTP connections
+ * alive between requests to the same host, so most pages cost a single
+ * round trip. The browser pool is created the first time a JavaScript host
+ * is requested.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class PageFetcher {
+
+    /**
+     * The user agent sent with plain HTTP requests.
+     */
+    private static final String USER_AGENT =
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/60.0 Safari/537.36";
+
+    /**
+     * Hosts known to need JavaScript.
+     */
+    private final Set<String> javascriptHosts;
+
+    /**
+     * The pages of each host that only had their content once rendered.
+     */
+    private final Map<String, AtomicInteger> misses;
+
+    /**
+     * Number of such pages after which a host is rendered in a browser.
+     */
+    private final int maxMisses;
+
+    /**
+     * The number of browser sessions.
+     */
+    private final int sessions;
+
+    /**
+     * Maximum number of concurrent browser requests per host.
+     */
+    private final int maxPerHost;
+
+    /**
+     * Maximum time to wait for a page, in seconds.
+     */
+    private final int timeout;
+
+    /**
+     * Latencies and outcomes of the requests.
+     */
+    private final ScrapeMetrics metrics;
+
+    /**
+     * Limits the rate of requests to each host.
+     */
+    private final HostScheduler scheduler;
+
+    /**
+     * The browser sessions, created on demand.
+     */
+    private volatile BrowserPool browsers;
+
+    /**
+     * Default constructor.
+     * @param sessions The number of browser sessions
+     * @param maxPerHost Maximum number of concurrent browser requests per
+     *  host
+     * @param timeout Maximum time to wait for a page, in seconds
+     * @param metrics Latencies and outcomes of the requests
+     * @param scheduler Limits the rate of requests to each host
+     */
+    public PageFetcher(final int sessions, final int maxPerHost,
+        final int timeout, final ScrapeMetrics metrics,
+        final HostScheduler scheduler) {
+        this.sessions = sessions;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.maxPerHost = maxPerHost;
+        this.timeout = timeout;
+        this.javascriptHosts = ConcurrentHashMap.newKeySet();
+        for (String host : System.getProperty("bib.javascript.hosts", "").split(","))
+            if (!host.trim().isEmpty())
+                this.javascriptHosts.add(host.trim());
+        this.misses = new ConcurrentHashMap<>();
+        this.maxMisses = Integer.getInteger("bib.javascript.misses", 3);
+    }
+
+    /**
+     * Fetches the page, over HTTP unless its host needs JavaScript.
+     * @param url The URL
+     * @return the page
+     * @throws IOException
+     */
+    public Page fetch(final String url) throws IOException {
+        final String resolved = this.landing(url);
+        if (this.needsJavaScript(resolved))
+            return this.browse(resolved);
+        final String host = new URL(resolved).getHost();
+        this.acquire(host);
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.RENDER,
+            host)) {
+            final long start = System.nanoTime();
+            final Connection.Response response = Jsoup.connect(resolved)
+                .userAgent(PageFetcher.USER_AGENT)
+                .timeout(this.timeout * 1000)
+                .followRedirects(true)
+                .ignoreHttpErrors(true)
+                .execute();
+            final int status = response.statusCode();
+            if (status == 429 || status == 503) {
+                this.scheduler.throttled(
+                    host,
+                    PageFetcher.retryAfter(response.header("Retry-After"))
+                );
+                throw new HostScheduler.Throttled(status, resolved);
+            }
+            if (status >= 400)
+                throw new HttpStatusException("HTTP error fetching URL", status, resolved);
+            this.scheduler.succeeded(
+                host,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            );
+            final Page page = new Page(response.url().toString(), response.parse());
+            sample.succeed();
+            return page;
+        }
+    }
+
+    /**
+     * Renders the page in a browser, regardless of its host.
+     * @param url The URL
+     * @return the rendered page
+     * @throws IOException
+     */
+    public Page render(final String url) throws IOException {
+        return this.browse(this.landing(url));
+    }
+
+    public boolean needsJavaScript(final String url)
+        throws IOException {
+        return this.javascriptHosts.contains(new URL(url).getHost());
+    }
+
+    /**
+     * Reports a page whose static HTML lacked the expected content, which
+     * its rendered version had. A single page may just be unusual, so the
+     * host is only switched to the browser once {@code bib.javascript.misses}
+     * of its pages (3 by default) were reported.
+     * @param url The URL of the page
+     * @return whether the host now needs JavaScript
+     * @throws IOException
+     */
+    public boolean missedWithoutJavaScript(final String url) throws IOException {
+        final String host = new URL(url).getHost();
+        if (this.misses.computeIfAbsent(host, key -> new AtomicInteger())
+            .incrementAndGet() >= this.maxMisses)
+            this.requireJavaScript(url);
+        return this.javascriptHosts.contains(host);
+    }
+
+    /**
+     * Marks the host of the given URL as needing JavaScript.
+     * @param url A URL of the host
+     * @throws IOException
+     */
+    public void requireJavaScript(final String url) throws IOException {
+        final String host = new URL(url).getHost();
+        if (this.javascriptHosts.add(host))
+            System.err.printf("%s needs JavaScript, using a browser\n", host);
+    }
+
+    public void shutdown() {
+        if (this.browsers != null)
+            this.browsers.shutdown();
+    }
+
+    /**
+     * Follows the HTTP redirects of the given URL, without downloading the
+     * pages.
+     * @param url The URL
+     * @return the last URL in the redirect chain
+     * @throws IOException
+     */
+    public String resolve(final String url) throws IOException {
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.RESOLVE,
+            new URL(url).getHost())) {
+            final String resolved = this.follow(url);
+            sample.succeed();
+            return resolved;
+        }
+    }
+
+    private String follow(final String url) throws IOException {
+        String current = url;
+        for (int i = 0; i < 10; i++) {
+            final HttpURLConnection connection =
+                (HttpURLConnection) new URL(current).openConnection();
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod("HEAD");
+            connection.setRequestProperty("User-Agent", PageFetcher.USER_AGENT);
+            connection.setConnectTimeout(this.timeout * 1000);
+            connection.setReadTimeout(this.timeout * 1000);
+            final int status = connection.getResponseCode();
+            final String location = connection.getHeaderField("Location");
+            if (status < 300 || status >= 400 || location == null)
+                break;
+            current = StringUtil.resolve(current, location);
+        }
+        return current;
+    }
+
+    /**
+     * Resolves DOI links up front, so that the browser's per-host limit
+     * applies to the publisher rather than to the DOI resolver. Other URLs
+     * are left to the HTTP client or the browser to follow.
+     */
+    private String landing(final String url) throws IOException {
+        if (DoiDump.doi(url).equals(url))
+            return url;
+        return this.resolve(url);
+    }
+
+    private Page browse(final String url) throws IOException {
+        final String host = new URL(url).getHost();
+        this.acquire(host);
+        try (ScrapeMetrics.Sample sample = this.metrics.start(
+            ScrapeMetrics.Stage.RENDER,
+            host)) {
+            final long start = System.nanoTime();
+            final Page page = this.browsers().render(url);
+            this.scheduler.succeeded(
+                host,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            );
+            sample.succeed();
+            return page;
+        }
+    }
+
+    private void acquire(final String host) throws IOException {
+        try {
+            this.scheduler.acquire(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * How long the host asks to be left alone, in milliseconds. Only the
+     * delta-seconds form of Retry-After is understood; otherwise, the pause
+     * is {@code bib.host.pause.seconds} (60 by default).
+     * @param header The Retry-After header, or null
+     * @return the pause, in milliseconds
+     */
+    static long retryAfter(final String header) {
+        try {
+            if (header != null)
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(header.trim()));
+        } catch (NumberFormatException e) {
+            // An HTTP date
+        }
+        return TimeUnit.SECONDS.toMillis(Long.getLong("bib.host.pause.seconds", 60L));
+    }
+
+    private BrowserPool browsers() throws IOException {
+        if (this.browsers == null) {
+            synchronized (this) {
+                if (this.browsers == null)
+                    this.browsers = new BrowserPool(
+                        this.sessions,
+                        this.maxPerHost,
+                        this.timeout
+                    );
+            }
+        }
+        return this.browsers;
+    }
+
+}
@@ -0,0 +1,252 @@
+package co.migueljimenez.bib;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Append-only record of the attempts to find and download the PDF file of
+ * each entry. Every attempt appends one tab-separated line (time, key, DOI,
+ * status, link and number of failed attempts), flushed right away, so a
+ * crashed or interrupted run leaves an accurate journal behind. On startup
+ * the journal is loaded into a hash index holding the last record of each
+ * key, which is used to skip finished entries and entries that failed
+ * recently or too many times.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class ProgressJournal implements Closeable {
+
+    /**
+     * The status of an attempt.
+     */
+    public enum Status {
+        FOUND, DOWNLOADED, FAILED
+    }
+
+    /**
+     * The last record of each key.
+     */
+    private final Map<String, Record> records;
+
+    /**
+     * The journal file, open for appending.
+     */
+    private final Writer writer;
+
+    /**
+     * Number of failed attempts after which an entry is no longer retried.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Time to wait before retrying a failed entry, in milliseconds.
+     */
+    private final long retryDelay;
+
+    /**
+     * Default constructor.
+     * @param file The journal file
+     * @param maxAttempts Number of failed attempts after which an entry is
+     *  no longer retried
+     * @param retryDelay Time to wait before retrying a failed entry, in
+     *  milliseconds
+     * @throws IOException
+     */
+    public ProgressJournal(final File file, final int maxAttempts,
+        final long retryDelay) throws IOException {
+        this.records = new HashMap<>();
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        if (file.exists()) {
+            try (Stream<String> lines = Files.lines(file.toPath())) {
+                lines.map(Record::parse)
+                    .filter(record -> record != null)
+                    .forEach(record -> this.records.put(record.key, record));
+            }
+        }
+        this.writer = new BufferedWriter(
+            new OutputStreamWriter(
+                new FileOutputStream(file, true),
+                Charset.forName("UTF-8")
+            )
+        );
+    }
+
+    /**
+     * Whether the entry needs no further attempts.
+     * @param key The entry key
+     * @param downloading Whether files are being downloaded, in which case a
+     *  found link is not enough
+     * @return whether to skip the entry
+     */
+    public synchronized boolean shouldSkip(final String key,
+        final boolean downloading) {
+        final Record record = this.records.get(key);
+        if (record == null)
+            return false;
+        switch (record.status) {
+            case DOWNLOADED: return true;
+            case FOUND: return !downloading;
+            default:
+                return record.attempts >= this.maxAttempts
+                    || System.currentTimeMillis() - record.time < this.retryDelay;
+        }
+    }
+
+    /**
+     * The number of failed attempts of the entry so far.
+     * @param key The entry key
+     * @return the number of failed attempts, 0 for unknown entries
+     */
+    public synchronized int attempts(final String key) {
+        final Record record = this.records.get(key);
+        return record == null ? 0 : record.attempts;
+    }
+
+    /**
+     * Appends an attempt to the journal. Failed attempts add up until the
+     * entry is downloaded: finding a link whose download then fails does
+     * not reset the count, so {@code maxAttempts} still applies.
+     * @param key The entry key
+     * @param doi The DOI of the entry
+     * @param status The result of the attempt
+     * @param link The PDF link, if known
+     */
+    public synchronized void record(final String key, final String doi,
+        final Status status, final String link) {
+        final Record previous = this.records.get(key);
+        int attempts = previous == null ? 0 : previous.attempts;
+        if (status == Status.FAILED)
+            attempts++;
+        else if (status == Status.DOWNLOADED)
+            attempts = 0;
+        final Record record = new Record(
+            System.currentTimeMillis(),
+            key,
+            doi,
+            status,
+            link == null && previous != null ? previous.link : link,
+            attempts
+        );
+        this.records.put(key, record);
+        try {
+            this.writer.write(record.toString());
+            this.writer.write('\n');
+            this.writer.flush();
+        } catch (IOException e) {
+            System.err.printf(
+                "Couldn't write the journal record of %s (%s)\n",
+                key,
+                e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.writer.close();
+    }
+
+    /**
+     * A line of the journal.
+     */
+    private static class Record {
+
+        final long time;
+
+        final String key;
+
+        final String doi;
+
+        final Status status;
+
+        final String link;
+
+        final int attempts;
+
+        Record(final long time, final String key, final String doi,
+            final Status status, final String link, final int attempts) {
+            this.time = time;
+            this.key = key;
+            this.doi = doi;
+            this.status = status;
+            this.link = link;
+            this.attempts = attempts;
+        }
+
+        /**
+         * Parses a line, ignoring lines that are incomplete (e.g., the last
+         * line written before a crash).
+         */
+        static Record parse(final String line) {
+            final String[] fields = line.split("\t", -1);
+            if (fields.length != 6)
+                return null;
+            try {
+                return new Record(
+                    Long.parseLong(fields[0]),
+                    fields[1],
+                    fields[2],
+                    Status.valueOf(fields[3]),
+                    fields[4].isEmpty() ? null : fields[4],
+                    Integer.parseInt(fields[5])
+                );
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%d\t%s\t%s\t%s\t%s\t%d",
+                this.time,
+                this.key,
+                Record.clean(this.doi),
+                this.status,
+                Record.clean(this.link),
+                this.attempts
+            );
+        }
+
+        private static String clean(final String value) {
+            return value == null ? "" : value.replaceAll("[\t\r\n]", " ");
+        }
+
+    }
+
+}
@@ -0,0 +1,497 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Counters and latency histograms of the scraping pipeline, per stage and
+ * per publisher host. The metrics are registered as an MXBean while a run
+ * is in progress, a progress line with an ETA is printed periodically, and a
+ * JSON summary is written when the run finishes.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public class ScrapeMetrics implements ScrapeMetricsMXBean {
+
+    /**
+     * The stages of the pipeline.
+     */
+    public enum Stage {
+        RESOLVE, RENDER, EXTRACT, POST_PROCESS, DOWNLOAD
+    }
+
+    /**
+     * Distinguishes the MXBeans of several instances.
+     */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    /**
+     * Latencies per {@code stage host}.
+     */
+    private final Map<String, Histogram> latencies;
+
+    /**
+     * Successes per stage.
+     */
+    private final Map<Stage, LongAdder> successes;
+
+    /**
+     * Failures per stage.
+     */
+    private final Map<Stage, LongAdder> failures;
+
+    /**
+     * Operations in progress per stage.
+     */
+    private final Map<Stage, AtomicLong> inFlight;
+
+    /**
+     * Pages whose host has no known selector, per host.
+     */
+    private final Map<String, LongAdder> unknownSelectors;
+
+    /**
+     * Bytes written by downloads.
+     */
+    private final LongAdder bytes;
+
+    /**
+     * Entries to process in the current run.
+     */
+    private final AtomicLong total;
+
+    /**
+     * Entries processed in the current run.
+     */
+    private final AtomicLong done;
+
+    /**
+     * The name of the MXBean.
+     */
+    private final ObjectName name;
+
+    /**
+     * Prints the progress line.
+     */
+    private ScheduledExecutorService reporter;
+
+    /**
+     * When the current run started, in nanoseconds.
+     */
+    private long started;
+
+    /**
+     * Default constructor.
+     */
+    public ScrapeMetrics() {
+        this.latencies = new ConcurrentHashMap<>();
+        this.successes = new ConcurrentHashMap<>();
+        this.failures = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        for (Stage stage : Stage.values()) {
+            this.successes.put(stage, new LongAdder());
+            this.failures.put(stage, new LongAdder());
+            this.inFlight.put(stage, new AtomicLong());
+        }
+        this.unknownSelectors = new ConcurrentHashMap<>();
+        this.bytes = new LongAdder();
+        this.total = new AtomicLong();
+        this.done = new AtomicLong();
+        try {
+            this.name = new ObjectName(
+                String.format(
+                    "co.migueljimenez.bib:type=ScrapeMetrics,name=%d",
+                    ScrapeMetrics.INSTANCES.incrementAndGet()
+                )
+            );
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Starts a run: registers the MXBean and prints the progress every
+     * {@code bib.progress.seconds} seconds (10 by default).
+     * @param entries The number of entries to process
+     */
+    public synchronized void startRun(final long entries) {
+        this.total.set(entries);
+        this.done.set(0);
+        this.started = System.nanoTime();
+        try {
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(this.name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+        } catch (JMException e) {
+            System.err.printf("Couldn't register the metrics MXBean (%s)\n", e.getMessage());
+        }
+        final long period = Long.getLong("bib.progress.seconds", 10L);
+        this.reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "bib-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reporter.scheduleAtFixedRate(
+            () -> System.out.println(this.progress()),
+            period,
+            period,
+            TimeUnit.SECONDS
+        );
+    }
+
+    /**
+     * Ends the run: stops the progress line, unregisters the MXBean and
+     * writes the JSON summary.
+     * @param summary The file to write the summary to
+     */
+    public synchronized void finishRun(final File summary) {
+        if (this.reporter != null)
+            this.reporter.shutdownNow();
+        try {
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(this.name))
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+        } catch (JMException e) {
+            // Nothing to unregister
+        }
+        try {
+            Files.write(
+                summary.toPath(),
+                this.getSummaryJson().getBytes(Charset.forName("UTF-8"))
+            );
+            System.out.printf("Metrics written to %s\n", summary.getAbsolutePath());
+        } catch (IOException e) {
+            System.err.printf("Couldn't write the metrics to %s (%s)\n", summary, e.getMessage());
+        }
+    }
+
+    public void entryDone() {
+        this.done.incrementAndGet();
+    }
+
+    /**
+     * Starts timing an operation. The operation counts as a failure unless
+     * {@link Sample#succeed()} is called before the sample is closed.
+     * @param stage The stage
+     * @param host The host the operation talks to
+     * @return the sample, to close when the operation ends
+     */
+    public Sample start(final Stage stage, final String host) {
+        this.inFlight.get(stage).incrementAndGet();
+        return new Sample(stage, host);
+    }
+
+    public void unknownSelector(final String host) {
+        this.unknownSelectors.computeIfAbsent(host, key -> new LongAdder())
+            .increment();
+    }
+
+    public void downloaded(final long bytes) {
+        this.bytes.add(bytes);
+    }
+
+    /**
+     * A line such as "120/2000 entries (6.0%), 3.2/s, in flight: ...,
+     * ETA 9m47s".
+     * @return the progress line
+     */
+    public String progress() {
+        final long done = this.done.get();
+        final long total = this.total.get();
+        final double seconds = (System.nanoTime() - this.started) / 1e9;
+        final double rate = seconds > 0 ? done / seconds : 0;
+        final StringBuilder flight = new StringBuilder();
+        this.inFlight.forEach((stage, count) -> {
+            if (count.get() > 0)
+                flight.append(
+                    String.format(" %s=%d", stage.name().toLowerCase(Locale.ROOT), count.get())
+                );
+        });
+        final String eta = rate > 0
+            ? ScrapeMetrics.duration((long) ((total - done) / rate))
+            : "unknown";
+        return String.format(
+            Locale.ROOT,
+            "%d/%d entries (%.1f%%), %.1f/s, in flight:%s, ETA %s",
+            done,
+            total,
+            total > 0 ? 100.0 * done / total : 0.0,
+            rate,
+            flight.length() == 0 ? " none" : flight.toString(),
+            eta
+        );
+    }
+
+    @Override
+    public long getEntriesTotal() {
+        return this.total.get();
+    }
+
+    @Override
+    public long getEntriesDone() {
+        return this.done.get();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getSuccesses() {
+        final Map<String, Long> map = new TreeMap<>();
+        this.successes.forEach((stage, count) -> map.put(stage.name(), count.sum()));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getFailures() {
+        final Map<String, Long> map = new TreeMap<>();
+        this.failures.forEach((stage, count) -> map.put(stage.name(), count.sum()));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getInFlight() {
+        final Map<String, Long> map = new TreeMap<>();
+        this.inFlight.forEach((stage, count) -> map.put(stage.name(), count.get()));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getUnknownSelectors() {
+        final Map<String, Long> map = new TreeMap<>();
+        this.unknownSelectors.forEach((host, count) -> map.put(host, count.sum()));
+        return map;
+    }
+
+    @Override
+    public Map<String, Double> getMeanLatencyMillis() {
+        final Map<String, Double> map = new TreeMap<>();
+        this.latencies.forEach((key, histogram) -> map.put(key, histogram.mean()));
+        return map;
+    }
+
+    @Override
+    public Map<String, Long> getP95LatencyMillis() {
+        final Map<String, Long> map = new TreeMap<>();
+        this.latencies.forEach(
+            (key, histogram) -> map.put(key, histogram.percentile(0.95))
+        );
+        return map;
+    }
+
+    @Override
+    public String getSummaryJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(String.format("  \"entriesTotal\": %d,\n", this.getEntriesTotal()));
+        json.append(String.format("  \"entriesDone\": %d,\n", this.getEntriesDone()));
+        json.append(String.format("  \"bytesDownloaded\": %d,\n", this.getBytesDownloaded()));
+        json.append(
+            String.format(
+                Locale.ROOT,
+                "  \"elapsedSeconds\": %.3f,\n",
+                (System.nanoTime() - this.started) / 1e9
+            )
+        );
+        json.append("  \"successes\": ").append(ScrapeMetrics.json(this.getSuccesses())).append(",\n");
+        json.append("  \"failures\": ").append(ScrapeMetrics.json(this.getFailures())).append(",\n");
+        json.append("  \"unknownSelectors\": ").append(ScrapeMetrics.json(this.getUnknownSelectors())).append(",\n");
+        json.append("  \"latencies\": [");
+        final Map<String, Histogram> sorted = new TreeMap<>(this.latencies);
+        String separator = "\n";
+        for (Map.Entry<String, Histogram> entry : sorted.entrySet()) {
+            final String[] key = entry.getKey().split(" ", 2);
+            final Histogram histogram = entry.getValue();
+            json.append(separator).append(
+                String.format(
+                    Locale.ROOT,
+                    "    {\"stage\": %s, \"host\": %s, \"count\": %d, "
+                    + "\"failures\": %d, \"meanMillis\": %.3f, \"p50Millis\": %d, "
+                    + "\"p95Millis\": %d, \"maxMillis\": %d}",
+                    ScrapeMetrics.quote(key[0]),
+                    ScrapeMetrics.quote(key[1]),
+                    histogram.count.sum(),
+                    histogram.failures.sum(),
+                    histogram.mean(),
+                    histogram.percentile(0.5),
+                    histogram.percentile(0.95),
+                    histogram.max.get()
+                )
+            );
+            separator = ",\n";
+        }
+        json.append(sorted.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String json(final Map<String, Long> map) {
+        final StringBuilder json = new StringBuilder("{");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            json.append(separator)
+                .append(ScrapeMetrics.quote(entry.getKey()))
+                .append(": ")
+                .append(entry.getValue());
+            separator = ", ";
+        }
+        return json.append("}").toString();
+    }
+
+    private static String quote(final String value) {
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String duration(final long seconds) {
+        if (seconds >= 3600)
+            return String.format("%dh%02dm", seconds / 3600, seconds % 3600 / 60);
+        return String.format("%dm%02ds", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * A timed operation.
+     */
+    public final class Sample implements AutoCloseable {
+
+        private final Stage stage;
+
+        private final String host;
+
+        private final long start;
+
+        private boolean succeeded;
+
+        private Sample(final Stage stage, final String host) {
+            this.stage = stage;
+            this.host = host;
+            this.start = System.nanoTime();
+        }
+
+        public void succeed() {
+            this.succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.start);
+            ScrapeMetrics.this.inFlight.get(this.stage).decrementAndGet();
+            (this.succeeded ? ScrapeMetrics.this.successes : ScrapeMetrics.this.failures)
+                .get(this.stage)
+                .increment();
+            ScrapeMetrics.this.latencies.computeIfAbsent(
+                String.format("%s %s", this.stage, this.host),
+                key -> new Histogram()
+            ).record(millis, this.succeeded);
+        }
+
+    }
+
+    /**
+     * Latencies in power-of-two millisecond buckets: bucket i counts
+     * latencies below 2^i ms.
+     */
+    private static final class Histogram {
+
+        private final LongAdder[] buckets;
+
+        private final LongAdder count;
+
+        private final LongAdder failures;
+
+        private final LongAdder sum;
+
+        private final AtomicLong max;
+
+        Histogram() {
+            this.buckets = new LongAdder[32];
+            for (int i = 0; i < this.buckets.length; i++)
+                this.buckets[i] = new LongAdder();
+            this.count = new LongAdder();
+            this.failures = new LongAdder();
+            this.sum = new LongAdder();
+            this.max = new AtomicLong();
+        }
+
+        void record(final long millis, final boolean succeeded) {
+            final int bucket = Math.min(
+                this.buckets.length - 1,
+                64 - Long.numberOfLeadingZeros(millis)
+            );
+            this.buckets[bucket].increment();
+            this.count.increment();
+            if (!succeeded)
+                this.failures.increment();
+            this.sum.add(millis);
+            this.max.accumulateAndGet(millis, Math::max);
+        }
+
+        double mean() {
+            final long count = this.count.sum();
+            return count == 0 ? 0.0 : (double) this.sum.sum() / count;
+        }
+
+        /**
+         * The upper bound of the bucket holding the given percentile.
+         */
+        long percentile(final double percentile) {
+            final long target = (long) Math.ceil(this.count.sum() * percentile);
+            long seen = 0;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i].sum();
+                if (seen >= target && seen > 0)
+                    return Math.min(1L << i, this.max.get());
+            }
+            return this.max.get();
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package co.migueljimenez.bib;
+
+import java.util.Map;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * JMX view of {@link ScrapeMetrics}. Maps are keyed by stage, by host, or
+ * by {@code stage host}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public interface ScrapeMetricsMXBean {
+
+    long getEntriesTotal();
+
+    long getEntriesDone();
+
+    long getBytesDownloaded();
+
+    Map<String, Long> getSuccesses();
+
+    Map<String, Long> getFailures();
+
+    Map<String, Long> getInFlight();
+
+    Map<String, Long> getUnknownSelectors();
+
+    Map<String, Double> getMeanLatencyMillis();
+
+    Map<String, Long> getP95LatencyMillis();
+
+    String getSummaryJson();
+
+}
@@ -0,0 +1,172 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.jsoup.Jsoup;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link BrowserPool}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class BrowserPoolTest {
+
+    @Test
+    public void shutsDownTheStartedSessionsIfOneFailsToStart() {
+        final List<FakeSession> started = new ArrayList<>();
+        try {
+            new BrowserPool(3, 1, 5, () -> {
+                if (started.size() == 2)
+                    throw new IOException("No browser");
+                final FakeSession session = new FakeSession();
+                started.add(session);
+                return session;
+            });
+            Assert.fail("The pool started without a browser");
+        } catch (IOException e) {
+            Assert.assertEquals("No browser", e.getMessage());
+        }
+        Assert.assertEquals(2, started.size());
+        for (FakeSession session : started)
+            Assert.assertTrue(session.shutdown);
+    }
+
+    @Test
+    public void restartsASessionThatFails() throws Exception {
+        final FakeSession session = new FakeSession(true);
+        final BrowserPool pool = new BrowserPool(1, 1, 5, () -> session);
+        Assert.assertEquals(
+            "http://a.org/1",
+            pool.render("http://a.org/1").getUrl()
+        );
+        Assert.assertEquals(1, session.restarts);
+        Assert.assertEquals(
+            "http://a.org/2",
+            pool.render("http://a.org/2").getUrl()
+        );
+        Assert.assertEquals(1, pool.size());
+        pool.shutdown();
+    }
+
+    @Test
+    public void replacesASessionThatCannotRestart() throws Exception {
+        final FakeSession broken = new FakeSession(true);
+        broken.restartable = false;
+        final FakeSession replacement = new FakeSession();
+        final Iterator<FakeSession> sessions =
+            Arrays.asList(broken, replacement).iterator();
+        final BrowserPool pool = new BrowserPool(1, 1, 5, sessions::next);
+        try {
+            pool.render("http://a.org/1");
+            Assert.fail("The broken session rendered a page");
+        } catch (IOException e) {
+            Assert.assertTrue(broken.shutdown);
+        }
+        Assert.assertEquals(0, pool.size());
+        Assert.assertEquals(
+            "http://a.org/2",
+            pool.render("http://a.org/2").getUrl()
+        );
+        Assert.assertEquals(1, replacement.renders);
+        Assert.assertEquals(1, broken.renders);
+        Assert.assertEquals(1, pool.size());
+        pool.shutdown();
+        Assert.assertTrue(replacement.shutdown);
+    }
+
+    /**
+     * A session that renders empty pages without a browser.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-18
+     * @version $Id$
+     * @since 0.0.1
+     */
+    private static final class FakeSession implements BrowserPool.Session {
+
+        /**
+         * Whether the next render fails.
+         */
+        private boolean failing;
+
+        /**
+         * Whether restarting succeeds.
+         */
+        private boolean restartable;
+
+        /**
+         * The number of renders attempted.
+         */
+        private int renders;
+
+        /**
+         * The number of restarts.
+         */
+        private int restarts;
+
+        /**
+         * Whether the session was shut down.
+         */
+        private boolean shutdown;
+
+        FakeSession() {
+            this(false);
+        }
+
+        FakeSession(final boolean failing) {
+            this.failing = failing;
+            this.restartable = true;
+        }
+
+        @Override
+        public Page render(final String url) {
+            this.renders++;
+            if (this.failing)
+                throw new IllegalStateException("The browser crashed");
+            return new Page(url, Jsoup.parse("<html></html>"));
+        }
+
+        @Override
+        public void restart() throws IOException {
+            if (!this.restartable)
+                throw new IOException("The browser does not start");
+            this.restarts++;
+            this.failing = false;
+        }
+
+        @Override
+        public void shutdown() {
+            this.shutdown = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link DoiCache}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DoiCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsOneLockFilePerDirectory() throws Exception {
+        final File directory = this.folder.newFolder("doi");
+        final DoiCache cache = this.cache(directory);
+        for (int i = 0; i < 100; i++)
+            cache.store(String.format("10.1/%d", i), DoiCache.ABSTRACT, "Text");
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory.toPath())) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        final long locks = files.stream()
+            .filter(file -> file.getFileName().toString().endsWith(".lock"))
+            .count();
+        final long directories = files.stream()
+            .map(Path::getParent)
+            .distinct()
+            .count();
+        Assert.assertEquals(100, files.size() - locks);
+        Assert.assertEquals(directories, locks);
+        Assert.assertEquals(
+            "Text",
+            this.cache(directory).lookup("10.1/42", DoiCache.ABSTRACT)
+        );
+    }
+
+    @Test
+    public void readsEachRecordOncePerRun() throws Exception {
+        final File directory = this.folder.newFolder("doi");
+        this.cache(directory).store("10.1/A", DoiCache.ABSTRACT, "Text");
+        final DoiCache cache = this.cache(directory);
+        Assert.assertEquals("Text", cache.lookup("10.1/a", DoiCache.ABSTRACT));
+        try (Stream<Path> walk = Files.walk(directory.toPath())) {
+            for (Path file : walk.filter(Files::isRegularFile)
+                .collect(Collectors.toList()))
+                Files.delete(file);
+        }
+        Assert.assertEquals("Text", cache.lookup("10.1/a", DoiCache.ABSTRACT));
+        // Updates replace the record kept in memory
+        cache.fail("10.1/a", DoiCache.PDF, "Not found");
+        Assert.assertTrue(cache.failedRecently("10.1/a", DoiCache.PDF));
+    }
+
+    private DoiCache cache(final File directory) {
+        return new DoiCache(
+            directory,
+            TimeUnit.DAYS.toMillis(1L),
+            TimeUnit.DAYS.toMillis(1L)
+        );
+    }
+
+}
@@ -0,0 +1,156 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link DownloadManager}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class DownloadManagerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Serves the files.
+     */
+    private StandIn publisher;
+
+    @Before
+    public void serve() throws Exception {
+        this.publisher = new StandIn();
+    }
+
+    @After
+    public void stop() {
+        this.publisher.close();
+    }
+
+    @Test
+    public void resumesAPartialDownload() throws Exception {
+        final File output = new File(this.folder.getRoot(), "paper.pdf");
+        this.write(new File(output.getPath() + ".part"), "%PDF-1.4\n");
+        this.publisher.serve(
+            "/paper.pdf",
+            206,
+            "Rest of the file",
+            "Content-Type", "application/pdf"
+        );
+        this.manager(1024).download(this.publisher.url("/paper.pdf"), output);
+        Assert.assertEquals("bytes=9-", this.publisher.header("/paper.pdf", "Range"));
+        Assert.assertEquals("%PDF-1.4\nRest of the file", this.read(output));
+        Assert.assertFalse(new File(output.getPath() + ".part").exists());
+    }
+
+    @Test
+    public void replacesTheFileOnlyOnceItIsComplete() throws Exception {
+        final File output = new File(this.folder.getRoot(), "paper.pdf");
+        this.write(output, "Previous version");
+        this.publisher.serve(
+            "/paper.pdf",
+            200,
+            "%PDF-1.5\nNew version",
+            "Content-Type", "application/pdf"
+        );
+        this.manager(1024).download(this.publisher.url("/paper.pdf"), output);
+        Assert.assertNull(this.publisher.header("/paper.pdf", "Range"));
+        Assert.assertEquals("%PDF-1.5\nNew version", this.read(output));
+        Assert.assertArrayEquals(
+            new String[] {"paper.pdf"},
+            this.folder.getRoot().list()
+        );
+    }
+
+    @Test
+    public void discardsPartialFilesOverTheSizeLimit() throws Exception {
+        final File output = new File(this.folder.getRoot(), "paper.pdf");
+        final File part = new File(output.getPath() + ".part");
+        this.write(part, "%PDF-1.4\n");
+        this.publisher.serve(
+            "/paper.pdf",
+            206,
+            new byte[64],
+            "Content-Type", "application/pdf"
+        );
+        this.fail(this.manager(32), "/paper.pdf", output);
+        Assert.assertFalse(part.exists());
+        Assert.assertFalse(output.exists());
+    }
+
+    @Test
+    public void discardsPartialFilesThatAreNotPdfs() throws Exception {
+        final File output = new File(this.folder.getRoot(), "paper.pdf");
+        final File part = new File(output.getPath() + ".part");
+        this.write(part, "%PDF-1.4\n");
+        this.publisher.serve("/paper.pdf", 200, "<html><body>Sign in</body></html>")
+            .serve("/paper.txt", 200, "Plain text", "Content-Type", "application/octet-stream");
+        this.fail(this.manager(1024), "/paper.pdf", output);
+        Assert.assertFalse(part.exists());
+        this.fail(this.manager(1024), "/paper.txt", output);
+        Assert.assertFalse(part.exists());
+        Assert.assertFalse(output.exists());
+    }
+
+    private DownloadManager manager(final long maxSize) {
+        return new DownloadManager(
+            1,
+            1,
+            maxSize,
+            new ScrapeMetrics(),
+            new HostScheduler(50, 0.05, 50, 0.1, 10_000L)
+        );
+    }
+
+    private void fail(final DownloadManager manager, final String path,
+        final File output) {
+        try {
+            manager.download(this.publisher.url(path), output);
+            Assert.fail(String.format("%s was downloaded", path));
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,170 @@
+package co.migueljimenez.bib;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link HostRules}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class HostRulesTest {
+
+    @Test
+    public void findsTheExactThenTheClosestSuffixThenTheDefaultRule()
+        throws Exception {
+        final HostRules rules = HostRules.parse(
+            new StringReader(
+                String.join(
+                    "\n",
+                    "# Comment",
+                    "[default]",
+                    "abstract = meta[name=description]",
+                    "[*.example.org]",
+                    "abstract = .any",
+                    "[*.journals.example.org]",
+                    "abstract = .journal",
+                    "[WWW.Example.org]",
+                    "abstract = .www"
+                )
+            )
+        );
+        Assert.assertEquals("www.example.org", rules.rule("www.example.org").getHost());
+        Assert.assertEquals(
+            "*.journals.example.org",
+            rules.rule("a.journals.example.org").getHost()
+        );
+        Assert.assertEquals("*.example.org", rules.rule("A.Example.org").getHost());
+        Assert.assertTrue(rules.rule("example.com").isDefault());
+        Assert.assertEquals(".journal", rules.rule("a.journals.example.org").abstractSelector());
+    }
+
+    @Test
+    public void triesTheSelectorsInOrder() throws Exception {
+        final HostRules.Rule rule = HostRules.parse(
+            new StringReader(
+                String.join(
+                    "\n",
+                    "[example.org]",
+                    "abstract = #missing",
+                    "abstract = div.abstract p",
+                    "link = a.missing",
+                    "link = a.pdf",
+                    "link = a"
+                )
+            )
+        ).rule("example.org");
+        final Document page = Jsoup.parse(
+            "<div class=abstract><p>First</p><p>second.</p></div>"
+                + "<a href=/other>Other</a><a class=pdf href=/paper.pdf>PDF</a>",
+            "http://example.org/"
+        );
+        Assert.assertEquals("First second.", rule.text(page));
+        Assert.assertEquals("/paper.pdf", rule.link(page));
+        Assert.assertEquals("", rule.text(Jsoup.parse("<p>None</p>")));
+    }
+
+    @Test
+    public void followsTheAttributeOfTheLoadedPage() throws Exception {
+        final HostRules.Rule rule = HostRules.parse(
+            new StringReader(
+                String.join(
+                    "\n",
+                    "[example.org]",
+                    "render = always",
+                    "follow = render frameset frame:nth-child(2) src",
+                    "follow = fetch"
+                )
+            )
+        ).rule("example.org");
+        Assert.assertEquals(HostRules.Render.ALWAYS, rule.getRender());
+        Assert.assertEquals(2, rule.getFollows().size());
+        final HostRules.Follow frame = rule.getFollows().get(0);
+        final HostRules.Follow landing = rule.getFollows().get(1);
+        Assert.assertTrue(frame.isRender());
+        Assert.assertFalse(landing.isRender());
+        final Page page = new Page(
+            "http://example.org/stamp?id=1",
+            Jsoup.parse(
+                "<frameset><frame src=/top><frame src=/files/1.pdf></frameset>",
+                "http://example.org/stamp?id=1"
+            )
+        );
+        Assert.assertEquals("http://example.org/files/1.pdf", frame.next(page));
+        Assert.assertEquals("http://example.org/stamp?id=1", landing.next(page));
+    }
+
+    @Test
+    public void reportsTheLineOfAMalformedRule() {
+        for (String rules : new String[] {
+            "abstract = p",
+            "[example.org]\nabstract p",
+            "[example.org]\n\nselector = p",
+            "[example.org]\nrender = sometimes",
+            "[example.org]\nfollow = open",
+            "[example.org]\nfollow = fetch a"
+        }) {
+            try {
+                HostRules.parse(new StringReader(rules));
+                Assert.fail(String.format("Expected %s to be rejected", rules));
+            } catch (IOException e) {
+                final int line = rules.split("\n").length;
+                Assert.assertTrue(
+                    e.getMessage(),
+                    e.getMessage().startsWith(
+                        String.format("Malformed host rule at line %d", line)
+                    )
+                );
+            }
+        }
+    }
+
+    @Test
+    public void loadsTheBundledRules() throws Exception {
+        final HostRules rules = HostRules.load();
+        Assert.assertEquals(
+            HostRules.Render.ALWAYS,
+            rules.rule("ieeexplore.ieee.org").getRender()
+        );
+        Assert.assertEquals(HostRules.Render.AUTO, rules.rule("dl.acm.org").getRender());
+        Assert.assertEquals("*.springeropen.com", rules.rule("a.springeropen.com").getHost());
+        Assert.assertTrue(rules.rule("example.org").isDefault());
+    }
+
+    @Test
+    public void takesTheHostOutOfAUrl() {
+        Assert.assertEquals("example.org", HostRules.host("https://example.org/a?b#c"));
+        Assert.assertEquals("example.org", HostRules.host("http://user@example.org:8080/"));
+        Assert.assertEquals("example.org", HostRules.host("https://example.org?u=http://a.org"));
+        Assert.assertEquals("", HostRules.host("file:///tmp/a.html"));
+    }
+
+}
@@ -0,0 +1,164 @@
+package co.migueljimenez.bib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jsoup.HttpStatusException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link HostScheduler}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class HostSchedulerTest {
+
+    @Test
+    public void takesLowerPrioritiesFirstAndAlternatesHosts() throws Exception {
+        final HostScheduler scheduler = new HostScheduler(1, 0.05, 5, 0.1, 10_000L);
+        final Pipeline.Dispatcher<String> dispatcher = this.dispatcher(scheduler);
+        dispatcher.add("a.org 1");
+        dispatcher.add("a.org 0");
+        dispatcher.add("b.org 0");
+        dispatcher.close();
+        final List<String> taken = new ArrayList<>();
+        for (String item = dispatcher.take(); item != null; item = dispatcher.take()) {
+            taken.add(item);
+            dispatcher.done(item);
+        }
+        Assert.assertEquals(
+            Arrays.asList("a.org 0", "b.org 0", "a.org 1"),
+            taken
+        );
+    }
+
+    @Test
+    public void takesItemsWithoutAHostRightAway() throws Exception {
+        final HostScheduler scheduler = new HostScheduler(1, 0.05, 5, 0.1, 10_000L);
+        final Pipeline.Dispatcher<String> dispatcher = this.dispatcher(scheduler);
+        dispatcher.add("a.org 0");
+        dispatcher.add("cached");
+        Assert.assertEquals("cached", dispatcher.take());
+        Assert.assertEquals("a.org 0", dispatcher.take());
+        dispatcher.done("a.org 0");
+        dispatcher.close();
+        Assert.assertNull(dispatcher.take());
+    }
+
+    @Test
+    public void waitsForTheItemsInProgressBeforeRunningOut() throws Exception {
+        final HostScheduler scheduler = new HostScheduler(1, 0.05, 5, 0.1, 10_000L);
+        final Pipeline.Dispatcher<String> dispatcher = this.dispatcher(scheduler);
+        dispatcher.add("a.org 0");
+        dispatcher.close();
+        final String item = dispatcher.take();
+        final List<String> taken = new ArrayList<>();
+        final Thread worker = new Thread(() -> {
+            try {
+                taken.add(dispatcher.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        worker.start();
+        worker.join(200L);
+        Assert.assertTrue(worker.isAlive());
+        // Throttled: the item goes back
+        dispatcher.add(item);
+        dispatcher.done(item);
+        worker.join(5_000L);
+        Assert.assertEquals(Arrays.asList("a.org 0"), taken);
+        dispatcher.done(item);
+        Assert.assertNull(dispatcher.take());
+    }
+
+    @Test
+    public void fillsTheGapsOfAThrottledHost() throws Exception {
+        final HostScheduler scheduler = new HostScheduler(10, 0.05, 20, 0.1, 10_000L);
+        scheduler.throttled("a.org", 200L);
+        Assert.assertEquals(5, scheduler.rate("a.org"), 1e-9);
+        final Pipeline.Dispatcher<String> dispatcher = this.dispatcher(scheduler);
+        dispatcher.add("a.org 0");
+        dispatcher.add("b.org 0");
+        dispatcher.close();
+        final long start = System.nanoTime();
+        Assert.assertEquals("b.org 0", dispatcher.take());
+        Assert.assertEquals("a.org 0", dispatcher.take());
+        Assert.assertTrue((System.nanoTime() - start) / 1_000_000L >= 200L);
+    }
+
+    @Test
+    public void adaptsTheRateToResponseTimes() {
+        final HostScheduler scheduler = new HostScheduler(1, 0.25, 1.5, 0.3, 1_000L);
+        scheduler.succeeded("a.org", 10L);
+        Assert.assertEquals(1.3, scheduler.rate("a.org"), 1e-9);
+        scheduler.succeeded("a.org", 10L);
+        Assert.assertEquals(1.5, scheduler.rate("a.org"), 1e-9);
+        scheduler.succeeded("a.org", 2_000L);
+        Assert.assertEquals(0.75, scheduler.rate("a.org"), 1e-9);
+        scheduler.succeeded("a.org", 2_000L);
+        scheduler.succeeded("a.org", 2_000L);
+        Assert.assertEquals(0.25, scheduler.rate("a.org"), 1e-9);
+    }
+
+    @Test
+    public void backsOffFromAHostThatAnswersTooManyRequests() throws Exception {
+        final HostScheduler scheduler = new HostScheduler(4, 0.05, 5, 0.1, 10_000L);
+        final PageFetcher fetcher =
+            new PageFetcher(1, 1, 5, new ScrapeMetrics(), scheduler);
+        try (StandIn publisher = new StandIn()) {
+            publisher.serve("/busy", 429, "", "Retry-After", "1")
+                .serve("/article", 200, "<html><body><p>Text</p></body></html>");
+            try {
+                fetcher.fetch(publisher.url("/busy"));
+                Assert.fail("Expected the fetch to fail");
+            } catch (HttpStatusException e) {
+                Assert.assertEquals(429, e.getStatusCode());
+            }
+            Assert.assertEquals(2, scheduler.rate(publisher.host()), 1e-9);
+            final long start = System.nanoTime();
+            final Page page = fetcher.fetch(publisher.url("/article"));
+            Assert.assertTrue((System.nanoTime() - start) / 1_000_000L >= 1_000L);
+            Assert.assertEquals("Text", page.getDocument().select("p").text());
+            Assert.assertEquals(1, publisher.requests("/busy"));
+            Assert.assertEquals(2.1, scheduler.rate(publisher.host()), 1e-9);
+        }
+    }
+
+    /**
+     * A dispatcher of "host priority" items, where "cached" items need no
+     * request.
+     */
+    private Pipeline.Dispatcher<String> dispatcher(final HostScheduler scheduler) {
+        return scheduler.dispatcher(
+            item -> item.equals("cached") ? null : item.split(" ")[0],
+            item -> Integer.parseInt(item.split(" ")[1])
+        );
+    }
+
+}
@@ -0,0 +1,232 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import org.jbibtex.BibTeXDatabase;
+import org.jbibtex.Key;
+import org.jbibtex.Value;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link OnlineTasks} against a local stand-in for a publisher.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class OnlineTasksTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The stand-in for the publisher.
+     */
+    private StandIn publisher;
+
+    @Before
+    public void serve() throws Exception {
+        this.publisher = new StandIn();
+        for (String path : new String[] {"/a", "/b", "/c", "/pdf"})
+            this.publisher.serve(
+                "/doi/10.1" + path,
+                302,
+                "",
+                "Location",
+                this.publisher.url(path)
+            );
+        this.publisher
+            .serve("/a", 200, this.article("First abstract."))
+            .serve("/b", 200, this.article("Second abstract."))
+            .serve("/c", 200, "<html><body><p>No abstract</p></body></html>")
+            .serve(
+                "/pdf",
+                200,
+                "<html><body><a class=pdf href=/stamp?id=1>PDF</a></body></html>"
+            )
+            .serve(
+                "/stamp",
+                200,
+                "<html><body><a class=download href=/files/1.pdf>Download</a></body></html>"
+            );
+        final File rules = this.folder.newFile("host-rules.ini");
+        Files.write(
+            rules.toPath(),
+            String.join(
+                "\n",
+                String.format("[%s]", this.publisher.host()),
+                "render = never",
+                "abstract = .abstract p",
+                "link = a.pdf",
+                "follow = fetch a.download href"
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        System.setProperty("bib.host.rules", rules.getPath());
+        System.setProperty("bib.cache.dir", this.folder.newFolder("cache").getPath());
+        System.setProperty(
+            "bib.metrics.file",
+            new File(this.folder.getRoot(), "metrics.json").getPath()
+        );
+        System.setProperty("bib.doi.resolver", this.publisher.url("/doi/"));
+        System.setProperty("bib.host.rate", "50");
+    }
+
+    @After
+    public void stop() {
+        this.publisher.close();
+        for (String property : new String[] {
+            "bib.host.rules", "bib.cache.dir", "bib.metrics.file",
+            "bib.doi.resolver", "bib.host.rate"
+        })
+            System.clearProperty(property);
+    }
+
+    @Test
+    public void fillsTheAbstractsFoundOnThePublisherPages() throws Exception {
+        final File file = this.folder.newFile("input.bib");
+        Files.write(
+            file.toPath(),
+            String.join(
+                "\n\n",
+                this.entry("a", "/a"),
+                this.entry("b", "/b"),
+                this.entry("c", "/c"),
+                "@article{d, title = {No DOI}}"
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final OnlineTasks tasks = new OnlineTasks(file, 4, 2);
+        tasks.updateAbstracts();
+        tasks.save();
+        final BibTeXDatabase database = new OfflineTasks().database(file);
+        Assert.assertEquals("First abstract.", this.field(database, "a"));
+        Assert.assertEquals("Second abstract.", this.field(database, "b"));
+        Assert.assertNull(this.field(database, "c"));
+        final String metrics = new String(
+            Files.readAllBytes(new File(this.folder.getRoot(), "metrics.json").toPath()),
+            StandardCharsets.UTF_8
+        );
+        Assert.assertTrue(metrics, metrics.contains("\"entriesTotal\": 3,"));
+        Assert.assertTrue(metrics, metrics.contains("\"entriesDone\": 3,"));
+        Assert.assertTrue(
+            metrics,
+            metrics.contains(String.format("\"host\": \"%s\"", this.publisher.host()))
+        );
+        // The abstracts found are cached
+        final int requests = this.publisher.requests("/a");
+        Assert.assertEquals(
+            "First abstract.",
+            new OnlineTasks(file).fetchAbstract("10.1/a")
+        );
+        Assert.assertEquals(requests, this.publisher.requests("/a"));
+    }
+
+    @Test
+    public void recognisesLinksToTheConfiguredResolver() throws Exception {
+        final File file = this.folder.newFile("input.bib");
+        Files.write(
+            file.toPath(),
+            String.format(
+                "@article{a, title = {A}, doi = {%s}}",
+                this.publisher.url("/doi/10.1/a")
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        final OnlineTasks tasks = new OnlineTasks(file, 2, 1);
+        tasks.updateAbstracts();
+        tasks.save();
+        // The abstract is cached under the DOI rather than the link
+        final int requests = this.publisher.requests("/a");
+        Assert.assertEquals(
+            "First abstract.",
+            new OnlineTasks(file).fetchAbstract("10.1/a")
+        );
+        Assert.assertEquals(requests, this.publisher.requests("/a"));
+    }
+
+    @Test
+    public void retriesTheEntriesOfAThrottlingHost() throws Exception {
+        // Resolving the DOI answers the HEAD request on the landing page
+        this.publisher.serve("/doi/10.1/t", 302, "", "Location", this.publisher.url("/t"))
+            .serve("/t", 200, "")
+            .serve("/t", 429, "", "Retry-After", "1")
+            .serve("/t", 200, this.article("Throttled abstract."));
+        final File file = this.folder.newFile("input.bib");
+        Files.write(
+            file.toPath(),
+            this.entry("t", "/t").getBytes(StandardCharsets.UTF_8)
+        );
+        final OnlineTasks tasks = new OnlineTasks(file, 2, 1);
+        tasks.updateAbstracts();
+        tasks.save();
+        Assert.assertEquals(
+            "Throttled abstract.",
+            this.field(new OfflineTasks().database(file), "t")
+        );
+        Assert.assertEquals(3, this.publisher.requests("/t"));
+    }
+
+    @Test
+    public void followsThePdfLinkAsTheRuleSays() throws Exception {
+        final File file = this.folder.newFile("input.bib");
+        Files.write(
+            file.toPath(),
+            this.entry("a", "/pdf").getBytes(StandardCharsets.UTF_8)
+        );
+        Assert.assertEquals(
+            this.publisher.url("/files/1.pdf"),
+            new OnlineTasks(file).PdfLink("10.1/pdf")
+        );
+        Assert.assertEquals(1, this.publisher.requests("/stamp"));
+    }
+
+    private String article(final String text) {
+        return String.format(
+            "<html><body><div class=abstract><p>%s</p></div></body></html>",
+            text
+        );
+    }
+
+    private String entry(final String key, final String path) {
+        return String.format(
+            "@article{%s, title = {%s}, doi = {%s}}",
+            key,
+            key.toUpperCase(Locale.ROOT),
+            "10.1" + path
+        );
+    }
+
+    private String field(final BibTeXDatabase database, final String key) {
+        final Value value = database.resolveEntry(new Key(key))
+            .getField(new Key("abstract"));
+        return value == null ? null : value.toUserString();
+    }
+
+}
@@ -0,0 +1,52 @@
+package co.migueljimenez.bib;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link PageFetcher}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class PageFetcherTest {
+
+    @Test
+    public void switchesAHostToTheBrowserAfterSeveralMisses() throws Exception {
+        final PageFetcher fetcher = this.fetcher();
+        Assert.assertFalse(fetcher.missedWithoutJavaScript("http://a.org/1"));
+        Assert.assertFalse(fetcher.missedWithoutJavaScript("http://a.org/2"));
+        Assert.assertFalse(fetcher.needsJavaScript("http://a.org/3"));
+        Assert.assertTrue(fetcher.missedWithoutJavaScript("http://a.org/3"));
+        Assert.assertTrue(fetcher.needsJavaScript("http://a.org/4"));
+        Assert.assertFalse(fetcher.needsJavaScript("http://b.org/1"));
+    }
+
+    private PageFetcher fetcher() {
+        return new PageFetcher(1, 1, 5, new ScrapeMetrics(), new HostScheduler());
+    }
+
+}
@@ -0,0 +1,74 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link ProgressJournal}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class ProgressJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsFailedDownloadsOfFoundLinks() throws Exception {
+        final File file = this.folder.newFile("journal.tsv");
+        try (ProgressJournal journal = new ProgressJournal(file, 2, 0L)) {
+            for (int i = 0; i < 2; i++) {
+                journal.record("a", "10.1/a", ProgressJournal.Status.FOUND, "http://a");
+                journal.record("a", "10.1/a", ProgressJournal.Status.FAILED, null);
+            }
+            Assert.assertEquals(2, journal.attempts("a"));
+            Assert.assertTrue(journal.shouldSkip("a", true));
+        }
+        try (ProgressJournal journal = new ProgressJournal(file, 2, 0L)) {
+            Assert.assertEquals(2, journal.attempts("a"));
+            Assert.assertTrue(journal.shouldSkip("a", true));
+        }
+    }
+
+    @Test
+    public void resetsTheAttemptsOnceDownloaded() throws Exception {
+        final File file = this.folder.newFile("journal.tsv");
+        try (ProgressJournal journal = new ProgressJournal(file, 3, 0L)) {
+            journal.record("a", "10.1/a", ProgressJournal.Status.FAILED, null);
+            journal.record("a", "10.1/a", ProgressJournal.Status.FOUND, "http://a");
+            Assert.assertEquals(1, journal.attempts("a"));
+            Assert.assertFalse(journal.shouldSkip("a", true));
+            journal.record("a", "10.1/a", ProgressJournal.Status.DOWNLOADED, null);
+            Assert.assertEquals(0, journal.attempts("a"));
+            Assert.assertTrue(journal.shouldSkip("a", true));
+        }
+    }
+
+}
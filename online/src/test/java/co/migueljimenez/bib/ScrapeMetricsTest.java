@@ -0,0 +1,114 @@
+package co.migueljimenez.bib;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * Tests {@link ScrapeMetrics}.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class ScrapeMetricsTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void countsTheOutcomesOfEachStage() {
+        final ScrapeMetrics metrics = new ScrapeMetrics();
+        try (ScrapeMetrics.Sample sample =
+            metrics.start(ScrapeMetrics.Stage.RENDER, "a.org")) {
+            Assert.assertEquals(1L, (long) metrics.getInFlight().get("RENDER"));
+            sample.succeed();
+        }
+        try (ScrapeMetrics.Sample sample =
+            metrics.start(ScrapeMetrics.Stage.RENDER, "a.org")) {
+            // Fails
+        }
+        metrics.unknownSelector("b.org");
+        metrics.downloaded(1024L);
+        Assert.assertEquals(1L, (long) metrics.getSuccesses().get("RENDER"));
+        Assert.assertEquals(1L, (long) metrics.getFailures().get("RENDER"));
+        Assert.assertEquals(0L, (long) metrics.getSuccesses().get("RESOLVE"));
+        Assert.assertEquals(0L, (long) metrics.getInFlight().get("RENDER"));
+        Assert.assertEquals(1L, (long) metrics.getUnknownSelectors().get("b.org"));
+        Assert.assertEquals(1024L, metrics.getBytesDownloaded());
+        Assert.assertTrue(metrics.getP95LatencyMillis().containsKey("RENDER a.org"));
+    }
+
+    @Test
+    public void reportsTheProgressOfARun() throws Exception {
+        final ScrapeMetrics metrics = new ScrapeMetrics();
+        final File summary = new File(this.folder.getRoot(), "metrics.json");
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName pattern =
+            new ObjectName("co.migueljimenez.bib:type=ScrapeMetrics,*");
+        metrics.startRun(4);
+        try {
+            metrics.entryDone();
+            metrics.entryDone();
+            Assert.assertTrue(
+                metrics.progress(),
+                metrics.progress().startsWith("2/4 entries (50.0%), ")
+            );
+            Assert.assertTrue(metrics.progress().contains("in flight: none"));
+            try (ScrapeMetrics.Sample sample =
+                metrics.start(ScrapeMetrics.Stage.DOWNLOAD, "a.org")) {
+                Assert.assertTrue(metrics.progress().contains("in flight: download=1"));
+            }
+            final Set<ObjectName> names = server.queryNames(pattern, null);
+            Assert.assertEquals(1, names.size());
+            Assert.assertEquals(
+                2L,
+                server.getAttribute(names.iterator().next(), "EntriesDone")
+            );
+        } finally {
+            metrics.finishRun(summary);
+        }
+        Assert.assertTrue(server.queryNames(pattern, null).isEmpty());
+        final String json = new String(
+            Files.readAllBytes(summary.toPath()),
+            StandardCharsets.UTF_8
+        );
+        Assert.assertTrue(json, json.contains("\"entriesTotal\": 4,"));
+        Assert.assertTrue(json, json.contains("\"failures\": {"));
+        Assert.assertTrue(
+            json,
+            json.contains("{\"stage\": \"DOWNLOAD\", \"host\": \"a.org\", \"count\": 1, ")
+        );
+    }
+
+}
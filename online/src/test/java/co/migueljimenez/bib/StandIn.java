@@ -0,0 +1,222 @@
+package co.migueljimenez.bib;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+
+/**
+ * A local HTTP server standing in for a publisher in tests. Each path
+ * answers with a fixed status, headers and body.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-18
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class StandIn implements AutoCloseable {
+
+    /**
+     * The server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The number of requests to each path.
+     */
+    private final Map<String, AtomicInteger> requests;
+
+    /**
+     * The headers of the last request to each path.
+     */
+    private final Map<String, Headers> headers;
+
+    /**
+     * The responses of each path, served in order; the last one is served
+     * from then on.
+     */
+    private final Map<String, Deque<Response>> responses;
+
+    /**
+     * Default constructor. The server listens on a free local port.
+     * @throws IOException
+     */
+    StandIn() throws IOException {
+        this.server = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+            0
+        );
+        this.requests = new ConcurrentHashMap<>();
+        this.headers = new ConcurrentHashMap<>();
+        this.responses = new ConcurrentHashMap<>();
+        this.server.start();
+    }
+
+    /**
+     * Serves the given path. Serving a path again queues another response:
+     * each response but the last is served once, in order.
+     * @param path The path, e.g., "/article"
+     * @param status The status of the response
+     * @param body The body of the response
+     * @param headers The headers of the response, as name and value pairs
+     * @return this stand-in
+     */
+    StandIn serve(final String path, final int status, final String body,
+        final String... headers) {
+        return this.serve(path, status, body.getBytes(StandardCharsets.UTF_8), headers);
+    }
+
+    /**
+     * Serves the given path with a binary body.
+     * @param path The path, e.g., "/paper.pdf"
+     * @param status The status of the response
+     * @param body The body of the response
+     * @param headers The headers of the response, as name and value pairs
+     * @return this stand-in
+     */
+    StandIn serve(final String path, final int status, final byte[] body,
+        final String... headers) {
+        final Response response = new Response(status, body, headers);
+        if (this.responses.putIfAbsent(path, new ArrayDeque<>()) == null) {
+            this.requests.put(path, new AtomicInteger());
+            this.server.createContext(path, exchange -> {
+                this.headers.put(path, exchange.getRequestHeaders());
+                this.requests.get(path).incrementAndGet();
+                this.next(path).send(exchange);
+            });
+        }
+        synchronized (this.responses.get(path)) {
+            this.responses.get(path).add(response);
+        }
+        return this;
+    }
+
+    /**
+     * The URL of the given path.
+     * @param path The path
+     * @return the URL
+     */
+    String url(final String path) {
+        return String.format(
+            "http://%s:%d%s",
+            this.server.getAddress().getHostString(),
+            this.server.getAddress().getPort(),
+            path
+        );
+    }
+
+    /**
+     * The host of the URLs.
+     * @return the host
+     */
+    String host() {
+        return this.server.getAddress().getHostString();
+    }
+
+    /**
+     * The number of requests to the given path so far.
+     * @param path The path
+     * @return the number of requests
+     */
+    int requests(final String path) {
+        return this.requests.get(path).get();
+    }
+
+    /**
+     * A header of the last request to the given path.
+     * @param path The path
+     * @param name The name of the header
+     * @return the value, or null if the header was not sent
+     */
+    String header(final String path, final String name) {
+        return this.headers.get(path).getFirst(name);
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+
+    private Response next(final String path) {
+        final Deque<Response> queue = this.responses.get(path);
+        synchronized (queue) {
+            return queue.size() > 1 ? queue.poll() : queue.peek();
+        }
+    }
+
+    /**
+     * A response of the stand-in.
+     */
+    private static final class Response {
+
+        /**
+         * The status.
+         */
+        private final int status;
+
+        /**
+         * The body.
+         */
+        private final byte[] body;
+
+        /**
+         * The headers, as name and value pairs.
+         */
+        private final String[] headers;
+
+        Response(final int status, final byte[] body, final String... headers) {
+            this.status = status;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        void send(final HttpExchange exchange) throws IOException {
+            boolean typed = false;
+            for (int i = 0; i + 1 < this.headers.length; i += 2) {
+                exchange.getResponseHeaders().add(this.headers[i], this.headers[i + 1]);
+                typed |= this.headers[i].equalsIgnoreCase("Content-Type");
+            }
+            if (!typed)
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            final boolean empty = this.body.length == 0
+                || exchange.getRequestMethod().equals("HEAD");
+            exchange.sendResponseHeaders(this.status, empty ? -1 : this.body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                if (!empty)
+                    output.write(this.body);
+            }
+        }
+
+    }
+
+}